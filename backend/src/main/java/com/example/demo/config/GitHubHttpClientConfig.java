@@ -0,0 +1,53 @@
+package com.example.demo.config;
+
+import com.example.demo.service.GitHubConditionalRequestInterceptor;
+import com.example.demo.service.GitHubRateLimitGovernor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Client HTTP partagé pour tous les appels GitHub (REST helpers + instances kohsuke).
+ * Le HttpClient du JDK garde ses connexions ouvertes (keep-alive) et multiplexe en HTTP/2 :
+ * une seule poignée de main TLS pour toute une série d'appels.
+ */
+@Configuration
+public class GitHubHttpClientConfig {
+
+    @Value("${github.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${github.http.read-timeout-ms:30000}")
+    private long readTimeoutMs;
+
+    @Value("${github.http.http2:true}")
+    private boolean http2;
+
+    @Bean
+    public HttpClient gitHubHttpClient() {
+        return HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate gitHubRestTemplate(HttpClient gitHubHttpClient,
+                                           GitHubConditionalRequestInterceptor conditionalRequests,
+                                           GitHubRateLimitGovernor rateLimitGovernor) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(gitHubHttpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(conditionalRequests);
+        // après le cache conditionnel : le governor ne voit que les vraies réponses réseau
+        restTemplate.getInterceptors().add(rateLimitGovernor);
+        return restTemplate;
+    }
+}
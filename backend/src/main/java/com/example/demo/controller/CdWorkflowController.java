@@ -5,15 +5,18 @@ import com.example.demo.repository.RepoRepository;
 import com.example.demo.service.CdWorkflowGenerationService;
 import com.example.demo.repository.CiWorkflowRepository;
 import com.example.demo.service.GitHubService;
+import com.example.demo.service.RepoSnapshot;
 import com.example.demo.service.DeploymentUrlService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpClientErrorException;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
 @RestController
 @RequestMapping("/api/cd-workflow")
 @CrossOrigin(origins = "*")
@@ -70,25 +73,16 @@ public class CdWorkflowController {
             boolean hasCompose = false;
             boolean tokenHasPermissions = true;
             try {
-                // Check for common compose file names
-                String[] composeFiles = {"docker-compose.yml", "docker-compose.yaml", "compose.yml", "compose.yaml"};
-                for (String fileName : composeFiles) {
-                    try {
-                        gitHubService.getFileContent(repo.getUrl(), token, fileName);
-                        hasCompose = true;
-                        break;
-                    } catch (RuntimeException e) {
-                        if (e.getMessage() != null && e.getMessage().contains("token is invalid or expired")) {
-                            tokenHasPermissions = false;
-                            System.err.println("⚠️  Token permission issue detected, skipping compose check: " + e.getMessage());
-                            break; // Exit the loop if token is invalid
-                        }
-                        // File doesn't exist, try next
-                    }
+                // One tree listing, then each common compose file name is probed in the path index
+                hasCompose = hasComposeAtRoot(repo, token);
+            } catch (RuntimeException e) {
+                if (isTokenError(e)) {
+                    tokenHasPermissions = false;
+                    System.err.println("⚠️  Token permission issue detected, skipping compose check: " + e.getMessage());
+                } else {
+                    // Empty repository, transient error...: no compose file found
+                    System.err.println("⚠️  Error checking Docker Compose files: " + e.getMessage());
                 }
-            } catch (Exception e) {
-                System.err.println("⚠️  Error checking Docker Compose files: " + e.getMessage());
-                tokenHasPermissions = false;
             }
 
             // If token doesn't work, we can't verify Docker Compose exists  
@@ -183,27 +177,14 @@ public class CdWorkflowController {
             boolean hasCompose = false;
             boolean tokenWorksForFiles = true;
             try {
-                // Check for common compose file names
-                String[] composeFiles = {"docker-compose.yml", "docker-compose.yaml", "compose.yml", "compose.yaml"};
-                for (String fileName : composeFiles) {
-                    try {
-                        gitHubService.getFileContent(repo.getUrl(), token, fileName);
-                        hasCompose = true;
-                        break;
-                    } catch (RuntimeException e) {
-                        if (e.getMessage() != null && e.getMessage().contains("token is invalid or expired")) {
-                            tokenWorksForFiles = false;
-                            System.err.println("⚠️  Token permission issue during compose check: " + e.getMessage());
-                            break; // Exit the loop if token is invalid
-                        }
-                        // File doesn't exist, try next
-                    } catch (Exception ignore) {
-                        // File doesn't exist, try next
-                    }
+                hasCompose = hasComposeAtRoot(repo, token);
+            } catch (RuntimeException e) {
+                if (isTokenError(e)) {
+                    tokenWorksForFiles = false;
+                    System.err.println("⚠️  Token permission issue during compose check: " + e.getMessage());
+                } else {
+                    System.err.println("⚠️  Error checking Docker Compose files: " + e.getMessage());
                 }
-            } catch (Exception e) {
-                System.err.println("⚠️  Error checking Docker Compose files: " + e.getMessage());
-                tokenWorksForFiles = false;
             }
 
             // If token doesn't work, we can't verify Docker Compose exists
@@ -248,6 +229,24 @@ public class CdWorkflowController {
         }
     }
 
+    // Helper: is there a compose file at the repository root? (one root listing instead of one contents call per name)
+    private boolean hasComposeAtRoot(Repo repo, String token) {
+        Set<String> composeFiles = Set.of("docker-compose.yml", "docker-compose.yaml", "compose.yml", "compose.yaml");
+        for (RepoSnapshot.Entry entry : gitHubService.getRepositoryContents(repo.getUrl(), token, null)) {
+            if (!entry.isDirectory() && composeFiles.contains(entry.getName())) return true;
+        }
+        return false;
+    }
+
+    // Helper: only authentication failures mean the token cannot be used to check files
+    private static boolean isTokenError(RuntimeException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof HttpClientErrorException.Unauthorized || t instanceof HttpClientErrorException.Forbidden) return true;
+            if (t.getMessage() != null && t.getMessage().contains("token is invalid or expired")) return true;
+        }
+        return false;
+    }
+
     // Helper: Auth + repo lookup 
     private Repo requireAuthAndRepo(Authentication authentication, Long repoId) {
         try {
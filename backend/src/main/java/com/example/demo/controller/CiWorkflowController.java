@@ -60,6 +60,8 @@ public ResponseEntity<?> previewDocker(@RequestBody WorkflowGenerationRequest re
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "GitHub token not found for user"));
         }
         gitHubService.setCurrentToken(token);
+        // un seul git/trees par requête ; les lectures passent par le cache de blobs
+        RepoSnapshot snapshot = gitHubService.getRepositorySnapshot(repo.getUrl(), token, repo.getDefaultBranch());
 
         WorkflowGenerationRequest.DockerOptions docker = request.getDocker();
         if (docker == null) docker = new WorkflowGenerationRequest.DockerOptions();
@@ -80,7 +82,7 @@ if (request.getServices()!=null && !request.getServices().isEmpty()) {
 
         // 2) Build a per-service container plan
         ContainerPlan p = containerizationService.plan(
-                repo.getUrl(), token,
+                snapshot,
                 (docker.getImageNameOverride() == null || docker.getImageNameOverride().isBlank())
                         ? repo.getFullName() : docker.getImageNameOverride(),
                 info, docker.getImageNameOverride(), docker.getRegistry()
@@ -96,8 +98,7 @@ if (request.getServices()!=null && !request.getServices().isEmpty()) {
 
         if (!p.isShouldGenerateDockerfile()) {
             // Try reading existing file from GitHub
-            String existing = null;
-            try { existing = gitHubService.getFileContent(repo.getUrl(), token, path); } catch (Exception ignore) {}
+            String existing = snapshot.read(path);
             if (existing != null && !existing.isBlank()) {
                 previewContent = existing;
                 previewSource  = "existing";
@@ -146,7 +147,7 @@ if (request.getServices()!=null && !request.getServices().isEmpty()) {
         }
 
         ContainerPlan containerPlan = containerizationService.plan(
-                repo.getUrl(), token,
+                snapshot,
                 (docker.getImageNameOverride() == null || docker.getImageNameOverride().isBlank())
                         ? repo.getFullName() : docker.getImageNameOverride(),
                 info, docker.getImageNameOverride(), docker.getRegistry()
@@ -159,14 +160,14 @@ if (request.getServices()!=null && !request.getServices().isEmpty()) {
                 path = defaultDockerfilePath(info.getWorkingDirectory());
                 containerPlan.setDockerfilePath(path);
             }
-            try {
-                String existing = gitHubService.getFileContent(repo.getUrl(), token, path);
-                if (existing != null) {
-                    containerPlan.setExistingDockerfileContent(existing);
-                    containerPlan.setPreviewDockerfileContent(existing);
-                    containerPlan.setPreviewSource("existing");
-                }
-            } catch (Exception ignore) {}
+            // le plan a déjà lu le Dockerfile (même blob, servi par le cache)
+            String existing = containerPlan.getExistingDockerfileContent() != null
+                    ? containerPlan.getExistingDockerfileContent() : snapshot.read(path);
+            if (existing != null) {
+                containerPlan.setExistingDockerfileContent(existing);
+                containerPlan.setPreviewDockerfileContent(existing);
+                containerPlan.setPreviewSource("existing");
+            }
         } else {
             String gen = dockerfileGenerationService.generate(info);
             containerPlan.setGeneratedDockerfileContent(gen);
@@ -217,6 +218,8 @@ private String defaultDockerfilePath(String workingDir) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "GitHub token not found for user"));
             }
             gitHubService.setCurrentToken(token);
+            // un seul git/trees par requête ; les lectures passent par le cache de blobs
+            RepoSnapshot snapshot = gitHubService.getRepositorySnapshot(repo.getUrl(), token, repo.getDefaultBranch());
 
             WorkflowGenerationRequest.DockerOptions docker = request.getDocker();
             if (docker == null) docker = new WorkflowGenerationRequest.DockerOptions();
@@ -224,20 +227,31 @@ private String defaultDockerfilePath(String workingDir) {
             // ---- MULTI
             if (request.getServices()!=null && !request.getServices().isEmpty()) {
                 var plans = containerizationService.planMulti(
-                        repo.getUrl(), token, repo.getFullName(), request.getServices(), docker.getRegistry());
+                        snapshot, repo.getFullName(), request.getServices(), docker.getRegistry());
 
                 List<String> pushedPaths = new ArrayList<>();
                 Map<String,String> commitsByPath = new HashMap<>();
 
+                // Tous les Dockerfiles à générer partent dans un seul commit
+                List<ServiceContainerPlan> toApply = new ArrayList<>();
+                List<GitHubService.FileToPush> files = new ArrayList<>();
                 for (ServiceContainerPlan p : plans) {
                     if (!p.isShouldGenerateDockerfile()) continue;
-
-                    GitHubService.PushResult pr = gitHubService.pushWorkflowToGitHub(
-                            token, repo.getFullName(), repo.getDefaultBranch(),
+                    toApply.add(p);
+                    files.add(new GitHubService.FileToPush(
                             p.getDockerfilePath(), p.getGeneratedDockerfileContent(),
                             docker.getDockerfileStrategy() != null ? docker.getDockerfileStrategy()
                                                                   : GitHubService.FileHandlingStrategy.UPDATE_IF_EXISTS
-                    );
+                    ));
+                }
+
+                List<GitHubService.PushResult> pushed = gitHubService.pushFilesToGitHub(
+                        token, repo.getFullName(), repo.getDefaultBranch(), files,
+                        "Add Dockerfiles for " + files.size() + " service(s)");
+
+                for (int i = 0; i < toApply.size(); i++) {
+                    ServiceContainerPlan p = toApply.get(i);
+                    GitHubService.PushResult pr = pushed.get(i);
 
                     // Historiser
                     dockerfileHistoryService.recordMulti(repo, p, pr);
@@ -261,7 +275,7 @@ private String defaultDockerfilePath(String workingDir) {
             if (info == null) return ResponseEntity.badRequest().body(Map.of("success", false, "message", "TechStackInfo is null"));
 
             ContainerPlan containerPlan = containerizationService.plan(
-                    repo.getUrl(), token,
+                    snapshot,
                     (docker.getImageNameOverride() == null || docker.getImageNameOverride().isBlank())
                             ? repo.getFullName() : docker.getImageNameOverride(),
                     info, docker.getImageNameOverride(), docker.getRegistry()
@@ -373,14 +387,16 @@ public ResponseEntity<?> applyComposeProd(@RequestParam(value="path", required=f
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "GitHub token not found for user"));
         }
         gitHubService.setCurrentToken(token);
+        // un seul git/trees par requête ; les lectures passent par le cache de blobs
+        RepoSnapshot snapshot = gitHubService.getRepositorySnapshot(repo.getUrl(), token, repo.getDefaultBranch());
 
         // déjà présent quelque part ?
-        var existing = dockerComposeService.findComposeFiles(repo.getUrl(), token, null);
+        var existing = dockerComposeService.findComposeFiles(snapshot, null);
         if (!existing.isEmpty()) {
             // ✅ NOUVEAU: Historiser les fichiers compose EXISTANTS détectés
             for (String existingPath : existing) {
                 try {
-                    String existingContent = gitHubService.getFileContent(repo.getUrl(), token, existingPath);
+                    String existingContent = snapshot.read(existingPath);
                     if (existingContent != null) {
                         // Déterminer le mode selon la requête
                         DockerComposeHistory.Mode mode = (request != null && request.getServices() != null && !request.getServices().isEmpty()) 
@@ -501,6 +517,8 @@ public ResponseEntity<?> previewCi(@RequestBody WorkflowGenerationRequest reques
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "GitHub token not found for user"));
         }
         gitHubService.setCurrentToken(token);
+        // un seul git/trees par requête ; les lectures passent par le cache de blobs
+        RepoSnapshot snapshot = gitHubService.getRepositorySnapshot(repo.getUrl(), token, repo.getDefaultBranch());
 
         WorkflowGenerationRequest.DockerOptions docker = request.getDocker();
         if (docker == null) docker = new WorkflowGenerationRequest.DockerOptions();
@@ -517,7 +535,7 @@ if (request.getServices() != null && !request.getServices().isEmpty()) {
         if (info == null) continue;
 
         // Construit le YAML (et vérifie que le Dockerfile est bien appliqué)
-        Map<String, Object> built = buildCiContentAndPath(repo, info, docker, token);
+        Map<String, Object> built = buildCiContentAndPath(repo, snapshot, info, docker);
         String content  = (String) built.get("content");
 
         // 👇 NEW: nom de fichier basé sur l'outil (maven/gradle/npm→node) + suffixes 2,3...
@@ -526,8 +544,7 @@ if (request.getServices() != null && !request.getServices().isEmpty()) {
         String filePath = workflowsPath(fileName);
 
         // Lire le fichier existant à CE chemin
-        String existing = null;
-        try { existing = gitHubService.getFileContent(repo.getUrl(), token, filePath); } catch (Exception ignore) {}
+        String existing = snapshot.read(filePath);
 
         String status = (existing == null) ? "NOT_FOUND" : (existing.equals(content) ? "IDENTICAL" : "DIFFERENT");
 
@@ -555,14 +572,11 @@ if (request.getServices() != null && !request.getServices().isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", "TechStackInfo is null in request"));
         }
 
-        Map<String, Object> built = buildCiContentAndPath(repo, info, docker, token);
+        Map<String, Object> built = buildCiContentAndPath(repo, snapshot, info, docker);
         String filePath = (String) built.get("filePath");
         String content  = (String) built.get("content");
 
-        String existing = null;
-        try {
-            existing = gitHubService.getFileContent(repo.getUrl(), token, filePath);
-        } catch (Exception ignore) {}
+        String existing = snapshot.read(filePath);
 
         String status = (existing == null) ? "NOT_FOUND" : (existing.equals(content) ? "IDENTICAL" : "DIFFERENT");
 
@@ -607,6 +621,8 @@ if (request.getServices() != null && !request.getServices().isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "GitHub token not found for user"));
             }
             gitHubService.setCurrentToken(token);
+            // un seul git/trees par requête ; les lectures passent par le cache de blobs
+            RepoSnapshot snapshot = gitHubService.getRepositorySnapshot(repo.getUrl(), token, repo.getDefaultBranch());
 
             WorkflowGenerationRequest.DockerOptions docker = request.getDocker();
             if (docker == null) docker = new WorkflowGenerationRequest.DockerOptions();
@@ -617,13 +633,15 @@ if (request.getServices() != null && !request.getServices().isEmpty()) {
 
     // 👇 NEW: compteurs par outil pour générer des noms stables et sans collisions
     Map<String, Integer> toolCounters = new HashMap<>();
+    List<String> serviceDirs = new ArrayList<>();
+    List<GitHubService.FileToPush> files = new ArrayList<>();
 
     for (Map<String,Object> svc : request.getServices()) {
         StackAnalysis info = StackAnalysis.fromMap(svc);
         if (info == null) continue;
 
         ContainerPlan containerPlan = containerizationService.plan(
-                repo.getUrl(), token,
+                snapshot,
                 (docker.getImageNameOverride() == null || docker.getImageNameOverride().isBlank())
                         ? repo.getFullName() : docker.getImageNameOverride(),
                 info, docker.getImageNameOverride(), docker.getRegistry()
@@ -664,14 +682,23 @@ if (request.getServices() != null && !request.getServices().isEmpty()) {
         String fileName = nextCiFileName(buildToolLower, toolCounters);
         String filePath = workflowsPath(fileName);
 
-        try { gitHubService.getUserInfo(token); } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "GitHub connection failed: " + e.getMessage()));
-        }
+        serviceDirs.add(info.getWorkingDirectory());
+        files.add(new GitHubService.FileToPush(filePath, content,
+                GitHubService.FileHandlingStrategy.valueOf(request.getFileHandlingStrategy().name())));
+    }
 
-        GitHubService.PushResult pr = gitHubService.pushWorkflowToGitHub(
-                token, repo.getFullName(), repo.getDefaultBranch(), filePath, content,
-                GitHubService.FileHandlingStrategy.valueOf(request.getFileHandlingStrategy().name())
-        );
+    try { gitHubService.verifyToken(token); } catch (Exception e) {
+        return ResponseEntity.badRequest().body(Map.of("success", false, "message", "GitHub connection failed: " + e.getMessage()));
+    }
+
+    // Un seul commit pour tous les workflows (API Git Data)
+    List<GitHubService.PushResult> pushed = gitHubService.pushFilesToGitHub(
+            token, repo.getFullName(), repo.getDefaultBranch(), files,
+            "Add CI workflows for " + files.size() + " service(s)");
+
+    for (int i = 0; i < files.size(); i++) {
+        GitHubService.PushResult pr = pushed.get(i);
+        String content = files.get(i).getContent();
 
         if (pr.getCommitHash() != null) {
             CiWorkflow workflow = workflowService.saveWorkflowAfterPush(repo, content, pr.getCommitHash());
@@ -679,8 +706,8 @@ if (request.getServices() != null && !request.getServices().isEmpty()) {
         }
 
         results.add(Map.of(
-                "service", info.getWorkingDirectory(),
-                "filePath", filePath,           // 👈 renvoyer le chemin réellement poussé
+                "service", serviceDirs.get(i),
+                "filePath", pr.getFilePath(),   // 👈 renvoyer le chemin réellement poussé
                 "commitHash", pr.getCommitHash()
         ));
     }
@@ -700,7 +727,7 @@ if (request.getServices() != null && !request.getServices().isEmpty()) {
             }
 
             ContainerPlan containerPlan = containerizationService.plan(
-                    repo.getUrl(), token,
+                    snapshot,
                     (docker.getImageNameOverride() == null || docker.getImageNameOverride().isBlank())
                             ? repo.getFullName() : docker.getImageNameOverride(),
                     info, docker.getImageNameOverride(), docker.getRegistry()
@@ -746,7 +773,7 @@ if (request.getServices() != null && !request.getServices().isEmpty()) {
             };
             String filePath = ".github/workflows/" + fileName;
 
-            try { gitHubService.getUserInfo(token); } catch (Exception e) {
+            try { gitHubService.verifyToken(token); } catch (Exception e) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "GitHub connection failed: " + e.getMessage()));
             }
 
@@ -779,14 +806,14 @@ if (request.getServices() != null && !request.getServices().isEmpty()) {
 // ======================
 private Map<String, Object> buildCiContentAndPath(
         Repo repo,
+        RepoSnapshot snapshot,
         StackAnalysis info,
-        WorkflowGenerationRequest.DockerOptions docker,
-        String token
+        WorkflowGenerationRequest.DockerOptions docker
 ) throws Exception {
 
     // 1) Plan de containerisation
     ContainerPlan containerPlan = containerizationService.plan(
-            repo.getUrl(), token,
+            snapshot,
             (docker.getImageNameOverride() == null || docker.getImageNameOverride().isBlank())
                     ? repo.getFullName() : docker.getImageNameOverride(),
             info, docker.getImageNameOverride(), docker.getRegistry()
@@ -898,4 +925,4 @@ private static String workflowsPath(String fileName) {
         if (m.find()) return m.group(1);
         return "lts/*";
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
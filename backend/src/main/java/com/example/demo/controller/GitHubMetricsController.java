@@ -0,0 +1,36 @@
+package com.example.demo.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.service.GitHubService;
+
+/**
+ * Compteurs internes des accès GitHub (caches, appels économisés...).
+ */
+@RestController
+@RequestMapping("/api/github")
+@CrossOrigin(origins = "*")
+public class GitHubMetricsController {
+
+    @Autowired
+    private GitHubService gitHubService;
+
+    @GetMapping("/metrics")
+    public ResponseEntity<?> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("blobCache", gitHubService.getBlobCacheStats());
+        metrics.put("conditionalRequests", gitHubService.getConditionalRequestStats());
+        metrics.put("clients", gitHubService.getClientCacheStats());
+        metrics.put("rateLimits", gitHubService.getRateLimitStats());
+        metrics.put("permissions", gitHubService.getPermissionCacheStats());
+        return ResponseEntity.ok(Map.of("success", true, "metrics", metrics));
+    }
+}
@@ -1,19 +1,35 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.ServiceAnalysis;
 import com.example.demo.dto.StackAnalysis;
 import com.example.demo.model.Repo;
+import com.example.demo.model.StackAnalysisResult;
+import com.example.demo.model.User;
 import com.example.demo.repository.RepoRepository;
+import com.example.demo.service.ArchiveRepositorySource;
+import com.example.demo.service.BulkAnalysisScheduler;
+import com.example.demo.service.StackAnalysisCacheService;
 import com.example.demo.service.StackDetectionService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Endpoints alignés avec le frontend :
  *  - POST /api/stack-analysis/analyze/{repoId}
+ *  - POST /api/stack-analysis/analyze/bulk (flux SSE, un événement par repo)
+ *  - POST /api/stack-analysis/analyze/archive (archive tar/zip envoyée, analyse hors GitHub)
  *  - GET  /api/stack-analysis/repository/{repoId}/all-files
  *  - PUT  /api/stack-analysis/repository/{repoId}/update-parameters
  *
@@ -31,11 +47,29 @@ public class StackAnalysisController {
     @Autowired
     private RepoRepository repoRepository;
 
+    @Autowired
+    private StackAnalysisCacheService analysisCache;
+
+    @Autowired
+    private BulkAnalysisScheduler bulkScheduler;
+
+    @Value("${analysis.archive.max-entries:100000}")
+    private int archiveMaxEntries;
+
+    @Value("${analysis.archive.max-retained-bytes:67108864}")
+    private long archiveMaxRetainedBytes;
+
+    @Value("${analysis.bulk.timeout-ms:1800000}")
+    private long bulkTimeoutMs;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
-     * Lance l’analyse, renvoie { success, mode, services, primaryServiceId, defaultBranch, analysis? }
+     * Lance l’analyse, renvoie { success, mode, services, primaryServiceId, defaultBranch, commitSha, analysis? }
      * et persiste ce payload dans repo.technicalDetails (JSON).
+     * Si la branche n’a pas bougé depuis une analyse précédente (même SHA, même version de l’analyseur),
+     * le résultat enregistré est renvoyé sans relancer la détection.
+     * Une analyse interrompue par son budget est renvoyée avec incomplete=true et n'est pas mise en cache.
      */
     @PostMapping("/analyze/{repoId}")
     public ResponseEntity<Map<String, Object>> analyzeRepository(@PathVariable Long repoId) {
@@ -47,7 +81,38 @@ public class StackAnalysisController {
             String token      = repo.getUser().getToken();
             String defBranch  = repo.getDefaultBranch();
 
-            var services = stackDetectionService.analyzeAllServices(repoUrl, token);
+            String headSha = resolveHeadSha(repoUrl, token, defBranch);
+            Optional<String> cached = analysisCache.find(repo, headSha);
+            if (cached.isPresent()) {
+                repo.setTechnicalDetails(cached.get());
+                repoRepository.save(repo);
+                @SuppressWarnings("unchecked")
+                Map<String, Object> payload = objectMapper.readValue(cached.get(), Map.class);
+                return ResponseEntity.ok(payload);
+            }
+
+            // analyse figée sur le SHA lu ci-dessus : le résultat enregistré correspond exactement à ce commit
+            String ref = headSha != null ? headSha : defBranch;
+
+            // la branche a bougé depuis la dernière analyse : on ne ré-analyse que ce que le diff touche
+            Map<String, Object> previousPayload = null;
+            StackDetectionService.IncrementalResult incremental = null;
+            Optional<StackAnalysisResult> previous = headSha != null ? analysisCache.findLatest(repo) : Optional.empty();
+            if (previous.isPresent()) {
+                previousPayload = objectMapper.readValue(previous.get().getPayload(), new TypeReference<Map<String, Object>>() {});
+                List<ServiceAnalysis> previousServices = objectMapper.convertValue(
+                        previousPayload.get("services"), new TypeReference<List<ServiceAnalysis>>() {});
+                incremental = stackDetectionService.analyzeIncrementally(
+                        repoUrl, token, previous.get().getCommitSha(), headSha, previousServices);
+            }
+
+            // sinon une seule passe d'analyse, dont on tire les vues multi et single
+            StackDetectionService.RepositoryAnalysis analysis = incremental == null
+                    ? stackDetectionService.analyze(repoUrl, token, ref)
+                    : null;
+            var services = incremental != null
+                    ? incremental.getServices()
+                    : stackDetectionService.toServiceAnalyses(analysis);
             if (services == null || services.isEmpty()) {
                 Map<String, Object> resp = new HashMap<>();
                 resp.put("success", false);
@@ -66,20 +131,40 @@ public class StackAnalysisController {
             payload.put("services", services);
             payload.put("primaryServiceId", primaryServiceId);
             payload.put("defaultBranch", defBranch);
+            payload.put("commitSha", headSha);
+
+            String incompleteReason = analysis != null ? analysis.getIncompleteReason() : incremental.getIncompleteReason();
 
             if (services.size() == 1) {
                 payload.put("mode", "single");
-                StackAnalysis single = stackDetectionService.analyzeRepository(repoUrl, token, defBranch);
-                payload.put("analysis", single);
+                if (incremental != null && incremental.isSingleAnalysisReusable()
+                        && "single".equals(previousPayload.get("mode")) && previousPayload.get("analysis") != null) {
+                    payload.put("analysis", previousPayload.get("analysis"));
+                } else if (analysis != null) {
+                    payload.put("analysis", stackDetectionService.toStackAnalysis(analysis));
+                } else if (incremental.getSingleAnalysis() != null) {
+                    payload.put("analysis", incremental.getSingleAnalysis());
+                } else {
+                    // résultat précédent sans vue single exploitable : analyse complète, son état partiel compte aussi
+                    StackDetectionService.RepositoryAnalysis full = stackDetectionService.analyze(repoUrl, token, ref);
+                    payload.put("analysis", stackDetectionService.toStackAnalysis(full));
+                    if (incompleteReason == null) incompleteReason = full.getIncompleteReason();
+                }
                 payload.put("message", "Single-service repository analyzed successfully");
             } else {
                 payload.put("mode", "multi");
                 payload.put("message", "Multi-service repository analyzed successfully");
             }
 
+            if (incompleteReason != null) {
+                payload.put("incomplete", true);
+                payload.put("incompleteReason", incompleteReason);
+            }
+
             String detailsJson = objectMapper.writeValueAsString(payload);
             repo.setTechnicalDetails(detailsJson);
             repoRepository.save(repo);
+            if (incompleteReason == null) analysisCache.store(repo, headSha, detailsJson);
 
             return ResponseEntity.ok(payload);
 
@@ -91,6 +176,137 @@ public class StackAnalysisController {
         }
     }
 
+    /**
+     * Analyse en masse : body { repoIds: [...] }. Chaque repo passe par le même traitement que /analyze/{repoId},
+     * ordonnancé sur le pool borné de {@link BulkAnalysisScheduler} (équitable entre utilisateurs authentifiés ;
+     * le token du propriétaire de chaque repo reste la clé du plafond par token).
+     * Seuls les repos de l'utilisateur authentifié sont analysés : un repo inconnu ou appartenant à un autre
+     * utilisateur reçoit un événement "error" { repoId, success: false, message } et n'est jamais mis en file.
+     * Réponse en flux SSE : un événement "result" { repoId, ...payload de /analyze } dès qu'un repo est terminé,
+     * puis un événement "complete" { total, succeeded, failed }. Si le client se déconnecte, les repos pas encore
+     * lancés sont abandonnés.
+     */
+    @PostMapping(value = "/analyze/bulk", produces = "text/event-stream")
+    public SseEmitter analyzeRepositories(@RequestBody Map<String, List<Long>> body, Authentication authentication) {
+        User requester = authentication != null && authentication.getPrincipal() instanceof User user ? user : null;
+        List<Long> repoIds = new ArrayList<>(new LinkedHashSet<>(body.getOrDefault("repoIds", List.of())));
+        SseEmitter emitter = new SseEmitter(bulkTimeoutMs);
+        List<CompletableFuture<Map<String, Object>>> jobs = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger remaining = new AtomicInteger(repoIds.size());
+        AtomicInteger succeeded = new AtomicInteger();
+
+        Runnable cancelPending = () -> jobs.forEach(j -> j.cancel(false));
+        emitter.onCompletion(cancelPending);
+        emitter.onTimeout(cancelPending);
+        emitter.onError(e -> cancelPending.run());
+
+        if (repoIds.isEmpty()) {
+            sendBulkEvent(emitter, "complete", Map.of("total", 0, "succeeded", 0, "failed", 0));
+            emitter.complete();
+            return emitter;
+        }
+
+        for (Long repoId : repoIds) {
+            CompletableFuture<Map<String, Object>> job;
+            try {
+                Repo repo = repoRepository.findById(repoId)
+                        .filter(r -> isOwnedBy(r, requester))
+                        .orElseThrow(() -> new BulkRejection("Repository not found"));
+                job = bulkScheduler.submit("user:" + requester.getId(), repo.getUser().getToken(),
+                        () -> analyzeRepository(repoId).getBody());
+            } catch (RuntimeException e) {
+                job = CompletableFuture.failedFuture(e);
+            }
+            jobs.add(job);
+            job.whenComplete((payload, error) -> {
+                Map<String, Object> event = new LinkedHashMap<>();
+                event.put("repoId", repoId);
+                if (error instanceof BulkRejection) {
+                    event.put("success", false);
+                    event.put("message", error.getMessage());
+                } else if (error != null) {
+                    event.put("success", false);
+                    event.put("message", "Error during analysis: " + (error.getCause() != null ? error.getCause() : error).getMessage());
+                } else {
+                    event.putAll(payload);
+                }
+                if (Boolean.TRUE.equals(event.get("success"))) succeeded.incrementAndGet();
+                sendBulkEvent(emitter, error instanceof BulkRejection ? "error" : "result", event);
+
+                if (remaining.decrementAndGet() == 0) {
+                    int total = repoIds.size();
+                    sendBulkEvent(emitter, "complete", Map.of(
+                            "total", total, "succeeded", succeeded.get(), "failed", total - succeeded.get()));
+                    emitter.complete();
+                }
+            });
+        }
+        return emitter;
+    }
+
+    private static boolean isOwnedBy(Repo repo, User user) {
+        return user != null && user.getId() != null && repo.getUser() != null && user.getId().equals(repo.getUser().getId());
+    }
+
+    /** Repo refusé avant la mise en file (inconnu ou d'un autre utilisateur) : même message dans les deux cas. */
+    private static final class BulkRejection extends RuntimeException {
+        private BulkRejection(String message) {
+            super(message);
+        }
+    }
+
+    private static void sendBulkEvent(SseEmitter emitter, String name, Object data) {
+        synchronized (emitter) {
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            } catch (IOException | IllegalStateException e) {
+                // client parti ou flux déjà fermé : les jobs restants sont annulés par onError / onCompletion
+            }
+        }
+    }
+
+    /**
+     * Analyse d'une archive envoyée (multipart "file" : .zip, .tar, .tar.gz, .tgz), sans appel à GitHub
+     * et sans rien enregistrer : { success, mode, services, analysis?, incomplete? }.
+     * Taille de l'envoi bornée par spring.servlet.multipart.*, contenu décompressé par analysis.archive.*.
+     */
+    @PostMapping("/analyze/archive")
+    public ResponseEntity<Map<String, Object>> analyzeArchive(@RequestParam("file") MultipartFile file) {
+        try {
+            ArchiveRepositorySource source;
+            try (var in = file.getInputStream()) {
+                source = ArchiveRepositorySource.read(file.getOriginalFilename(), in, archiveMaxEntries, archiveMaxRetainedBytes);
+            }
+            StackDetectionService.RepositoryAnalysis analysis = stackDetectionService.analyze(source);
+            List<ServiceAnalysis> services = stackDetectionService.toServiceAnalyses(analysis);
+
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("success", true);
+            payload.put("services", services);
+            payload.put("mode", services.size() == 1 ? "single" : "multi");
+            if (services.size() == 1) payload.put("analysis", stackDetectionService.toStackAnalysis(analysis));
+            if (analysis.isIncomplete()) {
+                payload.put("incomplete", true);
+                payload.put("incompleteReason", analysis.getIncompleteReason());
+            }
+            return ResponseEntity.ok(payload);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Error during archive analysis: " + e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    /** SHA de tête de la branche, ou null si GitHub ne répond pas (on analyse alors sans cache). */
+    private String resolveHeadSha(String repoUrl, String token, String branch) {
+        try {
+            return stackDetectionService.getBranchHeadSha(repoUrl, token, branch);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /**
      * Retourne la liste des fichiers (pour l’arbre côté front).
      */
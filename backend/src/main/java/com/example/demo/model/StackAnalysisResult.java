@@ -0,0 +1,43 @@
+// src/main/java/com/example/demo/model/StackAnalysisResult.java
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Résultat d'analyse de stack figé pour un commit : (repo, SHA de tête, version de l'analyseur).
+ * Tant que la branche n'a pas bougé et que la logique de détection est la même, on le réutilise.
+ */
+@Entity
+@Table(name = "stack_analysis_result",
+    uniqueConstraints = @UniqueConstraint(name = "uk_sar_repo_commit_version",
+        columnNames = {"repo_id", "commitSha", "analyzerVersion"}),
+    indexes = @Index(name = "idx_sar_repo", columnList = "repo_id"))
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class StackAnalysisResult {
+
+  @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "repo_id")
+  @OnDelete(action = OnDeleteAction.CASCADE)
+  private Repo repo;
+
+  @Column(length = 80, nullable = false)
+  private String commitSha;
+
+  @Column(length = 40, nullable = false)
+  private String analyzerVersion;
+
+  @Column(columnDefinition = "TEXT", nullable = false)
+  private String payload;                  // JSON renvoyé par /analyze
+
+  @CreationTimestamp
+  private OffsetDateTime createdAt;
+}
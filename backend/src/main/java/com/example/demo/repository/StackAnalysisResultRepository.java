@@ -0,0 +1,23 @@
+// src/main/java/com/example/demo/repository/StackAnalysisResultRepository.java
+package com.example.demo.repository;
+
+import com.example.demo.model.Repo;
+import com.example.demo.model.StackAnalysisResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface StackAnalysisResultRepository extends JpaRepository<StackAnalysisResult, Long> {
+  Optional<StackAnalysisResult> findByRepoAndCommitShaAndAnalyzerVersion(Repo repo, String commitSha, String analyzerVersion);
+  Optional<StackAnalysisResult> findFirstByRepoAndAnalyzerVersionOrderByCreatedAtDesc(Repo repo, String analyzerVersion);
+
+  @Transactional
+  long deleteByRepoAndAnalyzerVersionNot(Repo repo, String analyzerVersion);
+
+  @Query("SELECT r.id FROM StackAnalysisResult r WHERE r.repo = :repo AND r.analyzerVersion = :analyzerVersion ORDER BY r.createdAt DESC, r.id DESC")
+  List<Long> findIdsNewestFirst(@Param("repo") Repo repo, @Param("analyzerVersion") String analyzerVersion);
+}
@@ -0,0 +1,90 @@
+package com.example.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Budget d'une analyse : entrées de l'arbre visitées, chargements de fichiers (appels distants
+ * possibles) et durée totale. Une fois épuisé il le reste : le parcours s'arrête, les lectures
+ * suivantes sont refusées et l'analyse est renvoyée partielle, avec la raison de l'arrêt.
+ * Partagé entre les tâches parallèles d'une même analyse.
+ */
+public class AnalysisBudget {
+
+    private final int maxFiles;
+    private final int maxLoads;
+    private final long maxMillis;
+    private final long deadlineNanos;
+    private final LongSupplier clock;
+
+    private final AtomicInteger visited = new AtomicInteger();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicReference<String> exhausted = new AtomicReference<>();
+
+    /** Limites à 0 (ou négatives) = pas de limite. */
+    public AnalysisBudget(int maxFiles, int maxLoads, long maxMillis) {
+        this(maxFiles, maxLoads, maxMillis, System::nanoTime);
+    }
+
+    AnalysisBudget(int maxFiles, int maxLoads, long maxMillis, LongSupplier clock) {
+        this.maxFiles = maxFiles;
+        this.maxLoads = maxLoads;
+        this.clock = clock;
+        this.maxMillis = maxMillis;
+        this.deadlineNanos = clock.getAsLong() + maxMillis * 1_000_000L;
+    }
+
+    /** Compte une entrée de l'arbre parcourue ; false si le budget est (ou vient d'être) épuisé. */
+    public boolean visit() {
+        if (!hasTime()) return false;
+        int n = visited.incrementAndGet();
+        if (maxFiles > 0 && n > maxFiles) {
+            return exhaust("more than " + maxFiles + " files visited");
+        }
+        return true;
+    }
+
+    /** Réserve un chargement de fichier ; false s'il doit être refusé (budget épuisé). */
+    public boolean load() {
+        if (!hasTime()) return false;
+        int n = loads.incrementAndGet();
+        if (maxLoads > 0 && n > maxLoads) {
+            return exhaust("more than " + maxLoads + " file loads");
+        }
+        return true;
+    }
+
+    public boolean isExhausted() {
+        return exhausted.get() != null || !hasTime();
+    }
+
+    /** Raison de l'arrêt (première limite atteinte), ou null si le budget n'est pas épuisé. */
+    public String getExhaustedReason() {
+        isExhausted();
+        return exhausted.get();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("visited", visited.get());
+        out.put("loads", loads.get());
+        out.put("exhausted", exhausted.get());
+        return out;
+    }
+
+    private boolean hasTime() {
+        if (exhausted.get() != null) return false;
+        if (maxMillis > 0 && clock.getAsLong() - deadlineNanos >= 0) {
+            return exhaust("time limit of " + maxMillis + " ms reached");
+        }
+        return true;
+    }
+
+    private boolean exhaust(String reason) {
+        exhausted.compareAndSet(null, reason);
+        return false;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Contexte d'une analyse : l'instantané du repository + la mémoïsation de chaque lecture
+ * (y compris les fichiers absents) le temps de l'analyse. Un même pom.xml / package.json
+ * lu par plusieurs détecteurs n'est chargé qu'une fois, même depuis des tâches parallèles.
+ * Les chargements sont décomptés du budget de l'analyse : une fois épuisé, les fichiers
+ * non encore chargés sont traités comme absents.
+ */
+public class AnalysisContext {
+
+    private final RepoSnapshot snapshot;
+    private final AnalysisBudget budget;
+    private final Map<String, CompletableFuture<Optional<String>>> reads = new ConcurrentHashMap<>();
+    private final Map<String, Optional<Object>> derived = new ConcurrentHashMap<>();
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong notFound = new AtomicLong();
+    private final AtomicLong denied = new AtomicLong();
+
+    public AnalysisContext(RepoSnapshot snapshot) {
+        this(snapshot, new AnalysisBudget(0, 0, 0));
+    }
+
+    public AnalysisContext(RepoSnapshot snapshot, AnalysisBudget budget) {
+        this.snapshot = snapshot;
+        this.budget = budget;
+    }
+
+    public RepoSnapshot getSnapshot() { return snapshot; }
+
+    public AnalysisBudget getBudget() { return budget; }
+
+    public List<RepoSnapshot.Entry> list(String dir) { return snapshot.list(dir); }
+
+    public boolean isFile(String path) { return snapshot.isFile(path); }
+
+    public boolean exists(String path) { return snapshot.exists(path); }
+
+    public List<String> filePaths() { return snapshot.filePaths(); }
+
+    public RepoPathIndex paths() { return snapshot.paths(); }
+
+    public List<Map<String, Object>> listAsContents(String dir) { return snapshot.listAsContents(dir); }
+
+    /**
+     * Contenu du fichier, ou null s'il est absent de l'arbre (ou si le budget ne permet plus de le charger).
+     * Chaque chemin n'est chargé qu'une fois. Seul le thread qui charge réellement un fichier présent
+     * dans l'arbre est décompté du budget : un fichier absent ne coûte aucun appel, donc aucun chargement.
+     */
+    public String read(String path) {
+        requested.incrementAndGet();
+        String key = RepoSnapshot.normalize(path);
+        CompletableFuture<Optional<String>> existing = reads.get(key);
+        if (existing != null) return await(existing);
+
+        CompletableFuture<Optional<String>> pending = new CompletableFuture<>();
+        existing = reads.putIfAbsent(key, pending);
+        if (existing != null) return await(existing);
+
+        if (!snapshot.isFile(key)) {
+            notFound.incrementAndGet();
+            pending.complete(Optional.empty());
+            return null;
+        }
+        if (!budget.load()) {
+            // refusé : pas mémorisé (les lectures en attente le voient absent)
+            denied.incrementAndGet();
+            reads.remove(key, pending);
+            pending.complete(Optional.empty());
+            return null;
+        }
+
+        try {
+            loaded.incrementAndGet();
+            String content = snapshot.read(key);
+            if (content == null) notFound.incrementAndGet();
+            pending.complete(Optional.ofNullable(content));
+            return content;
+        } catch (RuntimeException e) {
+            // échec (réseau...) : pas mémorisé, un détecteur suivant pourra réessayer
+            reads.remove(key, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Règles {@code rules} évaluées sur le fichier, ou null s'il est absent de l'arbre.
+     * Chaque couple (fichier, jeu de règles) n'est parcouru qu'une fois, quel que soit le nombre de détecteurs.
+     */
+    public DetectionRules.Matches evaluate(String path, DetectionRules.RuleSet rules) {
+        return derive(path, "rules:" + rules.getName(), rules::evaluate);
+    }
+
+    /**
+     * Valeur calculée une fois par analyse à partir du contenu du fichier (modèle de pom, règles...),
+     * identifiée par {@code kind}. Null si le fichier est absent ou si {@code parser} renvoie null.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T derive(String path, String kind, Function<String, T> parser) {
+        String content = read(path);
+        if (content == null) return null;
+        String key = kind + ":" + RepoSnapshot.normalize(path);
+        return (T) derived.computeIfAbsent(key, k -> Optional.ofNullable(parser.apply(content))).orElse(null);
+    }
+
+    /** Lectures évitées : mémoïsation, et fichiers absents de l'arbre (aucun appel). */
+    public long getSavedReads() {
+        return requested.get() - loaded.get() - denied.get();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("reads", requested.get());
+        out.put("loaded", loaded.get());
+        out.put("notFound", notFound.get());
+        out.put("saved", getSavedReads());
+        out.put("denied", denied.get());
+        return out;
+    }
+
+    private static String await(CompletableFuture<Optional<String>> future) {
+        try {
+            return future.join().orElse(null);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Limites de la détection des services :
+ *  - dossiers jamais parcourus (dépendances installées, sorties de build, fixtures de tests...)
+ *  - profondeur maximale de l'arbre parcouru
+ *  - budget par analyse ({@link AnalysisBudget}) : entrées visitées, fichiers chargés, durée
+ */
+@Component
+public class AnalysisLimits {
+
+    public static final List<String> DEFAULT_PRUNED_DIRS = List.of(
+            "node_modules", "bower_components", "vendor", "target", "build", "dist", "out",
+            ".git", ".gradle", ".idea", ".next", ".nuxt", "coverage", "__pycache__",
+            "fixtures", "__fixtures__", "test-fixtures", "testdata");
+
+    private final Set<String> prunedDirs;
+    private final int maxDepth;
+    private final int maxFiles;
+    private final int maxLoads;
+    private final long maxMillis;
+    private final String fingerprint;
+
+    public AnalysisLimits(@Value("${analysis.pruned-dirs:}") List<String> prunedDirs,
+                          @Value("${analysis.max-depth:10}") int maxDepth,
+                          @Value("${analysis.budget.max-files:50000}") int maxFiles,
+                          @Value("${analysis.budget.max-loads:1000}") int maxLoads,
+                          @Value("${analysis.budget.max-millis:60000}") long maxMillis) {
+        Set<String> dirs = prunedDirs == null ? Set.of()
+                : prunedDirs.stream().map(String::trim).filter(d -> !d.isEmpty()).collect(Collectors.toUnmodifiableSet());
+        this.prunedDirs = dirs.isEmpty() ? Set.copyOf(DEFAULT_PRUNED_DIRS) : dirs;
+        this.maxDepth = maxDepth;
+        this.maxFiles = maxFiles;
+        this.maxLoads = maxLoads;
+        this.maxMillis = maxMillis;
+        this.fingerprint = fingerprint(String.join(",", this.prunedDirs.stream().sorted().toList())
+                + "|" + maxDepth + "|" + maxFiles + "|" + maxLoads + "|" + maxMillis);
+    }
+
+    /** Limites par défaut (hors contexte Spring). */
+    public static AnalysisLimits defaults() {
+        return new AnalysisLimits(List.of(), 10, 50_000, 1_000, 60_000);
+    }
+
+    /** Nouveau budget, démarré maintenant, pour une analyse. */
+    public AnalysisBudget newBudget() {
+        return new AnalysisBudget(maxFiles, maxLoads, maxMillis);
+    }
+
+    /** Le dossier {@code dirName} (nom seul, pas un chemin) ne doit pas être parcouru. */
+    public boolean isPruned(String dirName) {
+        return prunedDirs.contains(dirName);
+    }
+
+    /** Le dossier (chemin relatif, "" = racine) est-il trop profond pour être parcouru ? */
+    public boolean isTooDeep(String dir) {
+        return maxDepth > 0 && depth(dir) > maxDepth;
+    }
+
+    /** Un fichier est hors parcours si l'un de ses dossiers est exclu ou trop profond. */
+    public boolean isExcluded(String filePath) {
+        String dir = RepoSnapshot.parentOf(RepoSnapshot.normalize(filePath));
+        if (isTooDeep(dir)) return true;
+        if (dir.isEmpty()) return false;
+        for (String segment : dir.split("/")) {
+            if (isPruned(segment)) return true;
+        }
+        return false;
+    }
+
+    public int getMaxDepth() { return maxDepth; }
+
+    /**
+     * Empreinte courte des limites effectives : deux configurations qui peuvent donner des résultats
+     * différents (dossiers exclus, profondeur, budget) ont des empreintes différentes.
+     */
+    public String getFingerprint() { return fingerprint; }
+
+    private static String fingerprint(String settings) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(settings.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int depth(String dir) {
+        String d = RepoSnapshot.normalize(dir);
+        if (d.isEmpty()) return 0;
+        int n = 1;
+        for (int i = 0; i < d.length(); i++) {
+            if (d.charAt(i) == '/') n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Repository lu depuis une archive tar (.tar, .tar.gz / .tgz) ou zip, entrée par entrée :
+ * rien n'est écrit sur disque, seuls les contenus des fichiers retenus (filtre de chemin,
+ * taille maximale) sont gardés en mémoire. Le dossier racine unique des archives GitHub
+ * ("owner-repo-sha/") est retiré des chemins.
+ */
+public class ArchiveRepositorySource implements RepositorySource {
+
+    /** Taille maximale d'un contenu conservé ; au-delà, le fichier figure dans l'arbre sans contenu. */
+    public static final int DEFAULT_MAX_FILE_BYTES = 1 << 20;
+    /** Archive envoyée : nombre maximal d'entrées (fichiers et dossiers). */
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    /** Archive envoyée : total maximal des contenus conservés en mémoire. */
+    public static final long DEFAULT_MAX_RETAINED_BYTES = 64L << 20;
+
+    private final String name;
+    private final List<RepoSnapshot.Entry> entries;
+    private final Map<String, byte[]> contents;
+
+    private ArchiveRepositorySource(String name, List<RepoSnapshot.Entry> entries, Map<String, byte[]> contents) {
+        this.name = name;
+        this.entries = entries;
+        this.contents = contents;
+    }
+
+    public static ArchiveRepositorySource read(String fileName, InputStream in) throws IOException {
+        return read(fileName, in, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_RETAINED_BYTES);
+    }
+
+    /**
+     * Archive envoyée par un client : format choisi d'après l'extension du nom de fichier.
+     * Seuls les contenus des fichiers lus par la détection ({@link DetectorInputs}) sont conservés ;
+     * une archive de plus de {@code maxEntries} entrées, ou dont ces contenus dépassent
+     * {@code maxRetainedBytes} au total, est refusée (IllegalArgumentException).
+     */
+    public static ArchiveRepositorySource read(String fileName, InputStream in, int maxEntries, long maxRetainedBytes) throws IOException {
+        String lower = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        Collector collector = new Collector(DetectorInputs::isRelevant, DEFAULT_MAX_FILE_BYTES, maxEntries, maxRetainedBytes);
+        if (lower.endsWith(".zip")) return readZip(fileName, in, collector);
+        if (lower.endsWith(".tar")) return readTar(fileName, in, false, collector);
+        if (lower.endsWith(".tar.gz") || lower.endsWith(".tgz")) return readTar(fileName, in, true, collector);
+        throw new IllegalArgumentException("Unsupported archive format (expected .zip, .tar, .tar.gz or .tgz): " + fileName);
+    }
+
+    /**
+     * @param keep             chemins (relatifs à la racine du repository) dont le contenu est conservé
+     * @param maxFileBytes     taille maximale d'un contenu conservé
+     * @param maxEntries       nombre maximal d'entrées (0 = pas de limite)
+     * @param maxRetainedBytes total maximal des contenus conservés (0 = pas de limite)
+     */
+    public static ArchiveRepositorySource tar(String name, InputStream in, boolean gzip, Predicate<String> keep,
+                                              int maxFileBytes, int maxEntries, long maxRetainedBytes) throws IOException {
+        return readTar(name, in, gzip, new Collector(keep, maxFileBytes, maxEntries, maxRetainedBytes));
+    }
+
+    public static ArchiveRepositorySource zip(String name, InputStream in,
+                                              Predicate<String> keep, int maxFileBytes) throws IOException {
+        return readZip(name, in, new Collector(keep, maxFileBytes, 0, 0));
+    }
+
+    private static ArchiveRepositorySource readTar(String name, InputStream in, boolean gzip, Collector collector) throws IOException {
+        TarStream tar = new TarStream(gzip ? new GZIPInputStream(in, 64 * 1024) : in);
+        while (tar.next()) {
+            if (tar.isDirectory()) collector.directory(tar.getName());
+            else if (tar.isRegularFile()) collector.file(tar.getName(), tar.getSize(), tar::readContent);
+        }
+        return collector.build(name);
+    }
+
+    private static ArchiveRepositorySource readZip(String name, InputStream in, Collector collector) throws IOException {
+        ZipInputStream zip = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (entry.isDirectory()) {
+                collector.directory(entry.getName());
+            } else {
+                long size = entry.getSize();
+                collector.file(entry.getName(), size, max -> readAtMost(zip, max));
+            }
+        }
+        return collector.build(name);
+    }
+
+    @Override
+    public RepoSnapshot snapshot() {
+        return new RepoSnapshot("archive", entries, entry -> {
+            byte[] content = contents.get(entry.getPath());
+            return content == null ? null : new String(content, StandardCharsets.UTF_8);
+        });
+    }
+
+    @Override
+    public String describe() {
+        return name;
+    }
+
+    /** Nombre de fichiers dont le contenu est conservé en mémoire. */
+    public int getRetainedFiles() {
+        return contents.size();
+    }
+
+    /** Contenu d'une entrée zip (taille souvent inconnue d'avance), ou null s'il dépasse {@code max}. */
+    private static byte[] readAtMost(InputStream in, int max) throws IOException {
+        byte[] out = in.readNBytes(max + 1);
+        return out.length > max ? null : out;
+    }
+
+    @FunctionalInterface
+    private interface ContentReader {
+        byte[] read(int max) throws IOException;
+    }
+
+    /**
+     * Entrées relevées au fil de l'archive, chemins bruts (racine GitHub pas encore retirée).
+     * Limites à 0 = pas de limite.
+     */
+    private static final class Collector {
+        private final Predicate<String> keep;
+        private final int maxFileBytes;
+        private final int maxEntries;
+        private final long maxRetainedBytes;
+        private final List<RepoSnapshot.Entry> raw = new ArrayList<>();
+        private final Map<String, byte[]> rawContents = new HashMap<>();
+        private long retainedBytes;
+
+        private Collector(Predicate<String> keep, int maxFileBytes, int maxEntries, long maxRetainedBytes) {
+            this.keep = keep;
+            this.maxFileBytes = maxFileBytes;
+            this.maxEntries = maxEntries;
+            this.maxRetainedBytes = maxRetainedBytes;
+        }
+
+        void directory(String path) {
+            String p = clean(path);
+            if (p == null) return;
+            checkEntries();
+            raw.add(new RepoSnapshot.Entry(p, RepoSnapshot.TYPE_DIR, null, 0));
+        }
+
+        void file(String path, long size, ContentReader reader) throws IOException {
+            String p = clean(path);
+            if (p == null) return;
+            checkEntries();
+            byte[] content = null;
+            // la racine commune n'est connue qu'en fin d'archive : le filtre est essayé avec et sans le premier segment
+            if (keep.test(p) || keep.test(p.substring(p.indexOf('/') + 1))) {
+                content = size > maxFileBytes ? null : reader.read(maxFileBytes);
+                if (content != null) {
+                    retainedBytes += content.length;
+                    if (maxRetainedBytes > 0 && retainedBytes > maxRetainedBytes) {
+                        throw new IllegalArgumentException("Archive files to analyze exceed " + maxRetainedBytes + " bytes");
+                    }
+                    rawContents.put(p, content);
+                }
+            }
+            raw.add(new RepoSnapshot.Entry(p, RepoSnapshot.TYPE_FILE, null, content != null ? content.length : Math.max(0, size)));
+        }
+
+        private void checkEntries() {
+            if (maxEntries > 0 && raw.size() >= maxEntries) {
+                throw new IllegalArgumentException("Archive has more than " + maxEntries + " entries");
+            }
+        }
+
+        ArchiveRepositorySource build(String name) {
+            String root = commonRoot();
+            List<RepoSnapshot.Entry> entries = new ArrayList<>(raw.size());
+            Map<String, byte[]> contents = new HashMap<>();
+            for (RepoSnapshot.Entry e : raw) {
+                String path = root == null ? e.getPath() : e.getPath().substring(Math.min(e.getPath().length(), root.length() + 1));
+                if (path.isEmpty()) continue;
+                byte[] content = rawContents.get(e.getPath());
+                if (content != null) contents.put(path, content);
+                String sha = content != null ? GitBlobSha.of(content) : null;
+                entries.add(new RepoSnapshot.Entry(path, e.getType(), sha, e.getSize()));
+            }
+            return new ArchiveRepositorySource(name, entries, contents);
+        }
+
+        /** Dossier de premier niveau commun à toutes les entrées (archives GitHub), ou null. */
+        private String commonRoot() {
+            String root = null;
+            for (RepoSnapshot.Entry e : raw) {
+                int slash = e.getPath().indexOf('/');
+                if (slash < 0 && !e.isDirectory()) return null;
+                String first = slash < 0 ? e.getPath() : e.getPath().substring(0, slash);
+                if (root == null) root = first;
+                else if (!root.equals(first)) return null;
+            }
+            return root;
+        }
+
+        /** Chemin normalisé, ou null s'il sort de l'archive ("..", chemin absolu) ou désigne les métadonnées git. */
+        private static String clean(String path) {
+            String p = RepoSnapshot.normalize(path.replace('\\', '/'));
+            if (p.isEmpty() || path.startsWith("/")) return null;
+            for (String segment : p.split("/")) {
+                if ("..".equals(segment) || ".git".equals(segment)) return null;
+            }
+            return p;
+        }
+    }
+}
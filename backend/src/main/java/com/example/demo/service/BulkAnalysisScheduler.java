@@ -0,0 +1,204 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ordonnancement des analyses en masse sur un pool borné (analysis.bulk.workers), équitable entre utilisateurs :
+ *  - une file par utilisateur ; le prochain job est pris dans la file dont le « passage » est le plus petit,
+ *    qui avance de 1 à chaque job lancé (stride scheduling) : les utilisateurs alternent,
+ *    quel que soit le nombre de repos que chacun a soumis
+ *  - une file qui (re)devient active repart du temps virtuel courant, sans crédit accumulé
+ *  - au plus analysis.bulk.per-user jobs en cours par utilisateur et analysis.bulk.per-token par token
+ * Un job annulé avant son lancement (client déconnecté) quitte aussitôt sa file et libère sa place
+ * dans analysis.bulk.max-queued. À l'arrêt, les jobs encore en file échouent au lieu de rester en attente.
+ */
+@Component
+public class BulkAnalysisScheduler {
+
+    private final int workers;
+    private final int perUser;
+    private final int perToken;
+    private final int maxQueued;
+    private final ExecutorService pool;
+
+    private final Object lock = new Object();
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private final Map<String, Integer> runningByToken = new HashMap<>();
+    private double virtualTime;
+    private int running;
+    private int queued;
+
+    public BulkAnalysisScheduler(@Value("${analysis.bulk.workers:4}") int workers,
+                                 @Value("${analysis.bulk.per-user:2}") int perUser,
+                                 @Value("${analysis.bulk.per-token:2}") int perToken,
+                                 @Value("${analysis.bulk.max-queued:1000}") int maxQueued) {
+        this.workers = Math.max(1, workers);
+        this.perUser = Math.max(1, perUser);
+        this.perToken = Math.max(1, perToken);
+        this.maxQueued = Math.max(1, maxQueued);
+        this.pool = Executors.newFixedThreadPool(this.workers, daemonThreads());
+    }
+
+    /**
+     * Met {@code task} en file pour l'utilisateur {@code user}.
+     * Le future se termine avec le résultat de la tâche ; l'annuler retire le job s'il n'a pas démarré.
+     * @throws IllegalStateException si la file globale est pleine ou si l'ordonnanceur est arrêté
+     */
+    public <T> CompletableFuture<T> submit(String user, String token, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Job<T> job = new Job<>(GitHubTokens.fingerprint(token), task, future);
+        synchronized (lock) {
+            if (pool.isShutdown()) throw new IllegalStateException("Bulk analysis scheduler is shut down");
+            if (queued >= maxQueued) throw new IllegalStateException("Bulk analysis queue is full (" + maxQueued + " jobs)");
+            Lane lane = lanes.computeIfAbsent(user, k -> new Lane(k, virtualTime));
+            if (lane.jobs.isEmpty()) lane.pass = Math.max(lane.pass, virtualTime);
+            lane.jobs.add(job);
+            queued++;
+            dispatch();
+        }
+        future.whenComplete((result, error) -> dequeueCancelled(job));
+        return future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Job<?>> pending = new ArrayList<>();
+        synchronized (lock) {
+            pool.shutdownNow();
+            for (Lane lane : lanes.values()) {
+                for (Job<?> job : lane.jobs) {
+                    job.dequeued = true;
+                    pending.add(job);
+                }
+                lane.jobs.clear();
+            }
+            lanes.values().removeIf(lane -> lane.running == 0);
+            queued = 0;
+        }
+        for (Job<?> job : pending) job.future.completeExceptionally(new IllegalStateException("Bulk analysis scheduler is shut down"));
+    }
+
+    /** Un job terminé alors qu'il est encore en file (annulé) la quitte tout de suite et libère sa place. */
+    private void dequeueCancelled(Job<?> job) {
+        synchronized (lock) {
+            if (job.dequeued) return;
+            job.dequeued = true;
+            queued--;
+            for (Lane lane : lanes.values()) {
+                if (!lane.jobs.remove(job)) continue;
+                if (lane.jobs.isEmpty() && lane.running == 0) lanes.remove(lane.user, lane);
+                break;
+            }
+            dispatch(); // la tête de file a pu changer
+        }
+    }
+
+    /** Lance les jobs éligibles tant qu'il reste des workers libres. Appelé sous {@code lock}. */
+    private void dispatch() {
+        while (running < workers && !pool.isShutdown()) {
+            Lane lane = nextLane();
+            if (lane == null) return;
+            Job<?> job = lane.jobs.poll();
+            job.dequeued = true;
+            queued--;
+
+            virtualTime = lane.pass;
+            lane.pass += 1.0;
+            lane.running++;
+            runningByToken.merge(job.tokenKey, 1, Integer::sum);
+            running++;
+            try {
+                pool.execute(() -> run(lane, job));
+            } catch (RejectedExecutionException e) { // arrêt en cours
+                release(lane, job);
+                job.future.completeExceptionally(new IllegalStateException("Bulk analysis scheduler is shut down", e));
+                return;
+            }
+        }
+    }
+
+    /** File non vide, sous ses limites de concurrence, de plus petit passage (à égalité, la plus ancienne). */
+    private Lane nextLane() {
+        Lane best = null;
+        for (Lane lane : lanes.values()) {
+            Job<?> head = lane.jobs.peek();
+            if (head == null || lane.running >= perUser) continue;
+            if (runningByToken.getOrDefault(head.tokenKey, 0) >= perToken) continue;
+            if (best == null || lane.pass < best.pass || (lane.pass == best.pass && lane.seq < best.seq)) best = lane;
+        }
+        return best;
+    }
+
+    private <T> void run(Lane lane, Job<T> job) {
+        try {
+            if (!job.future.isDone()) job.future.complete(job.task.call());
+        } catch (Throwable e) {
+            job.future.completeExceptionally(e);
+        } finally {
+            synchronized (lock) {
+                release(lane, job);
+                dispatch();
+            }
+        }
+    }
+
+    /** Rend les places prises au lancement de {@code job}. Appelé sous {@code lock}. */
+    private void release(Lane lane, Job<?> job) {
+        lane.running--;
+        runningByToken.computeIfPresent(job.tokenKey, (k, n) -> n > 1 ? n - 1 : null);
+        running--;
+        if (lane.jobs.isEmpty() && lane.running == 0) lanes.remove(lane.user, lane);
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread t = new Thread(runnable, "bulk-analysis-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static final AtomicInteger LANE_SEQ = new AtomicInteger();
+
+    private static final class Lane {
+        private final String user;
+        private final int seq = LANE_SEQ.incrementAndGet();
+        private final ArrayDeque<Job<?>> jobs = new ArrayDeque<>();
+        private double pass;
+        private int running;
+
+        private Lane(String user, double pass) {
+            this.user = user;
+            this.pass = pass;
+        }
+    }
+
+    private static final class Job<T> {
+        private final String tokenKey;
+        private final Callable<T> task;
+        private final CompletableFuture<T> future;
+        private boolean dequeued; // sous lock : sorti de sa file (lancé, annulé ou arrêt)
+
+        private Job(String tokenKey, Callable<T> task, CompletableFuture<T> future) {
+            this.tokenKey = tokenKey;
+            this.task = task;
+            this.future = future;
+        }
+    }
+}
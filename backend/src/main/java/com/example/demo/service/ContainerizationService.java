@@ -22,6 +22,12 @@ public class ContainerizationService {
   /** Calcule le plan Docker (SINGLE) — Dockerfile existant ? à générer ? où builder ? */
   public ContainerPlan plan(String repoUrl, String token, String repoFullName,
                             StackAnalysis analysis, String imageNameOverride, String registry) {
+    return plan(gitHub.getRepositorySnapshot(repoUrl, token, null), repoFullName, analysis, imageNameOverride, registry);
+  }
+
+  /** Variante sur un instantané déjà chargé (un seul appel git/trees pour plusieurs plans). */
+  public ContainerPlan plan(RepoSnapshot snapshot, String repoFullName,
+                            StackAnalysis analysis, String imageNameOverride, String registry) {
     ContainerPlan plan = new ContainerPlan();
 
     plan.setRegistry(isBlank(registry) ? "ghcr.io" : registry);
@@ -44,17 +50,14 @@ public class ContainerizationService {
     }
 
     // === 1) Détection Dockerfile dans le WD
-    var files = gitHub.getRepositoryContents(repoUrl, token, ".".equals(wd) ? null : wd);
-    if (files == null) files = List.of();
-
-    boolean hasDockerfile = files.stream().anyMatch(f -> "Dockerfile".equals(String.valueOf(f.get("name"))));
-    plan.setHasDockerfile(hasDockerfile);
     plan.setDockerfilePath(".".equals(wd) ? "Dockerfile" : wd + "/Dockerfile");
+    boolean hasDockerfile = snapshot.isFile(plan.getDockerfilePath());
+    plan.setHasDockerfile(hasDockerfile);
 
     // === 2) Générer si absent ou incohérent (Maven/Gradle croisés)
     if (hasDockerfile) {
       try {
-        String existing = gitHub.getFileContent(repoUrl, token, plan.getDockerfilePath());
+        String existing = snapshot.read(plan.getDockerfilePath());
         plan.setExistingDockerfileContent(existing);
 
         // Preview = existant
@@ -94,6 +97,15 @@ public class ContainerizationService {
                                               String repoFullName,
                                               List<Map<String, Object>> services,
                                               String registry) {
+    if (services == null) return new ArrayList<>();
+    return planMulti(gitHub.getRepositorySnapshot(repoUrl, token, null), repoFullName, services, registry);
+  }
+
+  /** Variante MULTI sur un instantané déjà chargé. */
+  public List<ServiceContainerPlan> planMulti(RepoSnapshot snapshot,
+                                              String repoFullName,
+                                              List<Map<String, Object>> services,
+                                              String registry) {
     List<ServiceContainerPlan> out = new ArrayList<>();
     if (services == null) return out;
 
@@ -125,7 +137,7 @@ public class ContainerizationService {
       String imageNameOverride = baseImg + "-" + id;
 
       // réutilise la logique single
-      ContainerPlan base = plan(repoUrl, token, repoFullName, a, imageNameOverride, reg);
+      ContainerPlan base = plan(snapshot, repoFullName, a, imageNameOverride, reg);
 
       // Wrap vers un plan “multi” simplifié pour le contrôleur
       ServiceContainerPlan scp = ServiceContainerPlan.from(id, base);
@@ -213,4 +225,4 @@ public class ContainerizationService {
     public String getImageName() { return imageName; }
     public void setImageName(String imageName) { this.imageName = imageName; }
   }
-}
\ No newline at end of file
+}
\ No newline at end of file
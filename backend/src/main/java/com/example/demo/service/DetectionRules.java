@@ -0,0 +1,247 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Règles de détection déclaratives, regroupées par fichier (pom.xml, build.gradle, package.json...).
+ * Chaque jeu est compilé une fois au chargement de la classe :
+ *  - marqueurs littéraux : un automate d'Aho-Corasick, tous trouvés en un seul parcours du fichier
+ *  - captures (version Java, port, nom de base...) : regex précompilées, essayées dans l'ordre
+ *    de déclaration et gardées par un marqueur littéral (la regex ne tourne que si le marqueur est présent)
+ * Ajouter une règle ajoute un marqueur à l'automate, pas un nouveau parcours du texte.
+ */
+public final class DetectionRules {
+
+    private static final List<String> DATABASE_MARKERS = List.of(
+            "spring-boot-starter-data-mongodb", "mysql-connector-java", "mysql", "postgresql", "postgres",
+            "h2database", "com.h2database", "oracle", "ojdbc", "sqlserver", "mssql", "spring-boot-starter-data-jpa");
+
+    private static final List<String> SPRING_STARTERS = List.of(
+            "spring-boot-starter-web", "spring-boot-starter-data-jpa", "spring-boot-starter-security",
+            "spring-boot-starter-test", "spring-boot-starter-data-mongodb");
+
+    public static final RuleSet POM = RuleSet.builder("pom.xml")
+            .markers("<groupId>org.springframework.boot</groupId>", "spring-boot-starter")
+            .markers(DATABASE_MARKERS)
+            .markers(SPRING_STARTERS)
+            .capture("javaVersion", "<java.version>", "<java\\.version>(\\d+)</java\\.version>")
+            .capture("javaVersion", "<maven.compiler.source>", "<maven\\.compiler\\.source>(\\d+)</maven\\.compiler\\.source>")
+            .capture("javaVersion", "<maven.compiler.target>", "<maven\\.compiler\\.target>(\\d+)</maven\\.compiler\\.target>")
+            .capture("springBootVersion", "<parent>",
+                    "<parent>.*?<groupId>org\\.springframework\\.boot</groupId>.*?<version>([0-9.]+)</version>.*?</parent>", Pattern.DOTALL)
+            .capture("springBootVersion", "<spring-boot.version>", "<spring-boot\\.version>([0-9.]+)</spring-boot\\.version>")
+            .capture("packaging", "<packaging>", "<packaging>([^<]+)</packaging>")
+            .build();
+
+    /** Évalué sur les coordonnées des dépendances relevées par {@link GradleScript}, pas sur le script brut. */
+    public static final RuleSet GRADLE = RuleSet.builder("build.gradle")
+            .markers(DATABASE_MARKERS)
+            .markers(SPRING_STARTERS)
+            .build();
+
+    public static final RuleSet PACKAGE_JSON = RuleSet.builder("package.json")
+            .markers("\"react\"", "\"react-dom\"", "\"react-scripts\"", "\"vite\"", "\"vue\"", "\"angular\"", "\"@angular/core\"",
+                    "\"svelte\"", "\"next\"", "\"nuxt\"", "\"typescript\"", "\"webpack\"")
+            .markers("\"express\"", "\"koa\"", "\"fastify\"", "\"nestjs\"", "\"@nestjs/core\"", "\"hapi\"", "\"socket.io\"")
+            .markers("\"build\"", "\"test\"", "\"start\"", "\"dev\"", "\"serve\"", "\"lint\"")
+            .markersIgnoringCase("\"react-native\"", "\"expo\"", "\"@capacitor/", "\"cordova\"", "\"@ionic/", "\"nativescript\"")
+            .capture("nodeEngine", "\"engines\"", "\"engines\"\\s*:\\s*\\{[^}]*\"node\"\\s*:\\s*\"([^\"]+)\"")
+            .capture("port", "PORT", "PORT[=:]\\s*(\\d+)")
+            .build();
+
+    public static final RuleSet APPLICATION_PROPERTIES = RuleSet.builder("application.properties")
+            .capture("serverPort", "server.port", "server\\.port\\s*=\\s*(\\d+)")
+            .capture("databaseName", "spring.datasource.url=", "spring\\.datasource\\.url=.*[:/]([\\w-]+)(?:\\?|$)")
+            .capture("databaseName", "spring.data.mongodb.database=", "spring\\.data\\.mongodb\\.database=([\\w-]+)")
+            .capture("databaseName", "spring.datasource.url=", "spring\\.datasource\\.url=.*/(\\w+)")
+            .build();
+
+    public static final RuleSet APPLICATION_YML = RuleSet.builder("application.yml")
+            .capture("serverPort", "port:", "port:\\s*(\\d+)")
+            .capture("databaseName", "url:", "url:.*[:/]([\\w-]+)(?:\\?|$)")
+            .capture("databaseName", "database:", "database:\\s*([\\w-]+)")
+            .build();
+
+    private DetectionRules() {}
+
+    /** Jeu de règles compilé pour un type de fichier. */
+    public static final class RuleSet {
+
+        private final String name;
+        private final Map<String, Integer> markerIds;
+        private final MarkerAutomaton caseSensitive;
+        private final MarkerAutomaton caseInsensitive;
+        private final Map<String, List<Capture>> captures;
+
+        private RuleSet(Builder b) {
+            this.name = b.name;
+            this.markerIds = Map.copyOf(b.markerIds);
+            this.caseSensitive = compile(b.markerIds, b.ignoreCase, false);
+            this.caseInsensitive = compile(b.markerIds, b.ignoreCase, true);
+            Map<String, List<Capture>> c = new LinkedHashMap<>();
+            b.captures.forEach((k, v) -> c.put(k, List.copyOf(v)));
+            this.captures = c;
+        }
+
+        public static Builder builder(String name) {
+            return new Builder(name);
+        }
+
+        public String getName() { return name; }
+
+        /** Un seul parcours du texte, quel que soit le nombre de marqueurs (sensibles ou non à la casse). */
+        public Matches evaluate(String text) {
+            BitSet found = new BitSet(markerIds.size());
+            if (text != null && !markerIds.isEmpty()) {
+                int s = caseSensitive == null ? 0 : caseSensitive.start();
+                int si = caseInsensitive == null ? 0 : caseInsensitive.start();
+                for (int i = 0, n = text.length(); i < n; i++) {
+                    char c = text.charAt(i);
+                    if (caseSensitive != null) {
+                        s = caseSensitive.step(s, c);
+                        for (int id : caseSensitive.matchesAt(s)) found.set(id);
+                    }
+                    if (caseInsensitive != null) {
+                        si = caseInsensitive.step(si, c);
+                        for (int id : caseInsensitive.matchesAt(si)) found.set(id);
+                    }
+                }
+            }
+            return new Matches(this, text, found);
+        }
+
+        private int idOf(String marker) {
+            Integer id = markerIds.get(marker);
+            if (id == null) throw new IllegalArgumentException("Marker not declared in " + name + " rules: " + marker);
+            return id;
+        }
+
+        private static MarkerAutomaton compile(Map<String, Integer> ids, Map<String, Boolean> ignoreCase, boolean insensitive) {
+            List<String> markers = new ArrayList<>();
+            List<Integer> markerIds = new ArrayList<>();
+            ids.forEach((marker, id) -> {
+                if (ignoreCase.get(marker) == insensitive) {
+                    markers.add(marker);
+                    markerIds.add(id);
+                }
+            });
+            if (markers.isEmpty()) return null;
+            return new MarkerAutomaton(markers, markerIds.stream().mapToInt(Integer::intValue).toArray(), insensitive);
+        }
+    }
+
+    public static final class Builder {
+
+        private final String name;
+        private final Map<String, Integer> markerIds = new LinkedHashMap<>();
+        private final Map<String, Boolean> ignoreCase = new HashMap<>();
+        private final Map<String, List<Capture>> captures = new LinkedHashMap<>();
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder markers(String... markers) {
+            return markers(List.of(markers));
+        }
+
+        public Builder markers(List<String> markers) {
+            for (String m : markers) declare(m, false);
+            return this;
+        }
+
+        /** Marqueurs cherchés sans tenir compte de la casse. */
+        public Builder markersIgnoringCase(String... markers) {
+            for (String m : markers) declare(m, true);
+            return this;
+        }
+
+        /**
+         * Ajoute une alternative à la capture {@code name} : les alternatives sont essayées dans l'ordre
+         * de déclaration, la première qui trouve gagne (groupe 1). {@code guard} est un littéral que tout
+         * texte accepté par la regex contient ; il rejoint l'automate des marqueurs.
+         */
+        public Builder capture(String name, String guard, String regex) {
+            return capture(name, guard, regex, 0);
+        }
+
+        public Builder capture(String name, String guard, String regex, int flags) {
+            declare(guard, false);
+            captures.computeIfAbsent(name, k -> new ArrayList<>()).add(new Capture(guard, Pattern.compile(regex, flags)));
+            return this;
+        }
+
+        public RuleSet build() {
+            return new RuleSet(this);
+        }
+
+        private void declare(String marker, boolean insensitive) {
+            Boolean previous = ignoreCase.putIfAbsent(marker, insensitive);
+            if (previous != null && previous != insensitive) {
+                throw new IllegalArgumentException("Marker declared with and without case sensitivity: " + marker);
+            }
+            markerIds.putIfAbsent(marker, markerIds.size());
+        }
+    }
+
+    /** Résultat d'un parcours : marqueurs présents, captures calculées à la demande puis mémorisées. */
+    public static final class Matches {
+
+        private final RuleSet rules;
+        private final String text;
+        private final BitSet found;
+        private final Map<String, Optional<String>> captured = new ConcurrentHashMap<>();
+
+        private Matches(RuleSet rules, String text, BitSet found) {
+            this.rules = rules;
+            this.text = text;
+            this.found = found;
+        }
+
+        /** Le marqueur (qui doit être déclaré dans le jeu de règles) est-il présent ? */
+        public boolean has(String marker) {
+            return found.get(rules.idOf(marker));
+        }
+
+        public boolean hasAny(String... markers) {
+            for (String m : markers) {
+                if (has(m)) return true;
+            }
+            return false;
+        }
+
+        /** Groupe 1 de la première alternative qui trouve, ou null (y compris si aucune règle de ce nom). */
+        public String capture(String name) {
+            return captured.computeIfAbsent(name, this::runCapture).orElse(null);
+        }
+
+        private Optional<String> runCapture(String name) {
+            if (text == null) return Optional.empty();
+            for (Capture c : rules.captures.getOrDefault(name, List.of())) {
+                if (!has(c.guard)) continue;
+                Matcher m = c.pattern.matcher(text);
+                if (m.find()) return Optional.of(m.group(1));
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static final class Capture {
+        private final String guard;
+        private final Pattern pattern;
+
+        private Capture(String guard, Pattern pattern) {
+            this.guard = guard;
+            this.pattern = pattern;
+        }
+    }
+}
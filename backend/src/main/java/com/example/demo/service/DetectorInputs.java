@@ -0,0 +1,32 @@
+package com.example.demo.service;
+
+import java.util.Set;
+
+/**
+ * Fichiers dont le contenu peut être lu par la détection de stack, la génération Docker et compose :
+ * fichiers de build, settings Gradle, package.json, application.*, versions Node, Dockerfile et compose.
+ * Tout autre fichier n'est utilisé que par sa présence dans l'arbre.
+ */
+public final class DetectorInputs {
+
+    private static final Set<String> FILE_NAMES = Set.of(
+            "pom.xml", "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts",
+            "package.json", ".nvmrc", ".node-version", "AndroidManifest.xml", "compose.yml", "compose.yaml");
+
+    private DetectorInputs() {}
+
+    /** Le contenu de ce fichier (chemin relatif à la racine) peut-il être lu par un détecteur ? */
+    public static boolean isRelevant(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        if (FILE_NAMES.contains(name) || name.startsWith("Dockerfile")) return true;
+        if (name.startsWith("docker-compose")) return isYaml(name);
+        if (name.startsWith("application.") || name.startsWith("application-")) {
+            return isYaml(name) || name.endsWith(".properties");
+        }
+        return false;
+    }
+
+    private static boolean isYaml(String name) {
+        return name.endsWith(".yml") || name.endsWith(".yaml");
+    }
+}
@@ -3,6 +3,7 @@ package com.example.demo.service;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -36,14 +37,23 @@ public class DockerComposeService {
 
     /** Cherche des compose files dans la racine + dossiers communs + (optionnel) dossiers de services. */
     public List<String> findComposeFiles(String repoUrl, String token, List<String> serviceDirs) {
+        return findComposeFiles(path -> listComposeInPath(repoUrl, token, path), serviceDirs);
+    }
+
+    /** Variante sur un instantané déjà chargé : chaque dossier est sondé dans l'arbre en mémoire, sans appel distant. */
+    public List<String> findComposeFiles(RepoSnapshot snapshot, List<String> serviceDirs) {
+        return findComposeFiles(path -> listComposeInPath(snapshot, path), serviceDirs);
+    }
+
+    private List<String> findComposeFiles(Function<String, List<String>> listComposeInPath, List<String> serviceDirs) {
         Set<String> found = new LinkedHashSet<>();
 
         // Racine
-        found.addAll(listComposeInPath(repoUrl, token, null));
+        found.addAll(listComposeInPath.apply(null));
 
         // Dossiers “habituels”
         for (String dir : COMMON_DIRS) {
-            found.addAll(listComposeInPath(repoUrl, token, dir));
+            found.addAll(listComposeInPath.apply(dir));
         }
 
         // Dossiers de services (ex: ./backend, ./frontend)
@@ -51,7 +61,7 @@ public class DockerComposeService {
             for (String wd : serviceDirs) {
                 String clean = wd == null ? "" : wd.replaceFirst("^\\./", "");
                 if (!clean.isBlank() && !clean.equals(".")) {
-                    found.addAll(listComposeInPath(repoUrl, token, clean));
+                    found.addAll(listComposeInPath.apply(clean));
                 }
             }
         }
@@ -61,11 +71,10 @@ public class DockerComposeService {
 
     private List<String> listComposeInPath(String repoUrl, String token, String path) {
         try {
-            List<Map<String, Object>> files = gitHubService.getRepositoryContents(repoUrl, token, path);
-            if (files == null) return List.of();
+            List<RepoSnapshot.Entry> files = gitHubService.getRepositoryContents(repoUrl, token, path);
             String prefix = (path == null || path.isBlank()) ? "" : (path + "/");
             return files.stream()
-                    .map(m -> String.valueOf(m.get("name")))
+                    .map(RepoSnapshot.Entry::getName)
                     .filter(COMPOSE_FILES::contains)
                     .map(n -> prefix + n)
                     .collect(Collectors.toList());
@@ -74,6 +83,14 @@ public class DockerComposeService {
         }
     }
 
+    private List<String> listComposeInPath(RepoSnapshot snapshot, String path) {
+        String prefix = (path == null || path.isBlank()) ? "" : (path + "/");
+        return COMPOSE_FILES.stream()
+                .map(n -> prefix + n)
+                .filter(snapshot::isFile)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Construit un docker-compose.yml de PROD.
      * - images applicatives: ghcr.io/<owner>/<repo>-<serviceId>:latest
@@ -194,4 +211,4 @@ public class DockerComposeService {
         }
         return generateProdComposeYaml(services, relationships, imageBase);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,267 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Cache de contenus de fichiers indexé par SHA de blob git.
+ * Un blob git est immuable pour un SHA donné : aucune invalidation n'est nécessaire.
+ *  - tier mémoire : LRU borné en octets
+ *  - tier disque (optionnel) : un fichier par SHA, conservé entre redémarrages, LRU borné en octets
+ *    (max-disk-bytes) ; au démarrage, les fichiers existants sont repris du plus ancien au plus récent
+ */
+@Component
+public class GitBlobCache {
+
+    private final long maxHeapBytes;
+    private final Path diskDir;
+    private final long maxDiskBytes;
+
+    private final LinkedHashMap<String, byte[]> heap = new LinkedHashMap<>(256, 0.75f, true);
+    private long heapBytes = 0;
+
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(256, 0.75f, true); // SHA -> taille du fichier
+    private long diskBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+
+    public GitBlobCache(@Value("${github.blob-cache.max-heap-bytes:33554432}") long maxHeapBytes,
+                        @Value("${github.blob-cache.dir:}") String diskDir,
+                        @Value("${github.blob-cache.max-disk-bytes:268435456}") long maxDiskBytes) {
+        this.maxHeapBytes = maxHeapBytes;
+        this.diskDir = (diskDir == null || diskDir.isBlank()) ? null : Paths.get(diskDir);
+        this.maxDiskBytes = maxDiskBytes;
+        if (this.diskDir != null) {
+            try {
+                Files.createDirectories(this.diskDir);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create blob cache directory: " + diskDir, e);
+            }
+            loadDiskIndex();
+        }
+    }
+
+    /** Retourne le contenu du blob, en le chargeant via {@code loader} uniquement en cas de miss. */
+    public String get(String sha, Supplier<String> loader) {
+        if (sha == null || sha.isBlank()) return loader.get();
+
+        byte[] cached = getFromHeap(sha);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return new String(cached, StandardCharsets.UTF_8);
+        }
+
+        cached = readFromDisk(sha);
+        if (cached != null) {
+            diskHits.incrementAndGet();
+            putInHeap(sha, cached);
+            return new String(cached, StandardCharsets.UTF_8);
+        }
+
+        misses.incrementAndGet();
+        String content = loader.get();
+        if (content != null) {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            putInHeap(sha, bytes);
+            writeToDisk(sha, bytes);
+        }
+        return content;
+    }
+
+    /** Le blob est-il déjà en cache (mémoire ou disque) ? N'affecte ni l'ordre LRU ni les compteurs. */
+    public boolean contains(String sha) {
+        if (sha == null || sha.isBlank()) return false;
+        synchronized (heap) {
+            if (heap.containsKey(sha)) return true;
+        }
+        if (diskDir == null) return false;
+        synchronized (disk) {
+            return disk.containsKey(sha);
+        }
+    }
+
+    /** Ajoute un contenu obtenu autrement qu'à la demande (préchargement en lot). */
+    public void put(String sha, String content) {
+        if (sha == null || sha.isBlank() || content == null) return;
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        putInHeap(sha, bytes);
+        writeToDisk(sha, bytes);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        synchronized (heap) {
+            out.put("entries", heap.size());
+            out.put("heapBytes", heapBytes);
+        }
+        out.put("maxHeapBytes", maxHeapBytes);
+        out.put("diskEnabled", diskDir != null);
+        synchronized (disk) {
+            out.put("diskEntries", disk.size());
+            out.put("diskBytes", diskBytes);
+        }
+        out.put("maxDiskBytes", maxDiskBytes);
+        out.put("hits", hits.get());
+        out.put("diskHits", diskHits.get());
+        out.put("misses", misses.get());
+        out.put("evictions", evictions.get());
+        out.put("diskEvictions", diskEvictions.get());
+        return out;
+    }
+
+    // --- tier mémoire ---
+
+    private byte[] getFromHeap(String sha) {
+        synchronized (heap) {
+            return heap.get(sha);
+        }
+    }
+
+    private void putInHeap(String sha, byte[] bytes) {
+        if (bytes.length > maxHeapBytes) return;
+        synchronized (heap) {
+            byte[] previous = heap.put(sha, bytes);
+            if (previous != null) heapBytes -= previous.length;
+            heapBytes += bytes.length;
+
+            Iterator<Map.Entry<String, byte[]>> it = heap.entrySet().iterator();
+            while (heapBytes > maxHeapBytes && it.hasNext()) {
+                Map.Entry<String, byte[]> eldest = it.next();
+                heapBytes -= eldest.getValue().length;
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    // --- tier disque ---
+
+    private Path diskPath(String sha) {
+        String clean = sha.replaceAll("[^0-9a-fA-F]", "");
+        if (clean.length() < 3) return null;
+        return diskDir.resolve(clean.substring(0, 2)).resolve(clean);
+    }
+
+    private byte[] readFromDisk(String sha) {
+        if (diskDir == null) return null;
+        synchronized (disk) {
+            if (disk.get(sha) == null) return null; // marque aussi le blob comme récemment utilisé
+        }
+        Path file = diskPath(sha);
+        if (file == null) return null;
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            forgetOnDisk(sha); // supprimé entre-temps (éviction concurrente, nettoyage du dossier temporaire)
+            return null;
+        }
+    }
+
+    private void writeToDisk(String sha, byte[] bytes) {
+        if (diskDir == null || bytes.length > maxDiskBytes) return;
+        Path file = diskPath(sha);
+        if (file == null) return;
+        synchronized (disk) {
+            if (disk.containsKey(sha)) return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), sha, ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ignored) {
+            // le tier disque est un bonus : un échec d'écriture ne doit pas casser la lecture
+            return;
+        }
+        List<String> evicted;
+        synchronized (disk) {
+            Long previous = disk.put(sha, (long) bytes.length);
+            if (previous != null) diskBytes -= previous;
+            diskBytes += bytes.length;
+            evicted = evictFromDisk();
+        }
+        evicted.forEach(this::deleteFromDisk);
+    }
+
+    /** Retire de l'index les blobs les moins récemment utilisés au-delà de max-disk-bytes. Appelé sous {@code disk}. */
+    private List<String> evictFromDisk() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> it = disk.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            diskBytes -= eldest.getValue();
+            it.remove();
+            evicted.add(eldest.getKey());
+            diskEvictions.incrementAndGet();
+        }
+        return evicted;
+    }
+
+    private void forgetOnDisk(String sha) {
+        synchronized (disk) {
+            Long size = disk.remove(sha);
+            if (size != null) diskBytes -= size;
+        }
+    }
+
+    private void deleteFromDisk(String sha) {
+        Path file = diskPath(sha);
+        try {
+            if (file != null) Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // fichier verrouillé ou déjà supprimé : il sera repris (ou ignoré) au prochain démarrage
+        }
+    }
+
+    /** Reprend les blobs déjà sur disque, du plus ancien au plus récent, et supprime les écritures interrompues. */
+    private void loadDiskIndex() {
+        record Found(String sha, long size, long modified) {}
+        List<Found> found = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(diskDir, 2)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                try {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(".tmp")) {
+                        Files.deleteIfExists(file);
+                    } else {
+                        found.add(new Found(name, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+                    }
+                } catch (IOException ignored) {
+                    // supprimé pendant le parcours
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ Blob cache directory could not be scanned: " + e.getMessage());
+        }
+        found.sort(Comparator.comparingLong(Found::modified));
+        List<String> evicted;
+        synchronized (disk) {
+            for (Found f : found) {
+                disk.put(f.sha(), f.size());
+                diskBytes += f.size();
+            }
+            evicted = evictFromDisk();
+        }
+        evicted.forEach(this::deleteFromDisk);
+    }
+}
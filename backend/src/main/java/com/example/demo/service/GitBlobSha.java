@@ -0,0 +1,35 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA d'un blob git calculé localement : sha1("blob " + taille + "\0" + octets).
+ * Identique au SHA renvoyé par GitHub dans les listings (contents, git/trees) :
+ * comparer deux SHA suffit pour savoir si un contenu a changé, sans rien télécharger.
+ */
+public final class GitBlobSha {
+
+    private GitBlobSha() {}
+
+    public static String of(String content) {
+        return of(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String of(byte[] content) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            sha1.update(("blob " + content.length + "\0").getBytes(StandardCharsets.US_ASCII));
+            sha1.update(content);
+            return HexFormat.of().formatHex(sha1.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static boolean matches(String sha, String content) {
+        return sha != null && content != null && sha.equalsIgnoreCase(of(content));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Préchargement en lot des blobs d'une analyse : au lieu d'un appel REST git/blobs par fichier,
+ * une requête GraphQL porte jusqu'à github.graphql.batch-size objets (alias b0, b1... sur
+ * {@code repository.object(oid:)}). Les contenus rejoignent le {@link GitBlobCache} :
+ * les lectures des détecteurs y trouvent ensuite leurs fichiers sans appel.
+ * Blobs binaires, tronqués ou absents de la réponse : laissés à la lecture REST habituelle.
+ */
+@Component
+public class GitHubBlobPrefetcher {
+
+    private static final String GRAPHQL_URL = "https://api.github.com/graphql";
+    private static final Pattern OID = Pattern.compile("[0-9a-f]{40}");
+
+    private final RestTemplate restTemplate;
+    private final GitBlobCache blobCache;
+    private final int batchSize;
+
+    public GitHubBlobPrefetcher(@Qualifier("gitHubRestTemplate") RestTemplate restTemplate,
+                                GitBlobCache blobCache,
+                                @Value("${github.graphql.batch-size:100}") int batchSize) {
+        this.restTemplate = restTemplate;
+        this.blobCache = blobCache;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Charge dans le cache les blobs de ces fichiers qui n'y sont pas encore.
+     * @return nombre de blobs préchargés ; un lot en échec est ignoré (les lectures retomberont sur REST)
+     */
+    public int prefetch(String repoUrl, String token, RepoSnapshot snapshot, Collection<String> paths) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String path : paths) {
+            String sha = snapshot.shaOf(path);
+            if (sha != null && OID.matcher(sha).matches() && !blobCache.contains(sha)) missing.add(sha);
+        }
+        if (missing.isEmpty()) return 0;
+
+        String[] parts = repoUrl.replace("https://github.com/", "").split("/");
+        List<String> shas = new ArrayList<>(missing);
+        int loaded = 0;
+        for (int from = 0; from < shas.size(); from += batchSize) {
+            loaded += fetchBatch(parts[0], parts[1], token, shas.subList(from, Math.min(shas.size(), from + batchSize)));
+        }
+        System.out.println("📥 Préchargement GraphQL : " + loaded + "/" + shas.size() + " blobs en "
+                + ((shas.size() + batchSize - 1) / batchSize) + " requête(s)");
+        return loaded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int fetchBatch(String owner, String name, String token, List<String> shas) {
+        StringBuilder query = new StringBuilder("query($owner: String!, $name: String!) { repository(owner: $owner, name: $name) {");
+        for (int i = 0; i < shas.size(); i++) {
+            query.append(" b").append(i).append(": object(oid: \"").append(shas.get(i))
+                    .append("\") { ... on Blob { text isBinary isTruncated } }");
+        }
+        query.append(" } }");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("User-Agent", "CI-CD-Management-App");
+        Map<String, Object> body = Map.of("query", query.toString(), "variables", Map.of("owner", owner, "name", name));
+
+        Map<String, Object> response;
+        try {
+            response = restTemplate.postForObject(GRAPHQL_URL, new HttpEntity<>(body, headers), Map.class);
+        } catch (RestClientException e) {
+            System.out.println("⚠️ Préchargement GraphQL ignoré : " + e.getMessage());
+            return 0;
+        }
+        Object data = response == null ? null : response.get("data");
+        Object repository = data instanceof Map ? ((Map<String, Object>) data).get("repository") : null;
+        if (!(repository instanceof Map)) return 0;
+
+        int loaded = 0;
+        for (int i = 0; i < shas.size(); i++) {
+            Object blob = ((Map<String, Object>) repository).get("b" + i);
+            if (!(blob instanceof Map)) continue;
+            Map<String, Object> b = (Map<String, Object>) blob;
+            if (Boolean.TRUE.equals(b.get("isBinary")) || Boolean.TRUE.equals(b.get("isTruncated"))) continue;
+            Object text = b.get("text");
+            if (text instanceof String) {
+                blobCache.put(shas.get(i), (String) text);
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.extras.HttpClientGitHubConnector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Instances {@link GitHub} et {@link GHRepository} réutilisées par token.
+ * Toutes passent par le HttpClient partagé : pas de nouveau client ni de nouvelle
+ * résolution du repository à chaque fichier poussé.
+ */
+@Component
+public class GitHubClientCache {
+
+    private final HttpClient httpClient;
+    private final GitHubRateLimitGovernor rateLimitGovernor;
+    private final long ttlMillis;
+
+    private final Map<String, Handle<GitHub>> clients = new ConcurrentHashMap<>();
+    private final Map<String, Handle<GHRepository>> repositories = new ConcurrentHashMap<>();
+
+    private final AtomicLong clientHits = new AtomicLong();
+    private final AtomicLong clientsCreated = new AtomicLong();
+    private final AtomicLong repositoryHits = new AtomicLong();
+    private final AtomicLong repositoryLookups = new AtomicLong();
+
+    public GitHubClientCache(HttpClient gitHubHttpClient,
+                             GitHubRateLimitGovernor rateLimitGovernor,
+                             @Value("${github.client-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.httpClient = gitHubHttpClient;
+        this.rateLimitGovernor = rateLimitGovernor;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public GitHub github(String token) throws IOException {
+        String key = GitHubTokens.fingerprint(token);
+        Handle<GitHub> handle = clients.get(key);
+        if (handle != null && !handle.isExpired()) {
+            clientHits.incrementAndGet();
+            return handle.value;
+        }
+        GitHub github = new GitHubBuilder()
+                .withOAuthToken(token)
+                .withConnector(rateLimitGovernor.wrap(new HttpClientGitHubConnector(httpClient)))
+                .build();
+        clientsCreated.incrementAndGet();
+        evictExpired();
+        clients.put(key, new Handle<>(github, ttlMillis));
+        return github;
+    }
+
+    public GHRepository repository(String token, String repoFullName) throws IOException {
+        String key = GitHubTokens.fingerprint(token) + "#" + repoFullName;
+        Handle<GHRepository> handle = repositories.get(key);
+        if (handle != null && !handle.isExpired()) {
+            repositoryHits.incrementAndGet();
+            return handle.value;
+        }
+        GHRepository repository = github(token).getRepository(repoFullName);
+        repositoryLookups.incrementAndGet();
+        repositories.put(key, new Handle<>(repository, ttlMillis));
+        return repository;
+    }
+
+    /** À appeler quand GitHub rejette le token (401/403) : les handles ne sont plus valides. */
+    public void invalidate(String token) {
+        String key = GitHubTokens.fingerprint(token);
+        clients.remove(key);
+        repositories.keySet().removeIf(k -> k.startsWith(key + "#"));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("clients", clients.size());
+        out.put("repositories", repositories.size());
+        out.put("clientHits", clientHits.get());
+        out.put("clientsCreated", clientsCreated.get());
+        out.put("repositoryHits", repositoryHits.get());
+        out.put("repositoryLookups", repositoryLookups.get());
+        return out;
+    }
+
+    private void evictExpired() {
+        clients.values().removeIf(Handle::isExpired);
+        repositories.values().removeIf(Handle::isExpired);
+    }
+
+    private static final class Handle<T> {
+        private final T value;
+        private final long expiresAt;
+
+        private Handle(T value, long ttlMillis) {
+            this.value = value;
+            this.expiresAt = System.currentTimeMillis() + ttlMillis;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Requêtes conditionnelles pour les GET GitHub (ETag / Last-Modified).
+ * Les réponses sont mémorisées par URL + token ; sur un 304 (non décompté du quota GitHub)
+ * on rejoue le corps mémorisé comme un 200.
+ */
+@Component
+public class GitHubConditionalRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes = 0;
+
+    private final AtomicLong conditionalRequests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+
+    public GitHubConditionalRequestInterceptor(@Value("${github.http-cache.max-bytes:16777216}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            return execution.execute(request, body);
+        }
+
+        String key = cacheKey(request);
+        CachedResponse cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            conditionalRequests.incrementAndGet();
+            if (cached.etag != null) request.getHeaders().setIfNoneMatch(cached.etag);
+            if (cached.lastModified != null) request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified);
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+
+        if (cached != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            notModified.incrementAndGet();
+            response.close();
+            return cached.replay();
+        }
+
+        String etag = response.getHeaders().getETag();
+        String lastModified = response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+        if (response.getStatusCode().value() != HttpStatus.OK.value() || (etag == null && lastModified == null)) {
+            return response;
+        }
+        // archives (tarball / zipball) : lues au fil de l'eau par l'appelant, jamais mises en tampon
+        if (!isCacheable(response.getHeaders())) {
+            return response;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        byte[] content;
+        try (response) {
+            content = StreamUtils.copyToByteArray(response.getBody());
+        }
+        CachedResponse fresh = new CachedResponse(etag, lastModified, headers, content);
+        store(key, fresh);
+        return fresh.replay();
+    }
+
+    /**
+     * Seules les réponses JSON / texte de taille connue et raisonnable sont mémorisées : une réponse
+     * sans Content-Length (chunked) peut être arbitrairement grande, elle est rendue telle quelle, en flux.
+     */
+    private boolean isCacheable(HttpHeaders headers) {
+        MediaType type = headers.getContentType();
+        if (type != null && !"json".equals(type.getSubtype()) && !type.getSubtype().endsWith("+json")
+                && !"text".equals(type.getType())) {
+            return false;
+        }
+        long length = headers.getContentLength();
+        return length >= 0 && length <= maxBytes;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        synchronized (entries) {
+            out.put("entries", entries.size());
+            out.put("bytes", bytes);
+        }
+        out.put("maxBytes", maxBytes);
+        out.put("conditionalRequests", conditionalRequests.get());
+        out.put("notModified", notModified.get());
+        out.put("stored", stored.get());
+        return out;
+    }
+
+    private void store(String key, CachedResponse response) {
+        if (response.body.length > maxBytes) return;
+        synchronized (entries) {
+            CachedResponse previous = entries.put(key, response);
+            if (previous != null) bytes -= previous.body.length;
+            bytes += response.body.length;
+
+            Iterator<Map.Entry<String, CachedResponse>> it = entries.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                bytes -= it.next().getValue().body.length;
+                it.remove();
+            }
+        }
+        stored.incrementAndGet();
+    }
+
+    /** URL + empreinte du token : deux utilisateurs ne partagent jamais une réponse. */
+    private static String cacheKey(HttpRequest request) {
+        String auth = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return request.getURI() + "#" + GitHubTokens.fingerprint(auth);
+    }
+
+    private static final class CachedResponse {
+        private final String etag;
+        private final String lastModified;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        private CachedResponse(String etag, String lastModified, HttpHeaders headers, byte[] body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        private ClientHttpResponse replay() {
+            return new ClientHttpResponse() {
+                @Override public HttpStatusCode getStatusCode() { return HttpStatus.OK; }
+                @Override public String getStatusText() { return HttpStatus.OK.getReasonPhrase(); }
+                @Override public HttpHeaders getHeaders() { return headers; }
+                @Override public InputStream getBody() { return new ByteArrayInputStream(body); }
+                @Override public void close() { }
+            };
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Résultats de validation déjà obtenus pour un token : token valide, droits de push
+ * sur un repository, existence d'une branche. Clés = empreinte du token (+ repo, + branche),
+ * jamais le token lui-même. Tout est oublié pour un token dès que GitHub répond 401/403.
+ */
+@Component
+public class GitHubPermissionCache {
+
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final Map<String, Long> validatedUntil = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public GitHubPermissionCache(@Value("${github.permission-cache.ttl-seconds:300}") long ttlSeconds) {
+        this(ttlSeconds * 1000, System::currentTimeMillis);
+    }
+
+    GitHubPermissionCache(long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    public boolean isTokenValidated(String token) {
+        return isFresh(tokenKey(token));
+    }
+
+    public void markTokenValidated(String token) {
+        mark(tokenKey(token));
+    }
+
+    /** Scopes du token et droit de push sur le repository déjà vérifiés. */
+    public boolean isRepositoryValidated(String token, String repoFullName) {
+        return isFresh(repositoryKey(token, repoFullName));
+    }
+
+    public void markRepositoryValidated(String token, String repoFullName) {
+        mark(tokenKey(token));
+        mark(repositoryKey(token, repoFullName));
+    }
+
+    public boolean isBranchValidated(String token, String repoFullName, String branch) {
+        return isFresh(repositoryKey(token, repoFullName) + "@" + branch);
+    }
+
+    public void markBranchValidated(String token, String repoFullName, String branch) {
+        mark(repositoryKey(token, repoFullName) + "@" + branch);
+    }
+
+    public void invalidate(String token) {
+        String key = tokenKey(token);
+        validatedUntil.keySet().removeIf(k -> k.equals(key) || k.startsWith(key + "#"));
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Oublie les validations du token si l'erreur est un 401/403 GitHub.
+     * Retourne true si c'est le cas (l'appelant invalide alors aussi ses propres handles).
+     */
+    public boolean invalidateOnAuthFailure(String token, Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            int status = GitHubRetryPolicy.statusOf(t);
+            if (status == 401 || status == 403) {
+                invalidate(token);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("entries", validatedUntil.size());
+        out.put("hits", hits.get());
+        out.put("misses", misses.get());
+        out.put("invalidations", invalidations.get());
+        out.put("ttlSeconds", ttlMillis / 1000);
+        return out;
+    }
+
+    private boolean isFresh(String key) {
+        Long until = validatedUntil.get(key);
+        if (until != null && until > clock.getAsLong()) {
+            hits.incrementAndGet();
+            return true;
+        }
+        if (until != null) validatedUntil.remove(key, until);
+        misses.incrementAndGet();
+        return false;
+    }
+
+    private void mark(String key) {
+        long now = clock.getAsLong();
+        validatedUntil.values().removeIf(until -> until <= now);
+        validatedUntil.put(key, now + ttlMillis);
+    }
+
+    private static String tokenKey(String token) {
+        return GitHubTokens.fingerprint(token);
+    }
+
+    private static String repositoryKey(String token, String repoFullName) {
+        return tokenKey(token) + "#" + repoFullName.toLowerCase();
+    }
+}
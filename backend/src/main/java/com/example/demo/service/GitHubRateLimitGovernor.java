@@ -0,0 +1,197 @@
+package com.example.demo.service;
+
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Budget de rate limit GitHub par token, alimenté par les en-têtes X-RateLimit-* de chaque réponse.
+ *  - sous {@code slowdownBelow} du quota : les appels sont espacés pour tenir jusqu'au reset
+ *  - sous la réserve : les appels attendent le reset (si l'attente reste courte) ou sont refusés
+ *  - {@link #parallelism} réduit le parallélisme conseillé quand le budget baisse
+ * Branché à la fois sur le RestTemplate GitHub (intercepteur) et sur le connecteur kohsuke ({@link #wrap}).
+ */
+@Component
+public class GitHubRateLimitGovernor implements ClientHttpRequestInterceptor {
+
+    private static final String CORE = "core";
+
+    @FunctionalInterface
+    interface Sleeper { void sleep(long millis) throws InterruptedException; }
+
+    private final int reserve;
+    private final double slowdownBelow;
+    private final long maxWaitMs;
+    private final long maxPaceMs;
+    private final Sleeper sleeper;
+    private final LongSupplier clock;
+
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+    private final AtomicLong paced = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    public GitHubRateLimitGovernor(@Value("${github.rate-limit.reserve:50}") int reserve,
+                                   @Value("${github.rate-limit.slowdown-below:0.2}") double slowdownBelow,
+                                   @Value("${github.rate-limit.max-wait-ms:30000}") long maxWaitMs,
+                                   @Value("${github.rate-limit.max-pace-ms:1000}") long maxPaceMs) {
+        this(reserve, slowdownBelow, maxWaitMs, maxPaceMs, Thread::sleep, System::currentTimeMillis);
+    }
+
+    GitHubRateLimitGovernor(int reserve, double slowdownBelow, long maxWaitMs, long maxPaceMs,
+                            Sleeper sleeper, LongSupplier clock) {
+        this.reserve = reserve;
+        this.slowdownBelow = slowdownBelow;
+        this.maxWaitMs = maxWaitMs;
+        this.maxPaceMs = maxPaceMs;
+        this.sleeper = sleeper;
+        this.clock = clock;
+    }
+
+    /** À appeler avant chaque appel GitHub : peut ralentir, mettre en attente ou refuser l'appel. */
+    public void acquire(String token) {
+        acquire(token, CORE);
+    }
+
+    public void acquire(String token, String resource) {
+        Budget budget = budgets.get(key(token, resource));
+        if (budget == null) return;
+
+        long wait;
+        synchronized (budget) {
+            long now = clock.getAsLong();
+            if (now >= budget.resetAtMillis) return; // fenêtre écoulée : le quota est reparti
+            long untilReset = budget.resetAtMillis - now;
+
+            if (budget.remaining <= reserve) {
+                if (untilReset > maxWaitMs) {
+                    rejected.incrementAndGet();
+                    throw new IllegalStateException("GitHub rate limit almost exhausted for this token ("
+                            + budget.remaining + " left), resets in " + (untilReset / 1000) + "s");
+                }
+                queued.incrementAndGet();
+                wait = untilReset;
+            } else if (budget.remaining < budget.limit * slowdownBelow) {
+                paced.incrementAndGet();
+                wait = Math.min(maxPaceMs, untilReset / Math.max(1, budget.remaining - reserve));
+            } else {
+                wait = 0;
+            }
+            budget.remaining--; // décompte optimiste : les appels concurrents voient le budget baisser
+        }
+        sleep(wait);
+    }
+
+    /** Met à jour le budget depuis les en-têtes d'une réponse GitHub. */
+    public void record(String token, Function<String, String> headers) {
+        String remaining = headers.apply("X-RateLimit-Remaining");
+        String reset = headers.apply("X-RateLimit-Reset");
+        if (remaining == null || reset == null) return;
+        String resource = headers.apply("X-RateLimit-Resource");
+        String limit = headers.apply("X-RateLimit-Limit");
+        try {
+            Budget budget = budgets.computeIfAbsent(key(token, resource == null ? CORE : resource), k -> new Budget());
+            synchronized (budget) {
+                budget.remaining = Long.parseLong(remaining.trim());
+                budget.resetAtMillis = Long.parseLong(reset.trim()) * 1000;
+                if (limit != null) budget.limit = Long.parseLong(limit.trim());
+            }
+        } catch (NumberFormatException ignored) {
+            // en-têtes inattendus : on garde le budget précédent
+        }
+    }
+
+    /** Parallélisme conseillé pour ce token : {@code max} tant que le budget est confortable, puis décroissant. */
+    public int parallelism(String token, int max) {
+        Budget budget = budgets.get(key(token, CORE));
+        if (budget == null || max <= 1) return Math.max(1, max);
+        synchronized (budget) {
+            if (clock.getAsLong() >= budget.resetAtMillis || budget.limit <= 0) return max;
+            double ratio = (double) (budget.remaining - reserve) / budget.limit;
+            if (ratio >= slowdownBelow * 2) return max;
+            return (int) Math.max(1, Math.round(max * Math.max(0, ratio) / (slowdownBelow * 2)));
+        }
+    }
+
+    // --- branchement RestTemplate ---
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        String token = GitHubTokens.fromAuthorization(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        acquire(token, resourceOf(request.getURI().getPath()));
+        ClientHttpResponse response = execution.execute(request, body);
+        record(token, response.getHeaders()::getFirst);
+        return response;
+    }
+
+    // --- branchement kohsuke ---
+
+    public GitHubConnector wrap(GitHubConnector delegate) {
+        return request -> {
+            String token = GitHubTokens.fromAuthorization(request.header("Authorization"));
+            acquire(token, resourceOf(request.url().getPath()));
+            GitHubConnectorResponse response = delegate.send(request);
+            record(token, response::header);
+            return response;
+        };
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        Map<String, Object> perToken = new LinkedHashMap<>();
+        budgets.forEach((key, budget) -> {
+            synchronized (budget) {
+                perToken.put(key.substring(0, 8) + key.substring(key.indexOf('#')), Map.of(
+                        "remaining", budget.remaining,
+                        "limit", budget.limit,
+                        "resetAt", budget.resetAtMillis / 1000));
+            }
+        });
+        out.put("budgets", perToken);
+        out.put("paced", paced.get());
+        out.put("queued", queued.get());
+        out.put("rejected", rejected.get());
+        return out;
+    }
+
+    private static String key(String token, String resource) {
+        return GitHubTokens.fingerprint(token) + "#" + resource;
+    }
+
+    private static String resourceOf(String path) {
+        return path != null && path.startsWith("/graphql") ? "graphql" : CORE;
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            sleeper.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for GitHub rate limit", e);
+        }
+    }
+
+    private static final class Budget {
+        private long remaining = Long.MAX_VALUE;
+        private long limit = 5000;
+        private long resetAtMillis;
+    }
+}
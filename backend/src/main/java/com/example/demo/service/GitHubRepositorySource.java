@@ -0,0 +1,43 @@
+package com.example.demo.service;
+
+import java.util.List;
+
+/** Repository GitHub à une ref donnée : arbre via git/trees, contenus préchargés en lot puis lus via le cache de blobs. */
+public class GitHubRepositorySource implements RepositorySource {
+
+    private final GitHubService gitHubService;
+    private final GitHubBlobPrefetcher prefetcher;
+    private final String repoUrl;
+    private final String token;
+    private final String ref;
+
+    public GitHubRepositorySource(GitHubService gitHubService, GitHubBlobPrefetcher prefetcher,
+                                  String repoUrl, String token, String ref) {
+        this.gitHubService = gitHubService;
+        this.prefetcher = prefetcher;
+        this.repoUrl = repoUrl;
+        this.token = token;
+        this.ref = ref;
+    }
+
+    @Override
+    public RepoSnapshot snapshot() {
+        return gitHubService.getRepositorySnapshot(repoUrl, token, ref);
+    }
+
+    /** Un petit nombre de requêtes GraphQL au lieu d'un appel git/blobs par fichier. */
+    @Override
+    public void prefetch(RepoSnapshot snapshot, List<String> paths) {
+        prefetcher.prefetch(repoUrl, token, snapshot, paths);
+    }
+
+    @Override
+    public String token() {
+        return token;
+    }
+
+    @Override
+    public String describe() {
+        return repoUrl + (ref != null ? "@" + ref : "");
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.demo.service;
+
+import org.kohsuke.github.GHFileNotFoundException;
+import org.kohsuke.github.GHIOException;
+import org.kohsuke.github.HttpException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Politique de retry des écritures GitHub.
+ *  - classe l'erreur (rate limit primaire/secondaire, conflit de SHA, 5xx, réseau, définitive)
+ *  - respecte Retry-After et X-RateLimit-Reset quand GitHub les fournit
+ *  - sinon backoff exponentiel avec jitter
+ *  - remplace les attentes fixes de propagation par un polling borné ({@link #await})
+ */
+@Component
+public class GitHubRetryPolicy {
+
+    public enum Failure { SECONDARY_RATE_LIMIT, RATE_LIMIT, CONFLICT, SERVER, NETWORK, FATAL }
+
+    @FunctionalInterface
+    public interface Operation<T> { T execute() throws IOException; }
+
+    @FunctionalInterface
+    public interface Condition { boolean check() throws IOException; }
+
+    @FunctionalInterface
+    interface Sleeper { void sleep(long millis) throws InterruptedException; }
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long maxWaitMs;
+    private final Sleeper sleeper;
+    private final LongSupplier clock;
+
+    @Autowired
+    public GitHubRetryPolicy(@Value("${github.retry.max-attempts:4}") int maxAttempts,
+                             @Value("${github.retry.base-delay-ms:200}") long baseDelayMs,
+                             @Value("${github.retry.max-delay-ms:5000}") long maxDelayMs,
+                             @Value("${github.retry.max-wait-ms:60000}") long maxWaitMs) {
+        this(maxAttempts, baseDelayMs, maxDelayMs, maxWaitMs, Thread::sleep, System::currentTimeMillis);
+    }
+
+    GitHubRetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, long maxWaitMs,
+                      Sleeper sleeper, LongSupplier clock) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxWaitMs = maxWaitMs;
+        this.sleeper = sleeper;
+        this.clock = clock;
+    }
+
+    public <T> T execute(Operation<T> operation) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.execute();
+            } catch (IOException e) {
+                Failure failure = classify(e);
+                long delay = (failure == Failure.FATAL || attempt >= maxAttempts) ? -1 : delayFor(failure, attempt, e);
+                if (delay < 0) {
+                    throw new IOException("Operation failed after " + attempt + " attempts (" + failure + ")", e);
+                }
+                sleepOrThrow(delay, e);
+            }
+        }
+    }
+
+    /**
+     * Attend qu'une condition devienne vraie (lecture après écriture), avec des intervalles
+     * croissants à partir de {@code baseDelayMs}. Retourne false si le délai est dépassé.
+     */
+    public boolean await(Condition condition, long timeoutMs) throws IOException {
+        long deadline = clock.getAsLong() + timeoutMs;
+        long delay = Math.max(50, baseDelayMs / 2);
+        while (true) {
+            if (condition.check()) return true;
+            long remaining = deadline - clock.getAsLong();
+            if (remaining <= 0) return false;
+            sleepOrThrow(Math.min(delay, remaining), null);
+            delay = Math.min(delay * 2, maxDelayMs);
+        }
+    }
+
+    // --- classification ---
+
+    public Failure classify(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            int status = statusOf(t);
+            if (status > 0) return classify(status, headersOf(t), t.getMessage());
+            if (t instanceof SocketTimeoutException || t instanceof ConnectException
+                    || t instanceof HttpTimeoutException || t instanceof ResourceAccessException) {
+                return Failure.NETWORK;
+            }
+        }
+        String message = error.getMessage() == null ? "" : error.getMessage().toLowerCase();
+        if (message.contains("secondary rate limit") || message.contains("abuse")) return Failure.SECONDARY_RATE_LIMIT;
+        if (message.contains("is at") && message.contains("but expected")) return Failure.CONFLICT; // sha mismatch
+        return Failure.FATAL;
+    }
+
+    Failure classify(int status, Map<String, List<String>> headers, String message) {
+        String msg = message == null ? "" : message.toLowerCase();
+        if (status == 429 || (status == 403 && (header(headers, HttpHeaders.RETRY_AFTER) != null
+                || msg.contains("secondary rate limit") || msg.contains("abuse")))) {
+            return Failure.SECONDARY_RATE_LIMIT;
+        }
+        if (status == 403 && "0".equals(header(headers, "X-RateLimit-Remaining"))) return Failure.RATE_LIMIT;
+        if (status == 409 || (status == 422 && (msg.contains("sha") || msg.contains("fast forward")))) {
+            return Failure.CONFLICT;
+        }
+        if (status >= 500) return Failure.SERVER;
+        return Failure.FATAL;
+    }
+
+    /** Délai avant la prochaine tentative, ou -1 si attendre dépasserait {@code maxWaitMs}. */
+    long delayFor(Failure failure, int attempt, Throwable error) {
+        Map<String, List<String>> headers = null;
+        for (Throwable t = error; t != null && headers == null; t = t.getCause()) headers = headersOf(t);
+
+        String retryAfter = header(headers, HttpHeaders.RETRY_AFTER);
+        if (retryAfter != null) {
+            return boundedWait(parseLong(retryAfter, 0) * 1000);
+        }
+        switch (failure) {
+            case RATE_LIMIT: {
+                long reset = parseLong(header(headers, "X-RateLimit-Reset"), 0);
+                return reset > 0 ? boundedWait(reset * 1000 - clock.getAsLong() + 1000) : -1;
+            }
+            case SECONDARY_RATE_LIMIT:
+                // sans Retry-After, GitHub recommande d'attendre au moins une minute
+                return boundedWait(60_000);
+            case CONFLICT:
+                // la ref a bougé : on relit vite, pas besoin d'attendre longtemps
+                return jitter(baseDelayMs);
+            default:
+                return jitter(baseDelayMs << Math.min(attempt, 20));
+        }
+    }
+
+    private long boundedWait(long millis) {
+        long wait = Math.max(0, millis);
+        return wait > maxWaitMs ? -1 : wait;
+    }
+
+    private long jitter(long cap) {
+        long bound = Math.max(1, Math.min(maxDelayMs, cap));
+        return ThreadLocalRandom.current().nextLong(bound / 2, bound + 1);
+    }
+
+    private void sleepOrThrow(long millis, IOException cause) throws IOException {
+        if (millis <= 0) return;
+        try {
+            sleeper.sleep(millis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            IOException interrupted = new IOException("Interrupted while waiting for GitHub", ie);
+            if (cause != null) interrupted.addSuppressed(cause);
+            throw interrupted;
+        }
+    }
+
+    // --- accès aux statuts / en-têtes des différentes exceptions ---
+
+    static int statusOf(Throwable t) {
+        if (t instanceof HttpException) return ((HttpException) t).getResponseCode();
+        if (t instanceof HttpStatusCodeException) return ((HttpStatusCodeException) t).getStatusCode().value();
+        if (t instanceof GHFileNotFoundException) return 404;
+        return -1;
+    }
+
+    private static Map<String, List<String>> headersOf(Throwable t) {
+        if (t instanceof GHIOException) return ((GHIOException) t).getResponseHeaderFields();
+        if (t instanceof GHFileNotFoundException) return ((GHFileNotFoundException) t).getResponseHeaderFields();
+        if (t instanceof HttpStatusCodeException) return ((HttpStatusCodeException) t).getResponseHeaders();
+        return null;
+    }
+
+    private static String header(Map<String, List<String>> headers, String name) {
+        if (headers == null) return null;
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            if (e.getKey() != null && e.getKey().equalsIgnoreCase(name) && e.getValue() != null && !e.getValue().isEmpty()) {
+                return e.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    private static long parseLong(String value, long fallback) {
+        if (value == null) return fallback;
+        try { return Long.parseLong(value.trim()); } catch (NumberFormatException e) { return fallback; }
+    }
+}
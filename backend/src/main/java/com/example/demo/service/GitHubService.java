@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import org.kohsuke.github.*;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
@@ -9,16 +10,48 @@ import org.springframework.web.client.RestTemplate;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 @Service
 public class GitHubService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
     private static final String GITHUB_API_URL = "https://api.github.com";
     private static final String GITHUB_DIR = ".github";
     private static final String WORKFLOWS_DIR = ".github/workflows";
-    private static final int MAX_RETRIES = 3;
-    private static final long RETRY_DELAY_MS = 2000;
+    private static final long PROPAGATION_TIMEOUT_MS = 5000;
+    /** Au-delà, GitHub tronque la liste des fichiers de l'API compare. */
+    private static final int COMPARE_MAX_FILES = 300;
+
+    private final GitBlobCache blobCache;
+    private final GitHubConditionalRequestInterceptor conditionalRequests;
+    private final GitHubClientCache clients;
+    private final GitHubRetryPolicy retryPolicy;
+    private final GitHubRateLimitGovernor rateLimitGovernor;
+    private final GitHubPermissionCache permissions;
+    private final GitHubTaskExecutor taskExecutor;
+
+    /** Chemins en cours de création par repository@branche (CREATE_NEW_ALWAYS concurrents). */
+    private final Map<String, Set<String>> reservedPaths = new ConcurrentHashMap<>();
+
+    public GitHubService(@Qualifier("gitHubRestTemplate") RestTemplate restTemplate,
+                         GitBlobCache blobCache,
+                         GitHubConditionalRequestInterceptor conditionalRequests,
+                         GitHubClientCache clients,
+                         GitHubRetryPolicy retryPolicy,
+                         GitHubRateLimitGovernor rateLimitGovernor,
+                         GitHubPermissionCache permissions,
+                         GitHubTaskExecutor taskExecutor) {
+        this.restTemplate = restTemplate;
+        this.blobCache = blobCache;
+        this.conditionalRequests = conditionalRequests;
+        this.clients = clients;
+        this.retryPolicy = retryPolicy;
+        this.rateLimitGovernor = rateLimitGovernor;
+        this.permissions = permissions;
+        this.taskExecutor = taskExecutor;
+    }
 
     public PushResult pushWorkflowToGitHub(
             String token,
@@ -38,23 +71,168 @@ public class GitHubService {
 
         validateParameters(token, repoFullName, filePath, content);
         validateFilePath(filePath);
-        validateTokenPermissions(token, repoFullName);
 
-        GitHub github = GitHub.connectUsingOAuth(token);
-        GHRepository repository = github.getRepository(repoFullName);
+        try {
+            GHRepository repository = validatedRepository(token, repoFullName);
+            String targetBranch = validatedBranch(token, repoFullName, repository, branch);
+            ensureWorkflowsDirectoryExistsFixed(repository, targetBranch);
+
+            return executeWithRetry(() -> applyFileStrategy(repository, targetBranch, filePath, content, strategy));
+        } catch (IOException | RuntimeException e) {
+            forgetCredentialsOnAuthFailure(token, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Pousse plusieurs fichiers en UN seul commit via l'API Git Data
+     * (arbre de base → nouvel arbre → commit → mise à jour de la ref).
+     * Les dossiers intermédiaires sont créés par l'arbre lui-même : pas de .gitkeep ni d'attente.
+     * Les stratégies par fichier sont résolues sur l'arbre de base, sans appel par fichier.
+     * Les résultats sont renvoyés dans l'ordre de {@code files}.
+     */
+    public List<PushResult> pushFilesToGitHub(
+            String token,
+            String repoFullName,
+            String branch,
+            List<FileToPush> files,
+            String commitMessage
+    ) throws IOException {
+        if (files == null || files.isEmpty()) return List.of();
+        for (FileToPush f : files) {
+            validateParameters(token, repoFullName, f.getPath(), f.getContent());
+            validateFilePath(f.getPath());
+        }
+
+        try {
+            GHRepository repository = validatedRepository(token, repoFullName);
+            String targetBranch = validatedBranch(token, repoFullName, repository, branch);
+
+            return executeWithRetry(() -> commitFiles(repository, targetBranch, files, commitMessage));
+        } catch (IOException | RuntimeException e) {
+            forgetCredentialsOnAuthFailure(token, e);
+            throw e;
+        }
+    }
 
+    /**
+     * Vérifie que le token est utilisable (GET /user), une fois par TTL.
+     * Évite de refaire l'appel à chaque workflow poussé dans une même session.
+     */
+    public void verifyToken(String token) {
+        if (permissions.isTokenValidated(token)) return;
+        try {
+            getUserInfo(token);
+        } catch (RuntimeException e) {
+            forgetCredentialsOnAuthFailure(token, e);
+            throw e;
+        }
+        permissions.markTokenValidated(token);
+    }
+
+    /** Scopes + droits de push vérifiés au premier push, puis servis par le cache de permissions. */
+    private GHRepository validatedRepository(String token, String repoFullName) throws IOException {
+        if (permissions.isRepositoryValidated(token, repoFullName)) {
+            return clients.repository(token, repoFullName);
+        }
+        validateTokenPermissions(token, repoFullName);
+        GHRepository repository = clients.repository(token, repoFullName);
+        validateRepositoryPermissions(repository);
+        permissions.markRepositoryValidated(token, repoFullName);
+        return repository;
+    }
+
+    private String validatedBranch(String token, String repoFullName, GHRepository repository, String branch) {
         String targetBranch = (branch != null && !branch.isBlank()) ? branch : repository.getDefaultBranch();
+        if (permissions.isBranchValidated(token, repoFullName, targetBranch)) {
+            return targetBranch;
+        }
         if (!branchExists(repository, targetBranch)) {
             throw new IllegalArgumentException("Branch does not exist: " + targetBranch);
         }
+        permissions.markBranchValidated(token, repoFullName, targetBranch);
+        return targetBranch;
+    }
 
-        validateRepositoryPermissions(repository);
-        ensureWorkflowsDirectoryExistsFixed(repository, targetBranch);
+    /** Token révoqué ou droits retirés (401/403) : plus rien de ce qui a été validé ne tient. */
+    private void forgetCredentialsOnAuthFailure(String token, Throwable error) {
+        if (permissions.invalidateOnAuthFailure(token, error)) {
+            clients.invalidate(token);
+        }
+    }
 
-        return executeWithRetry(() -> {
-            GHRepository freshRepo = github.getRepository(repoFullName);
-            return applyFileStrategy(freshRepo, targetBranch, filePath, content, strategy);
-        });
+    private List<PushResult> commitFiles(GHRepository repository, String branch,
+                                         List<FileToPush> files, String commitMessage) throws IOException {
+        GHRef ref = repository.getRef("heads/" + branch);
+        String parentSha = ref.getObject().getSha();
+        GHTree baseTree = repository.getTreeRecursive(parentSha, 1);
+
+        Map<String, String> existingShas = new HashMap<>();
+        for (GHTreeEntry e : baseTree.getTree()) {
+            if ("blob".equals(e.getType())) existingShas.put(e.getPath(), e.getSha());
+        }
+
+        Set<String> takenPaths = new HashSet<>(existingShas.keySet());
+        String repoKey = repository.getFullName() + "@" + branch;
+        List<String> reserved = new ArrayList<>();
+        GHTreeBuilder treeBuilder = repository.createTree().baseTree(baseTree.getSha());
+        PushResult[] results = new PushResult[files.size()];
+        List<Integer> pending = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                FileToPush f = files.get(i);
+                String path = f.getPath();
+                String previousSha = existingShas.get(path);
+                if (previousSha == null && baseTree.isTruncated()) {
+                    // arbre tronqué (très gros repo) : vérification ciblée
+                    try { previousSha = repository.getFileContent(path, branch).getSha(); } catch (IOException ignored) {}
+                }
+                if (previousSha != null) {
+                    switch (f.getStrategy()) {
+                        case FAIL_IF_EXISTS:
+                            throw new IllegalStateException("File already exists: " + path);
+                        case CREATE_NEW_ALWAYS:
+                            path = reserveUniquePath(repoKey, takenPaths, path);
+                            reserved.add(path);
+                            previousSha = null;
+                            break;
+                        case UPDATE_IF_EXISTS:
+                        default:
+                            if (GitBlobSha.matches(previousSha, f.getContent())) {
+                                results[i] = new PushResult(null, path, PushAction.SKIPPED, "Content unchanged", null, previousSha);
+                                continue;
+                            }
+                    }
+                }
+                treeBuilder.add(path, f.getContent(), false);
+                takenPaths.add(path);
+                results[i] = new PushResult(null, path, previousSha == null ? PushAction.CREATED : PushAction.UPDATED,
+                        null, null, previousSha);
+                pending.add(i);
+            }
+
+            if (pending.isEmpty()) return Arrays.asList(results);
+
+            GHTree tree = treeBuilder.create();
+            GHCommit commit = repository.createCommit()
+                    .message(commitMessage != null ? commitMessage : "Add " + pending.size() + " generated file(s)")
+                    .tree(tree.getSha())
+                    .parent(parentSha)
+                    .create();
+            ref.updateTo(commit.getSHA1(), false);
+
+            String commitUrl = "https://github.com/" + repository.getFullName() + "/commit/" + commit.getSHA1();
+            for (int i : pending) {
+                PushResult p = results[i];
+                results[i] = new PushResult(commit.getSHA1(), p.getFilePath(), p.getAction(),
+                        p.getAction() == PushAction.CREATED ? "File created successfully" : "File updated successfully",
+                        commitUrl, p.getPreviousSha());
+            }
+            return Arrays.asList(results);
+        } finally {
+            reserved.forEach(path -> releasePath(repoKey, path));
+        }
     }
 
     private void validateFilePath(String filePath) {
@@ -107,7 +285,6 @@ public class GitHubService {
             if (permission == GHPermissionType.READ) {
                 throw new IllegalArgumentException("Insufficient permissions: READ only. WRITE or ADMIN required.");
             }
-            try { repository.getFileContent("README.md"); } catch (Exception ignored) {}
         } catch (IOException e) {
             throw new IOException("Repository permission validation failed: " + e.getMessage(), e);
         }
@@ -138,12 +315,10 @@ public class GitHubService {
     private void ensureWorkflowsDirectoryExistsFixed(GHRepository repository, String branch) throws IOException {
         try {
             if (!directoryExistsRobust(repository, branch, GITHUB_DIR)) {
-                createDirectoryWithPlaceholder(repository, branch, GITHUB_DIR);
-                waitForPropagation();
+                waitForPropagation(repository, branch, createDirectoryWithPlaceholder(repository, branch, GITHUB_DIR));
             }
             if (!directoryExistsRobust(repository, branch, WORKFLOWS_DIR)) {
-                createDirectoryWithPlaceholder(repository, branch, WORKFLOWS_DIR);
-                waitForPropagation();
+                waitForPropagation(repository, branch, createDirectoryWithPlaceholder(repository, branch, WORKFLOWS_DIR));
             }
             if (!directoryExistsRobust(repository, branch, WORKFLOWS_DIR)) {
                 throw new IOException("Unable to create/verify .github/workflows");
@@ -153,7 +328,8 @@ public class GitHubService {
         }
     }
 
-    private void createDirectoryWithPlaceholder(GHRepository repository, String branch, String dirPath) throws IOException {
+    /** Crée le dossier via un .gitkeep ; retourne le SHA du commit (null si le dossier existait déjà). */
+    private String createDirectoryWithPlaceholder(GHRepository repository, String branch, String dirPath) throws IOException {
         try {
             String placeholderPath = dirPath + "/.gitkeep";
             String placeholderContent = "# Directory placeholder for " + dirPath + "\n";
@@ -164,23 +340,15 @@ public class GitHubService {
                     .message("Create " + dirPath + " directory structure")
                     .commit();
             System.out.println("✅ Created " + dirPath + " commit=" + response.getCommit().getSHA1());
+            return response.getCommit().getSHA1();
         } catch (IOException e) {
             if (!isAlreadyExistsError(e)) throw e;
+            return null;
         }
     }
 
-    private PushResult executeWithRetry(RetryableOperation operation) throws IOException {
-        IOException lastException = null;
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            try { return operation.execute(); }
-            catch (IOException e) {
-                lastException = e;
-                if (attempt < MAX_RETRIES) {
-                    try { Thread.sleep(RETRY_DELAY_MS); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); break; }
-                }
-            }
-        }
-        throw new IOException("Operation failed after " + MAX_RETRIES + " attempts", lastException);
+    private <T> T executeWithRetry(GitHubRetryPolicy.Operation<T> operation) throws IOException {
+        return retryPolicy.execute(operation);
     }
 
     private PushResult applyFileStrategy(
@@ -190,24 +358,33 @@ public class GitHubService {
             String content,
             FileHandlingStrategy strategy
     ) throws IOException {
+        // un seul listing du dossier cible : chemin → SHA, sans télécharger de contenu
+        Map<String, String> shas = listFileShas(repository, branch, filePath);
 
         switch (strategy) {
             case UPDATE_IF_EXISTS:
-                if (fileExists(repository, branch, filePath)) {
-                    return updateFile(repository, branch, filePath, content);
+                if (fileExists(shas, filePath)) {
+                    return updateFile(repository, branch, filePath, content, shas.get(filePath));
                 } else {
                     return createFile(repository, branch, filePath, content);
                 }
             case CREATE_NEW_ALWAYS:
-                if (fileExists(repository, branch, filePath)) {
-                    String uniqueFilePath = generateUniqueFilePathWithIncrement(repository, branch, filePath);
-                    return createFile(repository, branch, uniqueFilePath, content,
-                            "New workflow created with incremental name");
+                if (fileExists(shas, filePath)) {
+                    String repoKey = repository.getFullName() + "@" + branch;
+                    String uniqueFilePath = reserveUniquePath(repoKey, shas.keySet(), filePath);
+                    try {
+                        // si un autre apply a créé ce chemin entre-temps, GitHub répond 422 :
+                        // la politique de retry relance, avec un nouveau listing
+                        return createFile(repository, branch, uniqueFilePath, content,
+                                "New workflow created with incremental name");
+                    } finally {
+                        releasePath(repoKey, uniqueFilePath);
+                    }
                 } else {
                     return createFile(repository, branch, filePath, content);
                 }
             case FAIL_IF_EXISTS:
-                if (fileExists(repository, branch, filePath)) {
+                if (fileExists(shas, filePath)) {
                     throw new IllegalStateException("File already exists: " + filePath);
                 }
                 return createFile(repository, branch, filePath, content);
@@ -216,17 +393,35 @@ public class GitHubService {
         }
     }
 
-    private String generateUniqueFilePathWithIncrement(GHRepository repository, String branch, String originalFilePath) throws IOException {
+    /**
+     * Premier suffixe libre (name-1, name-2, ...) calculé en mémoire à partir d'un seul listing.
+     * Le chemin choisi est réservé jusqu'à {@link #releasePath} : deux applies concurrents
+     * sur le même repository/branche ne choisissent jamais le même nom.
+     */
+    private String reserveUniquePath(String repoKey, Set<String> existingPaths, String originalFilePath) throws IOException {
         int lastDotIndex = originalFilePath.lastIndexOf('.');
         String baseName = (lastDotIndex == -1) ? originalFilePath : originalFilePath.substring(0, lastDotIndex);
         String extension = (lastDotIndex == -1) ? "" : originalFilePath.substring(lastDotIndex);
-        int counter = 1;
-        while (true) {
-            String newFilePath = baseName + "-" + counter + extension;
-            if (!fileExists(repository, branch, newFilePath)) return newFilePath;
-            counter++;
-            if (counter > 1000) throw new IOException("Unable to generate unique filename after 1000 attempts");
-        }
+
+        String[] picked = new String[1];
+        reservedPaths.compute(repoKey, (key, reserved) -> {
+            Set<String> taken = reserved != null ? reserved : new HashSet<>();
+            for (int counter = 1; counter <= 1000 && picked[0] == null; counter++) {
+                String newFilePath = baseName + "-" + counter + extension;
+                if (!existingPaths.contains(newFilePath) && !taken.contains(newFilePath)) picked[0] = newFilePath;
+            }
+            if (picked[0] != null) taken.add(picked[0]);
+            return taken.isEmpty() ? null : taken;
+        });
+        if (picked[0] == null) throw new IOException("Unable to generate unique filename after 1000 attempts");
+        return picked[0];
+    }
+
+    private void releasePath(String repoKey, String path) {
+        reservedPaths.computeIfPresent(repoKey, (key, reserved) -> {
+            reserved.remove(path);
+            return reserved.isEmpty() ? null : reserved;
+        });
     }
 
     private boolean directoryExistsRobust(GHRepository repository, String branch, String dirPath) {
@@ -238,30 +433,34 @@ public class GitHubService {
         }
     }
 
-    private void waitForPropagation() {
-        try { Thread.sleep(2000); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    /** Lecture après écriture : on attend que la branche pointe sur le commit créé, au lieu d'une pause fixe. */
+    private void waitForPropagation(GHRepository repository, String branch, String commitSha) throws IOException {
+        if (commitSha == null) return;
+        boolean visible = retryPolicy.await(
+                () -> commitSha.equals(repository.getRef("heads/" + branch).getObject().getSha()),
+                PROPAGATION_TIMEOUT_MS);
+        if (!visible) System.out.println("⚠️ Commit " + commitSha + " not yet visible on " + branch);
     }
 
     // updateFile(...)
-private PushResult updateFile(GHRepository repository, String branch, String filePath, String content) throws IOException {
+private PushResult updateFile(GHRepository repository, String branch, String filePath, String content, String existingSha) throws IOException {
     try {
-        GHContent existingContent = repository.getFileContent(filePath, branch);
-        String existing = existingContent.getContent();
-        if (content.equals(existing)) {
+        // même SHA de blob = même contenu : rien à télécharger pour le savoir
+        if (GitBlobSha.matches(existingSha, content)) {
             return new PushResult(null, filePath, PushAction.SKIPPED, "Content unchanged",
-                    null, existingContent.getSha());
+                    null, existingSha);
         }
         GHContentUpdateResponse response = repository.createContent()
                 .path(filePath)
                 .content(content)
                 .branch(branch)
                 .message("Update " + extractFileName(filePath))
-                .sha(existingContent.getSha())
+                .sha(existingSha)
                 .commit();
 
         String commitUrl = response.getCommit() != null ? response.getCommit().getHtmlUrl() : null;
         return new PushResult(response.getCommit().getSHA1(), filePath, PushAction.UPDATED, "File updated successfully",
-                commitUrl, existingContent.getSha());
+                commitUrl, existingSha);
     } catch (IOException e) {
         throw new IOException("Failed to update file " + filePath + ": " + e.getMessage(), e);
     }
@@ -328,24 +527,34 @@ private PushResult createFileViaRestApi(String repoFullName, String owner, Strin
         return message != null && (message.contains("already exists") || message.contains("422") || message.contains("name already exists on this branch"));
     }
 
-    private boolean fileExists(GHRepository repository, String branch, String filePath) {
-        try { repository.getFileContent(filePath, branch); return true; }
-        catch (IOException e) { return false; }
+    private boolean fileExists(Map<String, String> shas, String filePath) {
+        return shas.containsKey(filePath);
+    }
+
+    /** Fichiers du dossier parent de {@code filePath} (listing contents, SHA inclus, sans contenu). */
+    private Map<String, String> listFileShas(GHRepository repository, String branch, String filePath) throws IOException {
+        Map<String, String> shas = new HashMap<>();
+        try {
+            for (GHContent entry : repository.getDirectoryContent(RepoSnapshot.parentOf(filePath), branch)) {
+                if (entry.isFile()) shas.put(entry.getPath(), entry.getSha());
+            }
+        } catch (GHFileNotFoundException e) {
+            // dossier absent : aucun fichier existant
+        }
+        return shas;
     }
 
-    @FunctionalInterface
-    private interface RetryableOperation { PushResult execute() throws IOException; }
 
     // === REST helpers ===
-    public List<Map<String, Object>> getRepositoryContents(String repoUrl, String token, String path) {
+    /** Entrées (dossiers et fichiers) directement sous {@code path} ; vide si {@code path} est un fichier. */
+    public List<RepoSnapshot.Entry> getRepositoryContents(String repoUrl, String token, String path) {
         String apiUrl = repoUrl.replace("https://github.com", GITHUB_API_URL + "/repos") + "/contents/" + (path != null ? path : "");
-        HttpHeaders headers = createHeaders(token);
-        HttpEntity<String> entity = new HttpEntity<>(headers);
         try {
-            ResponseEntity<List> response = restTemplate.exchange(apiUrl, HttpMethod.GET, entity, List.class);
-            return response.getBody();
+            return restTemplate.execute(apiUrl, HttpMethod.GET,
+                    request -> request.getHeaders().putAll(createHeaders(token)),
+                    response -> GitTreeReader.readContents(response.getBody(), new GitTreeReader.Interner()));
         } catch (RestClientException e) {
-            throw new RuntimeException("Error while retrieving files: " + e.getMessage());
+            throw new RuntimeException("Error while retrieving files: " + e.getMessage(), e);
         }
     }
 
@@ -363,6 +572,41 @@ private PushResult createFileViaRestApi(String repoFullName, String owner, Strin
         }
     }
 
+    /** Contenu d'un blob git par SHA (git/blobs) — immuable, donc idéal derrière {@link GitBlobCache}. */
+    public String getBlobContent(String repoUrl, String token, String sha) {
+        String apiUrl = repoUrl.replace("https://github.com", GITHUB_API_URL + "/repos") + "/git/blobs/" + sha;
+        HttpHeaders headers = createHeaders(token);
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+        try {
+            ResponseEntity<Map> response = restTemplate.exchange(apiUrl, HttpMethod.GET, entity, Map.class);
+            Map<String, Object> blobData = response.getBody();
+            String encodedContent = (String) blobData.get("content");
+            return new String(Base64.getDecoder().decode(encodedContent.replaceAll("\\s", "")), StandardCharsets.UTF_8);
+        } catch (RestClientException e) {
+            throw new RuntimeException("Error while retrieving blob: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getBlobCacheStats() {
+        return blobCache.stats();
+    }
+
+    public Map<String, Object> getConditionalRequestStats() {
+        return conditionalRequests.stats();
+    }
+
+    public Map<String, Object> getClientCacheStats() {
+        return clients.stats();
+    }
+
+    public Map<String, Object> getRateLimitStats() {
+        return rateLimitGovernor.stats();
+    }
+
+    public Map<String, Object> getPermissionCacheStats() {
+        return permissions.stats();
+    }
+
     public List<Map<String, Object>> getUserRepositories(String token) {
         HttpHeaders headers = createHeaders(token);
         HttpEntity<String> entity = new HttpEntity<>(headers);
@@ -420,6 +664,23 @@ public static class PushResult {
 
     
 
+    /** Un fichier à inclure dans un commit groupé ({@link #pushFilesToGitHub}). */
+    public static class FileToPush {
+        private final String path;
+        private final String content;
+        private final FileHandlingStrategy strategy;
+
+        public FileToPush(String path, String content, FileHandlingStrategy strategy) {
+            this.path = path;
+            this.content = content;
+            this.strategy = strategy != null ? strategy : FileHandlingStrategy.UPDATE_IF_EXISTS;
+        }
+
+        public String getPath() { return path; }
+        public String getContent() { return content; }
+        public FileHandlingStrategy getStrategy() { return strategy; }
+    }
+
     public enum PushAction { CREATED, UPDATED, SKIPPED }
     public enum FileHandlingStrategy { UPDATE_IF_EXISTS, CREATE_NEW_ALWAYS, FAIL_IF_EXISTS }
    
@@ -435,10 +696,9 @@ public Optional<String> tryGetFileContent(String repoUrl, String token, String f
 public List<String> findComposeCandidatesAtRoot(String repoUrl, String token) {
     List<String> out = new ArrayList<>();
     try {
-        List<Map<String, Object>> root = getRepositoryContents(repoUrl, token, null);
-        if (root == null) return out;
-        for (Map<String, Object> f : root) {
-            String name = String.valueOf(f.get("name"));
+        List<RepoSnapshot.Entry> root = getRepositoryContents(repoUrl, token, null);
+        for (RepoSnapshot.Entry f : root) {
+            String name = f.getName();
             if ("docker-compose.yml".equals(name) || "docker-compose.yaml".equals(name) || "compose.yaml".equals(name)) {
                 out.add(name);
             }
@@ -450,9 +710,8 @@ public List<String> findComposeCandidatesAtRoot(String repoUrl, String token) {
 
 public Optional<String> getLatestCommitShaForPath(String token, String repoFullName, String branch, String path) {
     try {
-        GitHub gh = GitHub.connectUsingOAuth(token);
-        GHRepository repo = gh.getRepository(repoFullName);
-        
+        GHRepository repo = clients.repository(token, repoFullName);
+
         PagedIterable<GHCommit> commits = repo.queryCommits().from(branch).path(path).list();
         Iterator<GHCommit> it = commits.iterator();
         if (it.hasNext()) {
@@ -464,42 +723,160 @@ public Optional<String> getLatestCommitShaForPath(String token, String repoFullN
 
 
 public String getDefaultBranch(String token, String repoFullName) throws IOException {
-    GitHub gh = GitHub.connectUsingOAuth(token);
-    GHRepository repo = gh.getRepository(repoFullName);
-    return repo.getDefaultBranch();
+    return clients.repository(token, repoFullName).getDefaultBranch();
+}
+
+/**
+ * SHA du commit de tête d'une branche (null/vide = branche par défaut).
+ * Réponse réduite au SHA (media type "sha") et conditionnelle : un 304 ne consomme pas de quota.
+ */
+public String getBranchHeadSha(String repoUrl, String token, String branch) {
+    try {
+        String[] parts = repoUrl.replace("https://github.com/", "").split("/");
+        String ref = (branch == null || branch.isBlank()) ? "HEAD" : branch;
+
+        HttpHeaders headers = createHeaders(token);
+        headers.set("Accept", "application/vnd.github.sha");
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                String.format(GITHUB_API_URL + "/repos/%s/%s/commits/%s", parts[0], parts[1], ref),
+                HttpMethod.GET, entity, String.class);
+        return response.getBody() == null ? null : response.getBody().trim();
+    } catch (RestClientException e) {
+        throw new RuntimeException("Error fetching branch head: " + e.getMessage());
+    }
 }
 
-public List<String> getAllRepositoryFiles(String repoUrl, String token, String branch) {  
-    try {  
-        
-        String[] parts = repoUrl.replace("https://github.com/", "").split("/");  
-        String owner = parts[0];  
-        String repo = parts[1];  
-          
-       
-        String apiUrl = String.format("https://api.github.com/repos/%s/%s/git/trees/%s?recursive=1",   
-                                     owner, repo, branch);  
-          
-        HttpHeaders headers = createHeaders(token);  
-        HttpEntity<String> entity = new HttpEntity<>(headers);  
-          
-        ResponseEntity<Map> response = restTemplate.exchange(apiUrl, HttpMethod.GET, entity, Map.class);  
-          
-        List<String> files = new ArrayList<>();  
-        if (response.getBody() != null && response.getBody().containsKey("tree")) {  
-            List<Map<String, Object>> tree = (List<Map<String, Object>>) response.getBody().get("tree");  
-              
-            for (Map<String, Object> item : tree) {  
-                if ("blob".equals(item.get("type"))) { // Seulement les fichiers, pas les dossiers  
-                    files.add((String) item.get("path"));  
-                }  
-            }  
-        }  
-          
-        return files;  
-    } catch (RestClientException e) {  
-        throw new RuntimeException("Error fetching all repository files: " + e.getMessage());  
-    }  
+/**
+ * Chemins modifiés entre deux commits (API compare), renommages inclus sous leurs deux noms.
+ * Vide si le diff n'est pas exploitable tel quel : historique réécrit (head n'est pas un descendant
+ * de base), liste de fichiers tronquée par GitHub, ou erreur de l'API.
+ */
+public Optional<List<String>> getChangedPaths(String repoUrl, String token, String baseSha, String headSha) {
+    try {
+        String[] parts = repoUrl.replace("https://github.com/", "").split("/");
+        String apiUrl = String.format(GITHUB_API_URL + "/repos/%s/%s/compare/%s...%s",
+                parts[0], parts[1], baseSha, headSha);
+
+        HttpEntity<String> entity = new HttpEntity<>(createHeaders(token));
+        ResponseEntity<Map> response = restTemplate.exchange(apiUrl, HttpMethod.GET, entity, Map.class);
+        Map<String, Object> body = response.getBody();
+        if (body == null) return Optional.empty();
+
+        String status = (String) body.get("status");
+        if (!"ahead".equals(status) && !"identical".equals(status)) return Optional.empty();
+
+        List<Map<String, Object>> files = (List<Map<String, Object>>) body.getOrDefault("files", List.of());
+        if (files.size() >= COMPARE_MAX_FILES) return Optional.empty();
+
+        List<String> paths = new ArrayList<>();
+        for (Map<String, Object> f : files) {
+            paths.add((String) f.get("filename"));
+            if (f.get("previous_filename") != null) paths.add((String) f.get("previous_filename"));
+        }
+        return Optional.of(paths);
+    } catch (RestClientException e) {
+        return Optional.empty();
+    }
+}
+
+public List<String> getAllRepositoryFiles(String repoUrl, String token, String branch) {
+    return getRepositorySnapshot(repoUrl, token, branch).filePaths();
+}
+
+/**
+ * Construit un instantané de l'arbre complet du repository en UN seul appel
+ * (git/trees/{branch}?recursive=1). Branche null/vide = HEAD (branche par défaut).
+ * La réponse est lue en flux ({@link GitTreeReader}) ; si GitHub la tronque (très gros repository),
+ * l'arbre est reconstitué par sous-arbres récupérés en parallèle ({@link #walkTruncatedTree}).
+ */
+public RepoSnapshot getRepositorySnapshot(String repoUrl, String token, String branch) {
+    try {
+        String[] parts = repoUrl.replace("https://github.com/", "").split("/");
+        String owner = parts[0];
+        String repo = parts[1];
+        String ref = (branch == null || branch.isBlank()) ? "HEAD" : branch;
+
+        GitTreeReader.Interner names = new GitTreeReader.Interner();
+        GitTreeReader.Listing listing = fetchTree(owner, repo, token, ref, true, "", names);
+        List<RepoSnapshot.Entry> entries = listing.entries;
+        if (listing.truncated) {
+            System.out.println("⚠️ Arbre tronqué par GitHub pour " + owner + "/" + repo + "@" + ref + ", lecture par sous-arbres");
+            entries = walkTruncatedTree(owner, repo, token, ref, names);
+        }
+
+        return new RepoSnapshot(ref, entries,
+                entry -> blobCache.get(entry.getSha(), () -> getBlobContent(repoUrl, token, entry.getSha())));
+    } catch (RestClientException e) {
+        throw new RuntimeException("Error fetching all repository files: " + e.getMessage());
+    }
+}
+
+/**
+ * Arbre complet quand la réponse récursive est tronquée, niveau par niveau :
+ * on liste un niveau (non récursif), chaque sous-dossier est demandé récursivement en parallèle,
+ * et seuls ceux dont la réponse est encore tronquée sont redescendus d'un niveau.
+ */
+private List<RepoSnapshot.Entry> walkTruncatedTree(String owner, String repo, String token, String ref,
+                                                   GitTreeReader.Interner names) {
+    List<RepoSnapshot.Entry> out = new ArrayList<>();
+    List<RepoSnapshot.Entry> level = fetchTree(owner, repo, token, ref, false, "", names).entries;
+    while (!level.isEmpty()) {
+        List<RepoSnapshot.Entry> dirs = new ArrayList<>();
+        for (RepoSnapshot.Entry e : level) {
+            out.add(e);
+            if (e.isDirectory()) dirs.add(e);
+        }
+
+        List<GitTreeReader.Listing> subtrees = taskExecutor.invokeAll(token, dirs,
+                d -> fetchTree(owner, repo, token, d.getSha(), true, d.getPath(), names));
+        List<RepoSnapshot.Entry> stillTruncated = new ArrayList<>();
+        for (int i = 0; i < dirs.size(); i++) {
+            if (subtrees.get(i).truncated) stillTruncated.add(dirs.get(i));
+            else out.addAll(subtrees.get(i).entries);
+        }
+
+        List<GitTreeReader.Listing> children = taskExecutor.invokeAll(token, stillTruncated,
+                d -> fetchTree(owner, repo, token, d.getSha(), false, d.getPath(), names));
+        level = new ArrayList<>();
+        for (GitTreeReader.Listing c : children) level.addAll(c.entries);
+    }
+    return out;
+}
+
+/** Un appel git/trees lu en flux ; chemins préfixés par {@code prefix} (dossier de l'arbre demandé). */
+private GitTreeReader.Listing fetchTree(String owner, String repo, String token, String treeIsh,
+                                        boolean recursive, String prefix, GitTreeReader.Interner names) {
+    String apiUrl = String.format(GITHUB_API_URL + "/repos/%s/%s/git/trees/%s", owner, repo, treeIsh)
+            + (recursive ? "?recursive=1" : "");
+    return restTemplate.execute(apiUrl, HttpMethod.GET,
+            request -> request.getHeaders().putAll(createHeaders(token)),
+            response -> GitTreeReader.readTree(response.getBody(), prefix, names));
+}
+
+/**
+ * Télécharge l'archive tar.gz du repository à {@code branch} (null/vide = branche par défaut) et la lit
+ * au fil de l'eau : rien n'est écrit sur disque ni mis en tampon en entier, seuls les contenus des
+ * fichiers acceptés par {@code keep} (au plus {@code maxFileBytes} chacun) sont gardés en mémoire.
+ * Au-delà de {@code maxEntries} entrées ou de {@code maxRetainedBytes} de contenus gardés, la lecture
+ * échoue (mêmes limites que les archives envoyées).
+ */
+public ArchiveRepositorySource downloadTarball(String repoUrl, String token, String branch, Predicate<String> keep,
+                                               int maxFileBytes, int maxEntries, long maxRetainedBytes) {
+    String[] parts = repoUrl.replace("https://github.com/", "").split("/");
+    String owner = parts[0];
+    String repo = parts[1];
+    String ref = (branch == null || branch.isBlank()) ? "HEAD" : branch;
+    String apiUrl = String.format(GITHUB_API_URL + "/repos/%s/%s/tarball/%s", owner, repo, ref);
+    try {
+        return restTemplate.execute(apiUrl, HttpMethod.GET,
+                request -> request.getHeaders().putAll(createHeaders(token)),
+                response -> ArchiveRepositorySource.tar(owner + "/" + repo + "@" + ref, response.getBody(), true, keep,
+                        maxFileBytes, maxEntries, maxRetainedBytes));
+    } catch (RestClientException | IllegalArgumentException e) {
+        throw new RuntimeException("Error downloading repository archive: " + e.getMessage());
+    }
 }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécution parallèle bornée des appels GitHub d'une même analyse.
+ *  - pool partagé de taille fixe (github.concurrency.threads)
+ *  - au plus github.concurrency.per-token tâches en vol par token, toutes requêtes confondues,
+ *    réduit encore quand le budget de rate limit baisse ({@link GitHubRateLimitGovernor#parallelism})
+ *  - à la première erreur, les tâches sœurs sont annulées et l'erreur est relancée
+ * Les tâches ne doivent pas elles-mêmes appeler {@link #invokeAll} pour le même token.
+ */
+@Component
+public class GitHubTaskExecutor {
+
+    @FunctionalInterface
+    public interface Task<T, R> { R run(T item) throws Exception; }
+
+    private final GitHubRateLimitGovernor rateLimitGovernor;
+    private final int perToken;
+    private final ExecutorService pool;
+    private final Map<String, Semaphore> tokenPermits = new ConcurrentHashMap<>();
+
+    public GitHubTaskExecutor(GitHubRateLimitGovernor rateLimitGovernor,
+                              @Value("${github.concurrency.threads:16}") int threads,
+                              @Value("${github.concurrency.per-token:6}") int perToken) {
+        this.rateLimitGovernor = rateLimitGovernor;
+        this.perToken = Math.max(1, perToken);
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads), daemonThreads());
+    }
+
+    /**
+     * Applique {@code task} à chaque élément en parallèle et renvoie les résultats dans l'ordre
+     * de {@code items}. Avec un seul élément (ou une seule permission), tout s'exécute sur le thread appelant,
+     * une tâche à la fois, chacune sous une permission du token comme sur le pool.
+     */
+    public <T, R> List<R> invokeAll(String token, List<T> items, Task<T, R> task) {
+        Semaphore permits = tokenPermits.computeIfAbsent(GitHubTokens.fingerprint(token), k -> new Semaphore(perToken, true));
+        int limit = Math.min(items.size(), rateLimitGovernor.parallelism(token, perToken));
+        if (limit <= 1) {
+            List<R> out = new ArrayList<>(items.size());
+            for (T item : items) out.add(runInline(permits, task, item));
+            return out;
+        }
+
+        CompletionService<Void> completion = new ExecutorCompletionService<>(pool);
+        List<Submitted> submitted = new ArrayList<>(items.size());
+        Object[] results = new Object[items.size()];
+        int next = 0;
+        int running = 0;
+
+        try {
+            while (next < items.size() || running > 0) {
+                while (next < items.size() && running < limit) {
+                    permits.acquire();
+                    Submitted s = new Submitted(permits);
+                    int index = next++;
+                    T item = items.get(index);
+                    try {
+                        s.future = completion.submit(() -> {
+                            if (!s.claim()) return null;
+                            try {
+                                results[index] = task.run(item);
+                            } finally {
+                                s.release();
+                            }
+                            return null;
+                        });
+                    } catch (RuntimeException e) {
+                        s.release();
+                        throw e;
+                    }
+                    submitted.add(s);
+                    running++;
+                }
+                completion.take().get();
+                running--;
+            }
+        } catch (ExecutionException e) {
+            cancel(submitted);
+            throw propagate(e.getCause());
+        } catch (InterruptedException e) {
+            cancel(submitted);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for GitHub tasks", e);
+        } catch (RuntimeException e) {
+            cancel(submitted);
+            throw e;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<R> out = (List<R>) Arrays.asList(results);
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static void cancel(List<Submitted> submitted) {
+        for (Submitted s : submitted) {
+            s.future.cancel(true);
+            // tâche jamais démarrée : sa permission ne sera pas rendue par le worker
+            if (s.claim()) s.release();
+        }
+    }
+
+    private static <T, R> R runInline(Semaphore permits, Task<T, R> task, T item) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for GitHub tasks", e);
+        }
+        try {
+            return task.run(item);
+        } catch (Exception e) {
+            throw propagate(e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        if (cause instanceof RuntimeException) return (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        return new RuntimeException(cause.getMessage(), cause);
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread t = new Thread(runnable, "github-io-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /** Une tâche soumise : la permission du token est rendue une seule fois, par le worker ou par l'annulation. */
+    private static final class Submitted {
+        private final Semaphore permits;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private Future<Void> future;
+
+        private Submitted(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) permits.release();
+        }
+    }
+}
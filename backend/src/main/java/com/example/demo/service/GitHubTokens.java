@@ -0,0 +1,32 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Empreinte stable d'un token GitHub, utilisée comme clé de cache
+ * (le token lui-même n'est jamais conservé en clé ni exposé dans les métriques).
+ */
+final class GitHubTokens {
+
+    private GitHubTokens() {}
+
+    /** Extrait le token d'un en-tête Authorization ("Bearer x" côté RestTemplate, "token x" côté kohsuke). */
+    static String fromAuthorization(String header) {
+        if (header == null) return null;
+        int space = header.indexOf(' ');
+        return space < 0 ? header : header.substring(space + 1).trim();
+    }
+
+    static String fingerprint(String token) {
+        if (token == null) return "anonymous";
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lecture en flux (JsonParser) des listings GitHub : git/trees et contents.
+ * Chaque élément devient directement un {@link RepoSnapshot.Entry} (chemin, type, sha, taille),
+ * sans Map intermédiaire par élément ni liste brute de la réponse entière ; les champs inutiles
+ * (url, mode, download_url, _links...) sont sautés sans être matérialisés.
+ * Les noms sont partagés via un {@link Interner} : dans un grand monorepo, un même nom de fichier
+ * (pom.xml, package.json, index.ts...) n'est gardé qu'une fois pour toutes ses entrées.
+ */
+final class GitTreeReader {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private GitTreeReader() {}
+
+    /** Résultat d'un appel git/trees. */
+    static final class Listing {
+        final List<RepoSnapshot.Entry> entries;
+        final boolean truncated;
+
+        Listing(List<RepoSnapshot.Entry> entries, boolean truncated) {
+            this.entries = entries;
+            this.truncated = truncated;
+        }
+    }
+
+    /** Pool de noms partagé par les lectures d'un même arbre (sûr entre threads). */
+    static final class Interner {
+        private final Map<String, String> pool = new ConcurrentHashMap<>();
+
+        String intern(String s) {
+            String existing = pool.putIfAbsent(s, s);
+            return existing != null ? existing : s;
+        }
+    }
+
+    /**
+     * Réponse git/trees : { sha, tree: [ { path, type: blob|tree|commit, sha, size } ], truncated }.
+     * Les chemins sont relatifs à l'arbre demandé : {@code prefix} (dossier de cet arbre) y est ajouté.
+     * Les sous-modules (commit) sont ignorés.
+     */
+    static Listing readTree(InputStream in, String prefix, Interner interner) throws IOException {
+        List<RepoSnapshot.Entry> entries = new ArrayList<>();
+        boolean truncated = false;
+        try (JsonParser p = JSON.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("Unexpected git/trees response");
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("tree".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        RepoSnapshot.Entry e = readItem(p, prefix, interner, "tree", "blob");
+                        if (e != null) entries.add(e);
+                    }
+                } else if ("truncated".equals(field)) {
+                    truncated = value == JsonToken.VALUE_TRUE;
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return new Listing(entries, truncated);
+    }
+
+    /** Réponse contents d'un dossier : [ { name, path, sha, size, type: file|dir|symlink|submodule } ]. */
+    static List<RepoSnapshot.Entry> readContents(InputStream in, Interner interner) throws IOException {
+        List<RepoSnapshot.Entry> entries = new ArrayList<>();
+        try (JsonParser p = JSON.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_ARRAY) return entries; // chemin d'un fichier : pas un listing
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                RepoSnapshot.Entry e = readItem(p, "", interner, "dir", "file");
+                if (e != null) entries.add(e);
+            }
+        }
+        return entries;
+    }
+
+    /** Un élément, le parser étant sur son START_OBJECT ; null si ce n'est ni un dossier ni un fichier. */
+    private static RepoSnapshot.Entry readItem(JsonParser p, String prefix, Interner interner,
+                                               String dirType, String fileType) throws IOException {
+        String path = null;
+        String type = null;
+        String sha = null;
+        long size = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "path": path = p.getText(); break;
+                case "type": type = p.getText(); break;
+                case "sha": sha = p.getText(); break;
+                case "size": size = p.getValueAsLong(0); break;
+                default: p.skipChildren();
+            }
+        }
+        if (path == null) return null;
+        String kind = dirType.equals(type) ? RepoSnapshot.TYPE_DIR : fileType.equals(type) ? RepoSnapshot.TYPE_FILE : null;
+        if (kind == null) return null;
+        String full = prefix.isEmpty() ? path : prefix + "/" + path;
+        String name = interner.intern(full.substring(full.lastIndexOf('/') + 1));
+        return new RepoSnapshot.Entry(full, name, kind, sha, size);
+    }
+}
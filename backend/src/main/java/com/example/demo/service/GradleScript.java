@@ -0,0 +1,486 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lecture légère d'un script Gradle (DSL Groovy ou Kotlin) : un lexer qui saute commentaires et
+ * chaînes, puis un seul parcours des jetons qui relève plugins, version de Java (toolchain,
+ * sourceCompatibility...), dépendances et, pour settings.gradle(.kts), les projets inclus.
+ * Ce qui est déclaré dans {@code subprojects {}} / {@code allprojects {}} est gardé à part pour être
+ * appliqué aux sous-projets ({@link #withRoot}). Pas d'évaluation du script : les valeurs calculées
+ * (variables, ${...}) sont ignorées.
+ */
+public final class GradleScript {
+
+    private static final Pattern COORDINATE = Pattern.compile("([^:\\s'\"$]+):([^:\\s'\"$]+)(?::([^:\\s'\"]+))?.*");
+    private static final Pattern JAVA_VERSION = Pattern.compile("(?:VERSION_)?(?:1[._])?(\\d+)(?:[._]\\d+)*");
+    private static final String SPRING_BOOT_PLUGIN = "org.springframework.boot";
+    private static final Set<String> ANDROID_PLUGINS = Set.of(
+            "com.android.application", "com.android.library", "kotlin-android", "org.jetbrains.kotlin.android");
+    private static final Set<String> PLUGIN_KEYWORDS = Set.of("id", "version", "apply", "true", "false", "kotlin", "alias");
+
+    /** Déclarations d'une portée du script : le projet lui-même, subprojects {} ou allprojects {}. */
+    private static final class Declarations {
+        private final Map<String, String> plugins = new LinkedHashMap<>();   // id -> version (ou null), plugins appliqués
+        private final Map<String, String> pluginVersions = new LinkedHashMap<>(); // y compris "apply false"
+        private final List<String> dependencies = new ArrayList<>();          // "group:name[:version]"
+        private final List<String> classpath = new ArrayList<>();             // buildscript { dependencies { classpath ... } }
+        private String toolchain;
+        private String sourceCompatibility;
+        private String targetCompatibility;
+        private boolean androidBlock;
+
+        private void addAll(Declarations other) {
+            other.plugins.forEach(plugins::putIfAbsent);
+            other.pluginVersions.forEach(pluginVersions::putIfAbsent);
+            dependencies.addAll(other.dependencies);
+            classpath.addAll(other.classpath);
+            if (toolchain == null) toolchain = other.toolchain;
+            if (sourceCompatibility == null) sourceCompatibility = other.sourceCompatibility;
+            if (targetCompatibility == null) targetCompatibility = other.targetCompatibility;
+            androidBlock |= other.androidBlock;
+        }
+    }
+
+    private final Declarations own = new Declarations();
+    private final Declarations shared = new Declarations();  // appliqué aux sous-projets
+    private final List<String> includes = new ArrayList<>();
+    private final Map<String, String> projectDirs = new LinkedHashMap<>();
+
+    private GradleScript() {}
+
+    /** Analyse le script ; un script mal formé donne simplement moins d'informations. */
+    public static GradleScript parse(String text) {
+        GradleScript script = new GradleScript();
+        if (text == null) return script;
+        Parser parser = new Parser(script, Lexer.tokenize(text));
+        parser.run();
+        // allprojects {} vaut pour le projet lui-même comme pour ses sous-projets
+        script.own.addAll(parser.allProjects);
+        script.shared.addAll(parser.subProjects);
+        script.shared.addAll(parser.allProjects);
+        return script;
+    }
+
+    /**
+     * Script effectif d'un sous-projet : ses propres déclarations, complétées par les blocs
+     * subprojects / allprojects du script racine (les siennes l'emportent).
+     */
+    public GradleScript withRoot(GradleScript root) {
+        if (root == null) return this;
+        GradleScript merged = new GradleScript();
+        merged.own.addAll(own);
+        merged.own.addAll(root.shared);
+        // version déclarée à la racine (id '...' version 'x' apply false), plugin appliqué sans version ici
+        root.own.pluginVersions.forEach(merged.own.pluginVersions::putIfAbsent);
+        merged.shared.addAll(shared);
+        merged.includes.addAll(includes);
+        merged.projectDirs.putAll(projectDirs);
+        return merged;
+    }
+
+    public Set<String> getPlugins() {
+        return Collections.unmodifiableSet(own.plugins.keySet());
+    }
+
+    public boolean hasPlugin(String id) {
+        return own.plugins.containsKey(id);
+    }
+
+    /** Coordonnées des dépendances déclarées ("group:name[:version]"), hors buildscript. */
+    public List<String> getDependencies() {
+        return Collections.unmodifiableList(own.dependencies);
+    }
+
+    /** Coordonnées "group:name", une par ligne (entrée des règles de détection). */
+    public String dependencyCoordinates() {
+        StringBuilder out = new StringBuilder();
+        for (String d : own.dependencies) {
+            Matcher m = COORDINATE.matcher(d);
+            if (m.matches()) out.append(m.group(1)).append(':').append(m.group(2)).append('\n');
+        }
+        return out.toString();
+    }
+
+    public boolean isAndroid() {
+        if (own.androidBlock) return true;
+        for (String id : own.plugins.keySet()) {
+            if (ANDROID_PLUGINS.contains(id)) return true;
+        }
+        return false;
+    }
+
+    /** Plugin org.springframework.boot appliqué, ou dépendance Spring Boot déclarée. */
+    public boolean usesSpringBoot() {
+        if (own.plugins.containsKey(SPRING_BOOT_PLUGIN)) return true;
+        for (String d : own.dependencies) {
+            if (d.startsWith(SPRING_BOOT_PLUGIN + ":") || d.contains("spring-boot-starter")) return true;
+        }
+        return false;
+    }
+
+    /** Version majeure de Java : toolchain (languageVersion, jvmToolchain), puis source/targetCompatibility. */
+    public String getJavaVersion() {
+        for (String candidate : new String[] {own.toolchain, own.sourceCompatibility, own.targetCompatibility}) {
+            if (candidate == null) continue;
+            Matcher m = JAVA_VERSION.matcher(candidate.trim());
+            if (m.matches()) return m.group(1);
+        }
+        return null;
+    }
+
+    /** Version du plugin Spring Boot (bloc plugins ou classpath du buildscript), ou du BOM importé. Null si inconnue. */
+    public String getSpringBootVersion() {
+        List<String> candidates = new ArrayList<>();
+        candidates.add(own.pluginVersions.get(SPRING_BOOT_PLUGIN));
+        for (String c : own.classpath) {
+            Matcher m = COORDINATE.matcher(c);
+            if (m.matches() && "spring-boot-gradle-plugin".equals(m.group(2))) candidates.add(m.group(3));
+        }
+        for (String d : own.dependencies) {
+            Matcher m = COORDINATE.matcher(d);
+            if (m.matches() && "spring-boot-dependencies".equals(m.group(2))) candidates.add(m.group(3));
+        }
+        for (String v : candidates) {
+            if (v != null && !v.isEmpty() && Character.isDigit(v.charAt(0))) return v;
+        }
+        return null;
+    }
+
+    /** Dossiers des projets inclus par un settings.gradle(.kts), relatifs au dossier du settings. */
+    public List<String> getIncludedProjectDirs() {
+        List<String> out = new ArrayList<>();
+        for (String projectPath : includes) {
+            String dir = projectDirs.get(projectPath);
+            if (dir == null) dir = projectPath.replace(':', '/');
+            dir = RepoSnapshot.normalize(dir);
+            if (!dir.isEmpty() && !out.contains(dir)) out.add(dir);
+        }
+        return out;
+    }
+
+    // ---------- lexer ----------
+
+    enum Kind { IDENT, STRING, NUMBER, PUNCT }
+
+    static final class Token {
+        final Kind kind;
+        final String text;
+
+        Token(Kind kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+
+        boolean isPunct(char c) { return kind == Kind.PUNCT && text.length() == 1 && text.charAt(0) == c; }
+        boolean isIdent(String t) { return kind == Kind.IDENT && text.equals(t); }
+    }
+
+    static final class Lexer {
+
+        static List<Token> tokenize(String s) {
+            List<Token> out = new ArrayList<>();
+            int i = 0;
+            int n = s.length();
+            while (i < n) {
+                char c = s.charAt(i);
+                if (Character.isWhitespace(c) || c == ';') {
+                    i++;
+                } else if (c == '/' && i + 1 < n && s.charAt(i + 1) == '/') {
+                    while (i < n && s.charAt(i) != '\n') i++;
+                } else if (c == '/' && i + 1 < n && s.charAt(i + 1) == '*') {
+                    int end = s.indexOf("*/", i + 2);
+                    i = end < 0 ? n : end + 2;
+                } else if (c == '"' || c == '\'') {
+                    i = readString(s, i, out);
+                } else if (c == '`') {
+                    int end = s.indexOf('`', i + 1);
+                    if (end < 0) end = n;
+                    out.add(new Token(Kind.IDENT, s.substring(i + 1, end)));
+                    i = Math.min(n, end + 1);
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    int start = i;
+                    i++;
+                    while (i < n) {
+                        char d = s.charAt(i);
+                        if (Character.isJavaIdentifierPart(d)) {
+                            i++;
+                        } else if (d == '.' && i + 1 < n && Character.isJavaIdentifierStart(s.charAt(i + 1))) {
+                            i += 2;
+                        } else {
+                            break;
+                        }
+                    }
+                    out.add(new Token(Kind.IDENT, s.substring(start, i)));
+                } else if (Character.isDigit(c)) {
+                    int start = i;
+                    while (i < n && (Character.isDigit(s.charAt(i)) || s.charAt(i) == '.' || s.charAt(i) == '_')) i++;
+                    out.add(new Token(Kind.NUMBER, s.substring(start, i)));
+                } else {
+                    out.add(new Token(Kind.PUNCT, String.valueOf(c)));
+                    i++;
+                }
+            }
+            return out;
+        }
+
+        /** Chaîne simple, double ou triple ; les gabarits ${...} sont sautés en suivant les accolades. */
+        private static int readString(String s, int i, List<Token> out) {
+            char quote = s.charAt(i);
+            boolean triple = s.startsWith(String.valueOf(quote).repeat(3), i);
+            int start = i + (triple ? 3 : 1);
+            int j = start;
+            int n = s.length();
+            StringBuilder value = new StringBuilder();
+            while (j < n) {
+                char c = s.charAt(j);
+                if (triple ? s.startsWith(String.valueOf(quote).repeat(3), j) : c == quote) break;
+                if (!triple && c == '\n') break; // chaîne non terminée : on s'arrête à la fin de ligne
+                if (c == '\\' && j + 1 < n) {
+                    value.append(s.charAt(j + 1));
+                    j += 2;
+                    continue;
+                }
+                if (c == '$' && quote == '"' && j + 1 < n && s.charAt(j + 1) == '{') {
+                    int depth = 0;
+                    int k = j + 1;
+                    for (; k < n; k++) {
+                        if (s.charAt(k) == '{') depth++;
+                        else if (s.charAt(k) == '}' && --depth == 0) break;
+                    }
+                    value.append(s, j, Math.min(n, k + 1));
+                    j = k + 1;
+                    continue;
+                }
+                value.append(c);
+                j++;
+            }
+            out.add(new Token(Kind.STRING, value.toString()));
+            return Math.min(n, j + (triple ? 3 : 1));
+        }
+    }
+
+    // ---------- parcours des jetons ----------
+
+    private static final class Parser {
+        private final GradleScript script;
+        private final List<Token> tokens;
+        private final List<String> blocks = new ArrayList<>();
+        private final Declarations subProjects = new Declarations();
+        private final Declarations allProjects = new Declarations();
+
+        Parser(GradleScript script, List<Token> tokens) {
+            this.script = script;
+            this.tokens = tokens;
+        }
+
+        void run() {
+            for (int i = 0; i < tokens.size(); i++) {
+                Token t = tokens.get(i);
+                if (t.isPunct('{')) {
+                    blocks.add(blockName(i));
+                    if (blocks.size() == 1 && "android".equals(blocks.get(0))) script.own.androidBlock = true;
+                    continue;
+                }
+                if (t.isPunct('}')) {
+                    if (!blocks.isEmpty()) blocks.remove(blocks.size() - 1);
+                    continue;
+                }
+                if (t.kind != Kind.IDENT) continue;
+
+                Declarations target = blocks.contains("allprojects") ? allProjects
+                        : blocks.contains("subprojects") ? subProjects : script.own;
+                String block = blocks.isEmpty() ? "" : blocks.get(blocks.size() - 1);
+
+                if ("plugins".equals(block)) {
+                    i = plugin(i, target);
+                } else if ("dependencies".equals(block)) {
+                    dependency(i, target, blocks.contains("buildscript"));
+                } else if (t.text.equals("apply")) {
+                    applyPlugin(i, target);
+                } else if (t.text.equals("include") && blocks.isEmpty()) {
+                    include(i);
+                } else if (t.text.equals("project") && blocks.isEmpty()) {
+                    projectDir(i);
+                } else {
+                    javaVersion(i, target);
+                }
+            }
+        }
+
+        /** Nom du bloc ouvert en i : identifiant juste avant, ou avant la parenthèse correspondante. */
+        private String blockName(int i) {
+            int j = i - 1;
+            if (j >= 0 && tokens.get(j).isPunct(')')) {
+                int depth = 0;
+                for (; j >= 0; j--) {
+                    if (tokens.get(j).isPunct(')')) depth++;
+                    else if (tokens.get(j).isPunct('(') && --depth == 0) break;
+                }
+                j--;
+            }
+            if (j >= 0 && tokens.get(j).kind == Kind.IDENT) {
+                String name = tokens.get(j).text;
+                return name.substring(name.lastIndexOf('.') + 1);
+            }
+            return "";
+        }
+
+        private Token at(int i) {
+            return i >= 0 && i < tokens.size() ? tokens.get(i) : new Token(Kind.PUNCT, "");
+        }
+
+        /** Premier jeton chaîne en i, éventuellement précédé d'une parenthèse ouvrante ; -1 sinon. */
+        private int stringAt(int i) {
+            if (at(i).isPunct('(')) i++;
+            return at(i).kind == Kind.STRING ? i : -1;
+        }
+
+        private int plugin(int i, Declarations target) {
+            Token t = tokens.get(i);
+            String id = null;
+            int j = i;
+            if (t.text.equals("id")) {
+                int s = stringAt(i + 1);
+                if (s < 0) return i;
+                id = tokens.get(s).text;
+                j = s;
+            } else if (t.text.equals("kotlin")) {
+                int s = stringAt(i + 1);
+                if (s < 0) return i;
+                id = "org.jetbrains.kotlin." + tokens.get(s).text;
+                j = s;
+            } else if (t.text.equals("alias")) {
+                // catalogue de versions : alias(libs.plugins.spring.boot)
+                Token ref = at(i + 1).isPunct('(') ? at(i + 2) : at(i + 1);
+                if (ref.kind != Kind.IDENT) return i;
+                String lower = ref.text.toLowerCase();
+                id = lower.contains("spring.boot") || lower.contains("springboot") ? SPRING_BOOT_PLUGIN : "alias:" + ref.text;
+                j = at(i + 1).isPunct('(') ? i + 2 : i + 1;
+            } else if (!PLUGIN_KEYWORDS.contains(t.text) && !at(i + 1).isPunct('(') && !at(i + 1).isPunct('.')) {
+                id = t.text; // java, application, `java-library`...
+            }
+            if (id == null) return i;
+            if (at(j + 1).isPunct(')')) j++;
+
+            String version = null;
+            boolean applied = true;
+            if (at(j + 1).isIdent("version")) {
+                int s = stringAt(j + 2);
+                if (s >= 0) {
+                    version = tokens.get(s).text;
+                    j = at(s + 1).isPunct(')') ? s + 1 : s;
+                }
+            }
+            if (at(j + 1).isIdent("apply")) {
+                int k = at(j + 2).isPunct('(') ? j + 3 : j + 2;
+                if (at(k).isIdent("false")) applied = false;
+            }
+            target.pluginVersions.putIfAbsent(id, version);
+            if (applied) target.plugins.putIfAbsent(id, version);
+            return j;
+        }
+
+        /** apply plugin: 'x' (Groovy) ou apply(plugin = "x") (Kotlin). */
+        private void applyPlugin(int i, Declarations target) {
+            int j = at(i + 1).isPunct('(') ? i + 2 : i + 1;
+            if (!at(j).isIdent("plugin")) return;
+            if (!at(j + 1).isPunct(':') && !at(j + 1).isPunct('=')) return;
+            if (at(j + 2).kind == Kind.STRING) target.plugins.putIfAbsent(at(j + 2).text, null);
+        }
+
+        /** implementation 'g:a:v', implementation("g:a:v"), platform(...), group: 'g', name: 'a'... */
+        private void dependency(int i, Declarations target, boolean buildscript) {
+            List<String> into = buildscript ? target.classpath : target.dependencies;
+            int j = i + 1;
+            if (at(j).isPunct('(')) j++;
+            if (at(j).isIdent("platform") || at(j).isIdent("enforcedPlatform")) {
+                j++;
+                if (at(j).isPunct('(')) j++;
+            }
+            if (at(j).kind == Kind.STRING) {
+                if (COORDINATE.matcher(at(j).text).matches()) into.add(at(j).text);
+                return;
+            }
+            if (at(j).isIdent("group")) {
+                String group = namedArgument(j);
+                String name = null;
+                for (int k = j + 1; k < Math.min(tokens.size(), j + 12); k++) {
+                    if (at(k).isIdent("name")) {
+                        name = namedArgument(k);
+                        break;
+                    }
+                }
+                if (group != null && name != null) into.add(group + ":" + name);
+            }
+        }
+
+        private String namedArgument(int i) {
+            if (!at(i + 1).isPunct(':') && !at(i + 1).isPunct('=')) return null;
+            return at(i + 2).kind == Kind.STRING ? at(i + 2).text : null;
+        }
+
+        /** include 'a', ':b:c' / include("a", "b") */
+        private void include(int i) {
+            int j = i + 1;
+            if (at(j).isPunct('(')) j++;
+            while (at(j).kind == Kind.STRING) {
+                String path = at(j).text;
+                script.includes.add(path.startsWith(":") ? path.substring(1) : path);
+                if (!at(j + 1).isPunct(',')) break;
+                j += 2;
+            }
+        }
+
+        /** project(':x').projectDir = file('dir') */
+        private void projectDir(int i) {
+            int s = stringAt(i + 1);
+            if (s < 0 || !at(s + 1).isPunct(')') || !at(s + 2).isPunct('.') || !at(s + 3).isIdent("projectDir")) return;
+            int j = s + 4;
+            if (!at(j).isPunct('=')) return;
+            if (!at(j + 1).isIdent("file")) return;
+            int d = stringAt(j + 2);
+            if (d < 0) return;
+            String path = tokens.get(s).text;
+            script.projectDirs.put(path.startsWith(":") ? path.substring(1) : path, tokens.get(d).text);
+        }
+
+        private void javaVersion(int i, Declarations target) {
+            String name = tokens.get(i).text;
+            String simple = name.substring(name.lastIndexOf('.') + 1);
+            if (simple.equals("sourceCompatibility") || simple.equals("targetCompatibility")) {
+                int j = i + 1;
+                if (at(j).isPunct('=')) j++;
+                String value = versionValue(j);
+                if (value == null) return;
+                if (simple.equals("sourceCompatibility")) {
+                    if (target.sourceCompatibility == null) target.sourceCompatibility = value;
+                } else if (target.targetCompatibility == null) {
+                    target.targetCompatibility = value;
+                }
+            } else if (name.endsWith("JavaLanguageVersion.of") || name.equals("jvmToolchain")) {
+                String value = versionValue(at(i + 1).isPunct('(') ? i + 2 : i + 1);
+                if (value != null && target.toolchain == null) target.toolchain = value;
+            }
+        }
+
+        /** '17', 17, JavaVersion.VERSION_17, JavaVersion.toVersion(17) */
+        private String versionValue(int j) {
+            Token v = at(j);
+            if (v.kind == Kind.STRING || v.kind == Kind.NUMBER) return v.text;
+            if (v.kind == Kind.IDENT && v.text.startsWith("JavaVersion.VERSION_")) return v.text.substring("JavaVersion.".length());
+            if (v.isIdent("JavaVersion.toVersion")) {
+                Token arg = at(at(j + 1).isPunct('(') ? j + 2 : j + 1);
+                if (arg.kind == Kind.STRING || arg.kind == Kind.NUMBER) return arg.text;
+            }
+            return null;
+        }
+    }
+}
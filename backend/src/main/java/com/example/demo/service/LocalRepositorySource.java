@@ -0,0 +1,72 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checkout local (ou miroir auto-hébergé monté sur disque) : l'arbre est relevé en un parcours
+ * du système de fichiers, chaque contenu est lu directement à la demande. Aucun appel réseau.
+ * Le dossier .git et les liens symboliques (qui pourraient sortir du checkout) sont ignorés.
+ */
+public class LocalRepositorySource implements RepositorySource {
+
+    private final Path root;
+
+    public LocalRepositorySource(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        if (!Files.isDirectory(this.root)) {
+            throw new IllegalArgumentException("Not a directory: " + root);
+        }
+    }
+
+    @Override
+    public RepoSnapshot snapshot() {
+        List<RepoSnapshot.Entry> entries = new ArrayList<>();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (dir.equals(root)) return FileVisitResult.CONTINUE;
+                    if (".git".equals(dir.getFileName().toString())) return FileVisitResult.SKIP_SUBTREE;
+                    entries.add(new RepoSnapshot.Entry(relative(dir), RepoSnapshot.TYPE_DIR, null, 0));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        entries.add(new RepoSnapshot.Entry(relative(file), RepoSnapshot.TYPE_FILE, null, attrs.size()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Error while listing local repository " + root + ": " + e.getMessage(), e);
+        }
+        return new RepoSnapshot("local", entries, this::load);
+    }
+
+    @Override
+    public String describe() {
+        return root.toString();
+    }
+
+    private String load(RepoSnapshot.Entry entry) {
+        try {
+            return new String(Files.readAllBytes(root.resolve(entry.getPath())), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Error while reading local file " + entry.getPath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private String relative(Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Automate d'Aho-Corasick sur des marqueurs littéraux ASCII : un seul parcours du texte
+ * signale tous les marqueurs présents, quel que soit leur nombre.
+ * Les liens d'échec sont résolus à la construction (table de transitions complète),
+ * chaque caractère lu coûte donc une simple lecture de tableau.
+ */
+final class MarkerAutomaton {
+
+    private static final int ALPHABET = 128;
+    private static final int[] NONE = new int[0];
+
+    private final boolean ignoreCase;
+    private final int[][] next;     // état x caractère -> état suivant
+    private final int[][] outputs;  // identifiants des marqueurs qui se terminent dans l'état
+
+    /**
+     * @param markers    marqueurs à reconnaître (ASCII, non vides)
+     * @param ids        identifiant signalé pour chaque marqueur (même ordre que {@code markers})
+     * @param ignoreCase comparaison insensible à la casse (équivalent d'un {@code toLowerCase().contains(...)})
+     */
+    MarkerAutomaton(List<String> markers, int[] ids, boolean ignoreCase) {
+        if (markers.size() != ids.length) throw new IllegalArgumentException("markers and ids must have the same size");
+        this.ignoreCase = ignoreCase;
+
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> found = new ArrayList<>();
+        addState(trie, found);
+
+        for (int i = 0; i < markers.size(); i++) {
+            String marker = markers.get(i);
+            if (marker == null || marker.isEmpty()) throw new IllegalArgumentException("Empty marker");
+            int state = 0;
+            for (int k = 0; k < marker.length(); k++) {
+                char c = marker.charAt(k);
+                if (c >= ALPHABET) throw new IllegalArgumentException("Non-ASCII marker: " + marker);
+                if (ignoreCase) c = Character.toLowerCase(c);
+                if (trie.get(state)[c] < 0) trie.get(state)[c] = addState(trie, found);
+                state = trie.get(state)[c];
+            }
+            found.get(state).add(ids[i]);
+        }
+
+        // parcours en largeur : le lien d'échec d'un état est toujours moins profond que lui
+        int[] fail = new int[trie.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        int[] root = trie.get(0);
+        for (int c = 0; c < ALPHABET; c++) {
+            if (root[c] < 0) root[c] = 0;
+            else queue.add(root[c]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            found.get(state).addAll(found.get(fail[state]));
+            int[] row = trie.get(state);
+            int[] fallback = trie.get(fail[state]);
+            for (int c = 0; c < ALPHABET; c++) {
+                if (row[c] < 0) {
+                    row[c] = fallback[c];
+                } else {
+                    fail[row[c]] = fallback[c];
+                    queue.add(row[c]);
+                }
+            }
+        }
+
+        this.next = trie.toArray(new int[0][]);
+        this.outputs = new int[found.size()][];
+        for (int s = 0; s < found.size(); s++) {
+            List<Integer> matched = found.get(s);
+            outputs[s] = matched.isEmpty() ? NONE : matched.stream().distinct().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /** État initial (aucun caractère lu). */
+    int start() {
+        return 0;
+    }
+
+    /** Transition sur un caractère ; un caractère hors ASCII ne peut appartenir à aucun marqueur. */
+    int step(int state, char c) {
+        if (ignoreCase) c = Character.toLowerCase(c);
+        return c < ALPHABET ? next[state][c] : 0;
+    }
+
+    /** Marqueurs qui se terminent sur l'état courant. */
+    int[] matchesAt(int state) {
+        return outputs[state];
+    }
+
+    private static int addState(List<int[]> trie, List<List<Integer>> found) {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        trie.add(row);
+        found.add(new ArrayList<>());
+        return trie.size() - 1;
+    }
+}
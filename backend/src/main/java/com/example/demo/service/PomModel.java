@@ -0,0 +1,374 @@
+package com.example.demo.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Modèle compact d'un pom.xml, construit en un seul parcours StAX : coordonnées, parent, propriétés,
+ * dépendances (directes et gérées), modules, plugins et configuration du maven-compiler-plugin.
+ * Commentaires, descriptions et profils sont ignorés : "mysql" dans un commentaire ne fait plus
+ * détecter de base MySQL. Les références ${...} sont résolues avec les propriétés du pom et celles
+ * héritées du parent (voir {@link #inherit}).
+ */
+public final class PomModel {
+
+    private static final XMLInputFactory XML = createFactory();
+    private static final Pattern PROPERTY_REF = Pattern.compile("\\$\\{([^}]+)}");
+    private static final Pattern JAVA_VERSION = Pattern.compile("(?:1\\.)?(\\d+)(?:\\.\\d+)*");
+    private static final String SPRING_BOOT_GROUP = "org.springframework.boot";
+
+    /** Dépendance, dépendance gérée ou plugin. */
+    public static final class Artifact {
+        private String groupId;
+        private String artifactId;
+        private String version;
+        private String scope;
+
+        public String getGroupId() { return groupId; }
+        public String getArtifactId() { return artifactId; }
+        public String getVersion() { return version; }
+        public String getScope() { return scope; }
+
+        /** "groupId:artifactId" */
+        public String getKey() { return groupId + ":" + artifactId; }
+    }
+
+    private String groupId;
+    private String artifactId;
+    private String version;
+    private String packaging;
+    private Artifact parent;
+    private String parentRelativePath;
+    private PomModel effectiveParent;
+    private final Map<String, String> properties = new LinkedHashMap<>();
+    private final List<Artifact> dependencies = new ArrayList<>();
+    private final List<Artifact> managedDependencies = new ArrayList<>();
+    private final List<Artifact> plugins = new ArrayList<>();
+    private final List<String> modules = new ArrayList<>();
+    private final Map<String, String> compilerSettings = new LinkedHashMap<>();
+
+    private PomModel() {}
+
+    /** Modèle du pom, ou null si le XML est illisible (l'appelant garde alors une détection textuelle). */
+    public static PomModel tryParse(String xml) {
+        if (xml == null || xml.isBlank()) return null;
+        try {
+            return parse(xml);
+        } catch (XMLStreamException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static PomModel parse(String xml) throws XMLStreamException {
+        PomModel pom = new PomModel();
+        XMLStreamReader reader = XML.createXMLStreamReader(new StringReader(xml));
+        try {
+            StringBuilder path = new StringBuilder();
+            Deque<Integer> lengths = new ArrayDeque<>();
+            StringBuilder text = new StringBuilder();
+            Artifact current = null;
+            Map<String, String> configuration = new LinkedHashMap<>();
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        lengths.push(path.length());
+                        if (path.length() > 0) path.append('/');
+                        path.append(reader.getLocalName());
+                        text.setLength(0);
+                        if (isArtifactElement(path)) {
+                            current = new Artifact();
+                            configuration.clear();
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> text.append(reader.getText());
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        pom.onEnd(path.toString(), text.toString().trim(), current, configuration);
+                        path.setLength(lengths.pop());
+                        text.setLength(0);
+                    }
+                    default -> { }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return pom;
+    }
+
+    private static boolean isArtifactElement(CharSequence path) {
+        String p = path.toString();
+        return p.equals("project/dependencies/dependency")
+                || p.equals("project/dependencyManagement/dependencies/dependency")
+                || p.equals("project/build/plugins/plugin")
+                || p.equals("project/build/pluginManagement/plugins/plugin");
+    }
+
+    private void onEnd(String path, String value, Artifact current, Map<String, String> configuration) {
+        switch (path) {
+            case "project/groupId" -> groupId = value;
+            case "project/artifactId" -> artifactId = value;
+            case "project/version" -> version = value;
+            case "project/packaging" -> packaging = value;
+            case "project/parent/groupId" -> parent().groupId = value;
+            case "project/parent/artifactId" -> parent().artifactId = value;
+            case "project/parent/version" -> parent().version = value;
+            case "project/parent/relativePath" -> parentRelativePath = value;
+            case "project/modules/module" -> modules.add(value);
+            case "project/dependencies/dependency" -> dependencies.add(current);
+            case "project/dependencyManagement/dependencies/dependency" -> managedDependencies.add(current);
+            case "project/build/plugins/plugin" -> addPlugin(current, configuration, true);
+            case "project/build/pluginManagement/plugins/plugin" -> addPlugin(current, configuration, false);
+            default -> {
+                if (path.startsWith("project/properties/") && path.indexOf('/', "project/properties/".length()) < 0) {
+                    properties.put(path.substring("project/properties/".length()), value);
+                } else if (current != null && isArtifactElement(parentPath(path))) {
+                    setArtifactField(current, path.substring(path.lastIndexOf('/') + 1), value);
+                } else if (current != null && path.contains("/plugin/configuration/")
+                        && isArtifactElement(path.substring(0, path.indexOf("/configuration/")))) {
+                    String key = path.substring(path.indexOf("/configuration/") + "/configuration/".length());
+                    if (key.indexOf('/') < 0) configuration.put(key, value);
+                }
+            }
+        }
+    }
+
+    private Artifact parent() {
+        if (parent == null) parent = new Artifact();
+        return parent;
+    }
+
+    private void addPlugin(Artifact plugin, Map<String, String> configuration, boolean active) {
+        if (plugin == null) return;
+        if (active) plugins.add(plugin);
+        if ("maven-compiler-plugin".equals(plugin.artifactId)) {
+            for (String key : List.of("release", "source", "target")) {
+                String v = configuration.get(key);
+                if (v == null) continue;
+                // la configuration du plugin déclaré l'emporte sur celle du pluginManagement
+                if (active) compilerSettings.put(key, v);
+                else compilerSettings.putIfAbsent(key, v);
+            }
+        }
+    }
+
+    private static void setArtifactField(Artifact a, String field, String value) {
+        switch (field) {
+            case "groupId" -> a.groupId = value;
+            case "artifactId" -> a.artifactId = value;
+            case "version" -> a.version = value;
+            case "scope" -> a.scope = value;
+            default -> { }
+        }
+    }
+
+    private static String parentPath(String path) {
+        int i = path.lastIndexOf('/');
+        return i < 0 ? "" : path.substring(0, i);
+    }
+
+    /**
+     * Modèle effectif de ce pom avec son parent : propriétés, dépendances, dépendances gérées, plugins
+     * et configuration du compilateur hérités (ceux de l'enfant l'emportent), coordonnées par défaut.
+     */
+    public PomModel inherit(PomModel parentModel) {
+        if (parentModel == null) return this;
+        PomModel merged = new PomModel();
+        merged.groupId = groupId != null ? groupId : parentModel.getGroupId();
+        merged.artifactId = artifactId;
+        merged.version = version != null ? version : parentModel.getVersion();
+        merged.packaging = packaging;
+        merged.parent = parent;
+        merged.parentRelativePath = parentRelativePath;
+        merged.effectiveParent = parentModel;
+        merged.properties.putAll(parentModel.properties);
+        merged.properties.putAll(properties);
+        merged.dependencies.addAll(parentModel.dependencies);
+        merged.dependencies.addAll(dependencies);
+        merged.managedDependencies.addAll(parentModel.managedDependencies);
+        merged.managedDependencies.addAll(managedDependencies);
+        merged.plugins.addAll(parentModel.plugins);
+        merged.plugins.addAll(plugins);
+        merged.compilerSettings.putAll(parentModel.compilerSettings);
+        merged.compilerSettings.putAll(compilerSettings);
+        merged.modules.addAll(modules);
+        return merged;
+    }
+
+    /** Le parent déclaré est-il bien ce pom (mêmes groupId/artifactId) ? */
+    public boolean isParent(PomModel candidate) {
+        if (parent == null || candidate == null) return false;
+        return parent.artifactId != null && parent.artifactId.equals(candidate.artifactId)
+                && (parent.groupId == null || parent.groupId.equals(candidate.getGroupId()));
+    }
+
+    /**
+     * Chemin (relatif à la racine du repository) du pom parent local, ou null si aucun parent local :
+     * pas de parent, {@code <relativePath/>} vide, ou chemin sortant du repository.
+     */
+    public String parentPomPath(String dir) {
+        if (parent == null) return null;
+        String relative = parentRelativePath == null ? "../pom.xml" : parentRelativePath;
+        if (relative.isEmpty()) return null;
+        return pomPath(dir, relative);
+    }
+
+    /** Chemins des pom.xml des modules déclarés (relatifs à la racine du repository). */
+    public List<String> modulePomPaths(String dir) {
+        List<String> out = new ArrayList<>();
+        for (String module : modules) {
+            String path = pomPath(dir, module);
+            if (path != null) out.add(path);
+        }
+        return out;
+    }
+
+    /** {@code relative} (dossier ou fichier .xml) résolu depuis {@code dir}, normalisé ; null s'il sort du repository. */
+    static String pomPath(String dir, String relative) {
+        List<String> segments = new ArrayList<>();
+        String base = RepoSnapshot.normalize(dir);
+        if (!base.isEmpty()) Collections.addAll(segments, base.split("/"));
+        for (String segment : relative.replace('\\', '/').split("/")) {
+            if (segment.isEmpty() || segment.equals(".")) continue;
+            if (segment.equals("..")) {
+                if (segments.isEmpty()) return null;
+                segments.remove(segments.size() - 1);
+            } else {
+                segments.add(segment);
+            }
+        }
+        String path = String.join("/", segments);
+        if (path.endsWith(".xml")) return path;
+        return RepoSnapshot.join(path, "pom.xml");
+    }
+
+    /** Remplace les références ${...} connues ; les références inconnues sont laissées telles quelles. */
+    public String resolve(String value) {
+        if (value == null || value.indexOf("${") < 0) return value;
+        String current = value;
+        for (int round = 0; round < 10 && current.indexOf("${") >= 0; round++) {
+            Matcher m = PROPERTY_REF.matcher(current);
+            StringBuilder out = new StringBuilder();
+            boolean changed = false;
+            while (m.find()) {
+                String replacement = lookup(m.group(1));
+                if (replacement != null) changed = true;
+                m.appendReplacement(out, Matcher.quoteReplacement(replacement != null ? replacement : m.group()));
+            }
+            m.appendTail(out);
+            current = out.toString();
+            if (!changed) break;
+        }
+        return current;
+    }
+
+    private String lookup(String name) {
+        String p = properties.get(name);
+        if (p != null) return p;
+        return switch (name) {
+            case "project.version", "pom.version", "version" -> getVersion();
+            case "project.groupId", "pom.groupId" -> getGroupId();
+            case "project.artifactId", "pom.artifactId" -> artifactId;
+            case "project.parent.version" -> parent != null ? parent.version : null;
+            case "project.parent.groupId" -> parent != null ? parent.groupId : null;
+            default -> null;
+        };
+    }
+
+    /** Projet, parent, plugin ou dépendance du groupe org.springframework.boot, ou starter déclaré. */
+    public boolean usesSpringBoot() {
+        if (SPRING_BOOT_GROUP.equals(getGroupId())) return true;
+        if (parent != null && SPRING_BOOT_GROUP.equals(parent.groupId)) return true;
+        for (List<Artifact> artifacts : List.of(dependencies, managedDependencies, plugins)) {
+            for (Artifact a : artifacts) {
+                if (SPRING_BOOT_GROUP.equals(a.groupId)) return true;
+                if (a.artifactId != null && a.artifactId.contains("spring-boot-starter")) return true;
+            }
+        }
+        // ex. module dont le grand-parent est spring-boot-starter-parent
+        return effectiveParent != null && effectiveParent.usesSpringBoot();
+    }
+
+    /**
+     * Version majeure de Java : propriétés java.version, maven.compiler.release/source/target,
+     * puis configuration du maven-compiler-plugin. "1.8" donne "8". Null si rien d'exploitable.
+     */
+    public String getJavaVersion() {
+        List<String> candidates = new ArrayList<>();
+        for (String key : List.of("java.version", "maven.compiler.release", "maven.compiler.source", "maven.compiler.target")) {
+            candidates.add(properties.get(key));
+        }
+        for (String key : List.of("release", "source", "target")) {
+            candidates.add(compilerSettings.get(key));
+        }
+        for (String candidate : candidates) {
+            String v = resolve(candidate);
+            if (v == null) continue;
+            Matcher m = JAVA_VERSION.matcher(v.trim());
+            if (m.matches()) return m.group(1);
+        }
+        return null;
+    }
+
+    /** Version de Spring Boot : parent, propriété spring-boot.version, BOM importé, puis plugin. Null si inconnue. */
+    public String getSpringBootVersion() {
+        List<String> candidates = new ArrayList<>();
+        if (parent != null && SPRING_BOOT_GROUP.equals(parent.groupId)) candidates.add(parent.version);
+        candidates.add(properties.get("spring-boot.version"));
+        for (Artifact a : managedDependencies) {
+            if (SPRING_BOOT_GROUP.equals(a.groupId) && "spring-boot-dependencies".equals(a.artifactId)) candidates.add(a.version);
+        }
+        for (Artifact a : plugins) {
+            if (SPRING_BOOT_GROUP.equals(a.groupId) && "spring-boot-maven-plugin".equals(a.artifactId)) candidates.add(a.version);
+        }
+        for (String candidate : candidates) {
+            String v = resolve(candidate);
+            if (v != null && !v.isEmpty() && Character.isDigit(v.charAt(0))) return v;
+        }
+        return effectiveParent != null ? effectiveParent.getSpringBootVersion() : null;
+    }
+
+    /** Coordonnées "groupId:artifactId" des dépendances, une par ligne (entrée des règles de détection). */
+    public String dependencyCoordinates() {
+        StringBuilder out = new StringBuilder();
+        for (Artifact a : dependencies) out.append(resolve(a.getKey())).append('\n');
+        return out.toString();
+    }
+
+    public String getGroupId() { return groupId != null ? groupId : (parent != null ? parent.groupId : null); }
+    public String getArtifactId() { return artifactId; }
+    public String getVersion() { return version != null ? version : (parent != null ? parent.version : null); }
+    public String getPackaging() { return packaging == null || packaging.isEmpty() ? "jar" : packaging; }
+    public Artifact getParent() { return parent; }
+    public Map<String, String> getProperties() { return Collections.unmodifiableMap(properties); }
+    public List<Artifact> getDependencies() { return Collections.unmodifiableList(dependencies); }
+    public List<Artifact> getManagedDependencies() { return Collections.unmodifiableList(managedDependencies); }
+    public List<Artifact> getPlugins() { return Collections.unmodifiableList(plugins); }
+    public List<String> getModules() { return Collections.unmodifiableList(modules); }
+
+    /** Pom agrégateur (packaging pom avec des modules). */
+    public boolean isAggregator() {
+        return "pom".equals(getPackaging()) && !modules.isEmpty();
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // pas de DTD ni d'entités externes : le pom vient d'un repository tiers
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index par nom des fichiers d'un {@link RepoSnapshot}, construit une fois par instantané ({@link RepoSnapshot#paths()}) :
+ * trouver tous les pom.xml, package.json ou settings.gradle d'un monorepo est une simple lecture de liste,
+ * sans parcourir ni filtrer tous les chemins de l'arbre.
+ */
+public final class RepoPathIndex {
+
+    private final Map<String, List<String>> filesByName = new HashMap<>();
+
+    RepoPathIndex(Collection<RepoSnapshot.Entry> entries) {
+        for (RepoSnapshot.Entry e : entries) {
+            if (!e.isDirectory()) filesByName.computeIfAbsent(e.getName(), k -> new ArrayList<>()).add(e.getPath());
+        }
+        filesByName.replaceAll((name, sameName) -> {
+            sameName.sort(null);
+            return List.copyOf(sameName);
+        });
+    }
+
+    /** Fichiers nommés {@code name}, à n'importe quelle profondeur, triés par chemin. */
+    public List<String> filesNamed(String name) {
+        return filesByName.getOrDefault(name, List.of());
+    }
+}
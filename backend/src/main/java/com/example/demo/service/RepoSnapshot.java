@@ -0,0 +1,186 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Vue en mémoire de l'arbre d'un repository (un seul appel git/trees?recursive=1).
+ * Les détecteurs parcourent cet arbre au lieu d'appeler l'API contents dossier par dossier.
+ */
+public class RepoSnapshot {
+
+    public static final String TYPE_FILE = "file";
+    public static final String TYPE_DIR = "dir";
+
+    private final String ref;
+    private final ContentLoader loader;
+    private final Map<String, Entry> entriesByPath = new HashMap<>();
+    private final Map<String, Map<String, Entry>> childrenByDir = new HashMap<>();
+    private volatile RepoPathIndex paths;
+
+    public RepoSnapshot(String ref, Collection<Entry> entries) {
+        this(ref, entries, null);
+    }
+
+    public RepoSnapshot(String ref, Collection<Entry> entries, ContentLoader loader) {
+        this.ref = ref;
+        this.loader = loader;
+        childrenByDir.put("", new TreeMap<>());
+        for (Entry e : entries) {
+            entriesByPath.put(e.getPath(), e);
+            ensureParents(e.getPath());
+            childrenByDir.computeIfAbsent(parentOf(e.getPath()), k -> new TreeMap<>()).put(e.getName(), e);
+            if (e.isDirectory()) childrenByDir.computeIfAbsent(e.getPath(), k -> new TreeMap<>());
+        }
+    }
+
+    /** Certains arbres (ou sources locales) n'exposent que les blobs : on recrée les dossiers intermédiaires. */
+    private void ensureParents(String path) {
+        String parent = parentOf(path);
+        while (!parent.isEmpty() && !entriesByPath.containsKey(parent)) {
+            Entry dir = new Entry(parent, TYPE_DIR, null, 0);
+            entriesByPath.put(parent, dir);
+            childrenByDir.computeIfAbsent(parent, k -> new TreeMap<>());
+            childrenByDir.computeIfAbsent(parentOf(parent), k -> new TreeMap<>()).put(dir.getName(), dir);
+            parent = parentOf(parent);
+        }
+    }
+
+    public String getRef() { return ref; }
+
+    /** Enfants directs d'un dossier ("" ou null = racine), triés par nom comme l'API contents. */
+    public List<Entry> list(String dir) {
+        Map<String, Entry> children = childrenByDir.get(normalize(dir));
+        return children == null ? List.of() : new ArrayList<>(children.values());
+    }
+
+    public boolean exists(String path) {
+        String p = normalize(path);
+        return p.isEmpty() || entriesByPath.containsKey(p);
+    }
+
+    public boolean isFile(String path) {
+        Entry e = entriesByPath.get(normalize(path));
+        return e != null && !e.isDirectory();
+    }
+
+    public Entry get(String path) {
+        return entriesByPath.get(normalize(path));
+    }
+
+    /** SHA du blob git pour un chemin de fichier, ou null si absent. */
+    public String shaOf(String path) {
+        Entry e = entriesByPath.get(normalize(path));
+        return (e == null || e.isDirectory()) ? null : e.getSha();
+    }
+
+    /**
+     * Contenu d'un fichier (via le loader, typiquement le cache de blobs par SHA).
+     * Retourne null si le chemin n'existe pas dans l'arbre : aucun appel distant pour un 404.
+     */
+    public String read(String path) {
+        Entry e = entriesByPath.get(normalize(path));
+        if (e == null || e.isDirectory()) return null;
+        if (loader == null) throw new IllegalStateException("Snapshot has no content loader: " + path);
+        return loader.load(e);
+    }
+
+    /** Tous les chemins de fichiers (blobs), triés. */
+    public List<String> filePaths() {
+        List<String> out = new ArrayList<>();
+        for (Entry e : entriesByPath.values()) {
+            if (!e.isDirectory()) out.add(e.getPath());
+        }
+        Collections.sort(out);
+        return out;
+    }
+
+    public int size() { return entriesByPath.size(); }
+
+    /** Index des fichiers par nom, construit au premier appel puis partagé. */
+    public RepoPathIndex paths() {
+        RepoPathIndex index = paths;
+        if (index == null) {
+            synchronized (this) {
+                index = paths;
+                if (index == null) paths = index = new RepoPathIndex(entriesByPath.values());
+            }
+        }
+        return index;
+    }
+
+    /** Représentation compatible avec la réponse de l'API contents (name/path/type/sha/size). */
+    public List<Map<String, Object>> listAsContents(String dir) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Entry e : list(dir)) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("name", e.getName());
+            m.put("path", e.getPath());
+            m.put("type", e.getType());
+            m.put("sha", e.getSha());
+            m.put("size", e.getSize());
+            out.add(m);
+        }
+        return out;
+    }
+
+    /** Normalise "./backend/", "/backend" ou "." en "backend" / "". */
+    public static String normalize(String path) {
+        if (path == null) return "";
+        String p = path.trim();
+        if (p.equals(".") || p.equals("./")) return "";
+        if (p.startsWith("./")) p = p.substring(2);
+        while (p.startsWith("/")) p = p.substring(1);
+        while (p.endsWith("/")) p = p.substring(0, p.length() - 1);
+        return p;
+    }
+
+    public static String parentOf(String path) {
+        int i = path.lastIndexOf('/');
+        return i < 0 ? "" : path.substring(0, i);
+    }
+
+    public static String join(String dir, String name) {
+        String d = normalize(dir);
+        return d.isEmpty() ? name : d + "/" + name;
+    }
+
+    @FunctionalInterface
+    public interface ContentLoader {
+        String load(Entry entry);
+    }
+
+    public static class Entry {
+        private final String path;
+        private final String name;
+        private final String type;
+        private final String sha;
+        private final long size;
+
+        public Entry(String path, String type, String sha, long size) {
+            this(path, null, type, sha, size);
+        }
+
+        /** {@code name} : dernier segment de {@code path}, éventuellement partagé entre entrées (null = calculé). */
+        public Entry(String path, String name, String type, String sha, long size) {
+            this.path = normalize(path);
+            this.name = name != null ? name : this.path.substring(this.path.lastIndexOf('/') + 1);
+            this.type = type;
+            this.sha = sha;
+            this.size = size;
+        }
+
+        public String getPath() { return path; }
+        public String getType() { return type; }
+        public String getSha() { return sha; }
+        public long getSize() { return size; }
+        public boolean isDirectory() { return TYPE_DIR.equals(type); }
+        public String getName() { return name; }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.service;
+
+import java.util.List;
+
+/**
+ * Origine des fichiers analysés. La détection ne travaille que sur le {@link RepoSnapshot} renvoyé
+ * (arbre + chargeur de contenus) : GitHub, checkout local ou archive tar/zip passent par le même moteur.
+ */
+public interface RepositorySource {
+
+    /** Arbre complet et chargeur de contenus ; appelé une fois par analyse. */
+    RepoSnapshot snapshot();
+
+    /**
+     * Précharge en lot le contenu de ces fichiers de {@code snapshot} avant les lectures des détecteurs.
+     * Sans effet par défaut (sources dont les lectures ne coûtent pas d'appel réseau).
+     */
+    default void prefetch(RepoSnapshot snapshot, List<String> paths) {
+    }
+
+    /** Token GitHub (limites d'appels parallèles par token), null pour une source hors GitHub. */
+    default String token() {
+        return null;
+    }
+
+    /** Description lisible de la source, pour les logs. */
+    String describe();
+}
@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Repo;
+import com.example.demo.model.StackAnalysisResult;
+import com.example.demo.repository.StackAnalysisResultRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Résultats d'analyse persistés par (repo, SHA de tête, version de l'analyseur).
+ * La version stockée est {@link StackDetectionService#ANALYZER_VERSION} suivie de l'empreinte des
+ * {@link AnalysisLimits} effectives : changer l'une ou l'autre (dossiers exclus, profondeur, budget)
+ * invalide tous les anciens résultats ; pour une même version, seuls les analysis.cache.keep-per-repo
+ * derniers commits analysés sont gardés.
+ */
+@Service
+@RequiredArgsConstructor
+public class StackAnalysisCacheService {
+
+  private final StackAnalysisResultRepository results;
+  private final AnalysisLimits analysisLimits;
+
+  @Value("${analysis.cache.keep-per-repo:5}")
+  private int keepPerRepo;
+
+  public Optional<String> find(Repo repo, String commitSha) {
+    if (commitSha == null) return Optional.empty();
+    return results.findByRepoAndCommitShaAndAnalyzerVersion(repo, commitSha, analyzerVersion())
+        .map(StackAnalysisResult::getPayload);
+  }
+
+  /** Dernier résultat enregistré pour ce repo (version courante de l'analyseur), base d'une ré-analyse incrémentale. */
+  public Optional<StackAnalysisResult> findLatest(Repo repo) {
+    return results.findFirstByRepoAndAnalyzerVersionOrderByCreatedAtDesc(repo, analyzerVersion());
+  }
+
+  public void store(Repo repo, String commitSha, String payload) {
+    if (commitSha == null) return;
+    results.deleteByRepoAndAnalyzerVersionNot(repo, analyzerVersion());
+    try {
+      results.save(StackAnalysisResult.builder()
+          .repo(repo)
+          .commitSha(commitSha)
+          .analyzerVersion(analyzerVersion())
+          .payload(payload)
+          .build());
+    } catch (DataIntegrityViolationException e) {
+      // analyse concurrente du même commit : le résultat est déjà enregistré
+    }
+    trim(repo);
+  }
+
+  /** Version stockée avec chaque résultat : logique de détection et limites qui l'ont produit. */
+  String analyzerVersion() {
+    return StackDetectionService.ANALYZER_VERSION + "-" + analysisLimits.getFingerprint();
+  }
+
+  /** Supprime les résultats plus anciens que les {@code keepPerRepo} derniers (version courante). */
+  private void trim(Repo repo) {
+    List<Long> ids = results.findIdsNewestFirst(repo, analyzerVersion());
+    int keep = Math.max(1, keepPerRepo);
+    if (ids.size() > keep) results.deleteAllByIdInBatch(ids.subList(keep, ids.size()));
+  }
+}
@@ -1,13 +1,19 @@
 package com.example.demo.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.dto.ServiceAnalysis;
@@ -19,110 +25,181 @@ public class StackDetectionService {
     @Autowired
     private GitHubService gitHubService;
 
+    @Autowired
+    private GitHubTaskExecutor taskExecutor;
+
+    @Autowired
+    private AnalysisLimits analysisLimits;
+
+    @Autowired
+    private GitHubBlobPrefetcher blobPrefetcher;
+
+    /** Lecture par archive : off (blob par blob), always, ou auto (au-delà de min-relevant-files fichiers utiles). */
+    @Value("${analysis.tarball.mode:off}")
+    private String tarballMode;
+
+    @Value("${analysis.tarball.min-relevant-files:1000}")
+    private int tarballMinRelevantFiles;
+
+    @Value("${analysis.archive.max-entries:100000}")
+    private int archiveMaxEntries;
+
+    @Value("${analysis.archive.max-retained-bytes:67108864}")
+    private long archiveMaxRetainedBytes;
+
+    /**
+     * Version de la logique de détection, stockée avec chaque résultat persisté.
+     * À incrémenter à chaque changement qui modifie le résultat d'une analyse.
+     */
+    public static final String ANALYZER_VERSION = "4";
+
+    /** Fichiers de build lus par la détection multi-services. */
+    private static final Set<String> BUILD_FILES = Set.of("pom.xml", "build.gradle", "build.gradle.kts", "package.json");
+
+    private static final List<String> GRADLE_SETTINGS = List.of("settings.gradle", "settings.gradle.kts");
+
+    /** Fichiers lus par l'enrichissement d'un service, relatifs à son dossier (ré-analyse incrémentale). */
+    private static final List<String> SERVICE_INPUTS = List.of(
+            "pom.xml", "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts", "package.json",
+            "src/main/resources/application.properties", "src/main/resources/application.yml",
+            ".nvmrc", ".node-version");
+
+    private static final String ANDROID_MANIFEST = "app/src/main/AndroidManifest.xml";
+
+    /** Profondeur maximale des chaînes parent / modules suivies dans le repository. */
+    private static final int MAX_POM_DEPTH = 8;
+
+    private static final Pattern NODE_MAJOR_VERSION = Pattern.compile("(\\d+)(?:\\.\\d+)?");
+
+    /**
+     * Analyse complète en une seule passe : un seul instantané, une seule détection des services,
+     * chaque fichier lu au plus une fois (contexte mémoïsé). Les vues single / multi / structurée /
+     * Docker en sont des projections ({@link #toStackAnalysis}, {@link #toServiceAnalyses},
+     * {@link #toStructuredServices}, {@link #toDockerConfiguration}).
+     * Si le budget de l'analyse est épuisé, le résultat est partiel et marqué incomplet.
+     */
+    public RepositoryAnalysis analyze(String repoUrl, String token, String ref) {
+        return analyze(gitHubSource(repoUrl, token, ref));
+    }
+
+    /** Fichiers que les détecteurs peuvent lire, hors dossiers exclus du parcours : connus dès que l'arbre l'est. */
+    private List<String> prefetchPlan(RepoSnapshot snapshot) {
+        List<String> plan = new ArrayList<>();
+        for (String path : snapshot.filePaths()) {
+            if (isDetectorInput(path)) plan.add(path);
+        }
+        return plan;
+    }
+
+    private boolean isDetectorInput(String path) {
+        return DetectorInputs.isRelevant(path) && !analysisLimits.isExcluded(path);
+    }
+
+    private RepositorySource gitHubSource(String repoUrl, String token, String ref) {
+        if ("always".equalsIgnoreCase(tarballMode) || "auto".equalsIgnoreCase(tarballMode)) {
+            int minRelevantFiles = "auto".equalsIgnoreCase(tarballMode) ? Math.max(1, tarballMinRelevantFiles) : 0;
+            return new TarballRepositorySource(gitHubService, blobPrefetcher, repoUrl, token, ref, this::isDetectorInput,
+                    minRelevantFiles, ArchiveRepositorySource.DEFAULT_MAX_FILE_BYTES, archiveMaxEntries, archiveMaxRetainedBytes);
+        }
+        return new GitHubRepositorySource(gitHubService, blobPrefetcher, repoUrl, token, ref);
+    }
+
+    /** Même analyse sur n'importe quelle source (GitHub, checkout local, archive) : seul l'instantané change. */
+    public RepositoryAnalysis analyze(RepositorySource source) {
+        String token = source.token();
+        RepoSnapshot snapshot = source.snapshot();
+        source.prefetch(snapshot, prefetchPlan(snapshot));
+        AnalysisContext context = new AnalysisContext(snapshot, analysisLimits.newBudget());
+        List<DetectedStack> detected = detectAllServices(token, context);
+
+        // Enrichissement de chaque service en parallèle, résultats dans l'ordre de détection
+        List<ServiceFacts> services = taskExecutor.invokeAll(token, indices(detected.size()),
+                i -> collectFacts(context, detected.get(i), i));
+
+        // vue single : le premier service du parcours, ou GENERIC à la racine s'il n'y en a aucun
+        ServiceFacts primary = services.isEmpty()
+                ? collectFacts(context, new DetectedStack("GENERIC", "."), 0)
+                : services.get(0);
+
+        RepositoryAnalysis analysis = new RepositoryAnalysis(context.listAsContents(""), services, primary,
+                context.getBudget().getExhaustedReason());
+        logReads("analyze", context);
+        return analysis;
+    }
+
     /**
      * Analyse un repository GitHub pour détecter sa stack technique
      */
     public StackAnalysis analyzeRepository(String repoUrl, String token, String defaultBranch) {
-        List<Map<String, Object>> files = gitHubService.getRepositoryContents(repoUrl, token, null);
+        return toStackAnalysis(analyze(repoUrl, token, defaultBranch));
+    }
 
-        DetectedStack detectedStack = detectStackTypeRecursively(files, repoUrl, token, "");
+    // à l'intérieur de StackDetectionService
+    public List<ServiceAnalysis> analyzeAllServices(String repoUrl, String token) {
+        return analyzeAllServices(repoUrl, token, null);
+    }
 
-        String javaVersion = detectJavaVersion(repoUrl, token, detectedStack.stackType, detectedStack.workingDirectory);
-        String buildTool = detectBuildTool(detectedStack.stackType);
-        String language = detectLanguage(detectedStack.stackType);
+    /** Analyse multi-services à une ref donnée (branche ou SHA de commit ; null = branche par défaut). */
+    public List<ServiceAnalysis> analyzeAllServices(String repoUrl, String token, String ref) {
+        return toServiceAnalyses(analyze(repoUrl, token, ref));
+    }
+
+    /**
+     * Génère une configuration de services structurée pour Docker
+     */
+    public Map<String, Object> generateStructuredServices(String repoUrl, String token, String defaultBranch) {
+        return toStructuredServices(analyze(repoUrl, token, defaultBranch));
+    }
+
+    public Map<String, Object> generateDockerConfiguration(String repoUrl, String token, String defaultBranch) {
+        return toDockerConfiguration(analyze(repoUrl, token, defaultBranch));
+    }
+
+    // ---------- Projections du modèle d'analyse ----------
+
+    public StackAnalysis toStackAnalysis(RepositoryAnalysis repository) {
+        ServiceFacts primary = repository.primary;
+        DetectedStack detectedStack = primary.detected;
 
         StackAnalysis analysis = new StackAnalysis(
                 detectedStack.stackType,
-                javaVersion,
+                primary.javaVersion,
                 "github-actions",
                 detectedStack.workingDirectory,
-                files
+                repository.files
         );
-        analysis.setBuildTool(buildTool);
-        analysis.setLanguage(language);
+        analysis.setBuildTool(detectBuildTool(detectedStack.stackType));
+        analysis.setLanguage(detectLanguage(detectedStack.stackType));
 
-        Map<String, Object> projectDetails = analyzeProjectDetails(repoUrl, token, detectedStack.stackType, detectedStack.workingDirectory);
+        Map<String, Object> projectDetails = new HashMap<>(primary.projectDetails);
+        if (primary.nodeVersionFromFiles != null) {
+            projectDetails.put("nodeVersion", primary.nodeVersionFromFiles);
+        }
         analysis.setProjectDetails(projectDetails);
 
         // Infos Docker/DB
-        String databaseType = detectDatabaseTypeFromStack(repoUrl, token, detectedStack.stackType, detectedStack.workingDirectory);
-        String databaseName = extractDatabaseName(repoUrl, token, detectedStack.workingDirectory);
-        analysis.setDatabaseType(databaseType);
-        analysis.setDatabaseName(databaseName);
-
-        if ("NODE_JS".equals(detectedStack.stackType)) {
-            String raw = projectDetails != null ? (String) projectDetails.get("nodeVersion") : null;
-            if (raw == null || "Latest".equalsIgnoreCase(raw)) {
-                String fromFiles = tryReadNodeVersionFiles(repoUrl, token, detectedStack.workingDirectory);
-                if (fromFiles != null && !fromFiles.isBlank()) {
-                    projectDetails.put("nodeVersion", fromFiles);
-                }
-            }
-        }
-
+        analysis.setDatabaseType(primary.databaseType);
+        analysis.setDatabaseName(primary.databaseName);
         return analysis;
     }
 
-    // à l'intérieur de StackDetectionService
-    public List<ServiceAnalysis> analyzeAllServices(String repoUrl, String token) {  
-    List<Map<String, Object>> root = gitHubService.getRepositoryContents(repoUrl, token, null);  
-    List<DetectedStack> detected = detectAllServices(root, repoUrl, token, "");  
-  
-    List<ServiceAnalysis> out = new ArrayList<>();  
-    int i = 0;  
-    for (DetectedStack d : detected) {  
-        String buildTool = detectBuildTool(d.stackType).toLowerCase();  
-        String lang = detectLanguage(d.stackType);  
-        Map<String, Object> details = analyzeProjectDetails(repoUrl, token, d.stackType, d.workingDirectory);  
-        String javaVer = null;  
-        if (d.stackType.contains("SPRING_BOOT")) {  
-            javaVer = detectJavaVersion(repoUrl, token, d.stackType, d.workingDirectory);  
-        }  
-        String orchestrator = "github-actions";  
-        String prefix = d.stackType.contains("SPRING") ? "backend-" : ("NODE_JS".equals(d.stackType) ? "frontend-" : "service-");  
-          
-        // ← Ajouter la détection de base de données  
-        String databaseType = "NONE";  
-        String databaseName = "my_database";  
-        if (d.stackType.contains("SPRING_BOOT")) {  
-            databaseType = detectDatabaseTypeFromStack(repoUrl, token, d.stackType, d.workingDirectory);  
-            if (!"NONE".equals(databaseType)) {  
-                databaseName = extractDatabaseName(repoUrl, token, d.workingDirectory);  
-            }  
-        }  
-          
-        out.add(new ServiceAnalysis(  
-            prefix + (i++),  
-            d.stackType,  
-            d.workingDirectory,  
-            buildTool,  
-            lang,  
-            details,  
-            orchestrator,  
-            javaVer,  
-            databaseType,  
-            databaseName  
-        ));  
-    }  
-    return out;  
-}
+    public List<ServiceAnalysis> toServiceAnalyses(RepositoryAnalysis repository) {
+        List<ServiceAnalysis> out = new ArrayList<>();
+        for (int i = 0; i < repository.services.size(); i++) {
+            out.add(toServiceAnalysis(repository.services.get(i), i));
+        }
+        return out;
+    }
 
-    /**
-     * Génère une configuration de services structurée pour Docker
-     */
-    public Map<String, Object> generateStructuredServices(String repoUrl, String token, String defaultBranch) {
+    public Map<String, Object> toStructuredServices(RepositoryAnalysis repository) {
         Map<String, Object> result = new HashMap<>();
-        List<Map<String, Object>> files = gitHubService.getRepositoryContents(repoUrl, token, null);
-
-        List<DetectedStack> detectedServices = detectAllServices(files, repoUrl, token, "");
         List<Map<String, Object>> services = new ArrayList<>();
         List<Map<String, Object>> relationships = new ArrayList<>();
 
         String databaseServiceId = null;
 
-        for (int i = 0; i < detectedServices.size(); i++) {
-            DetectedStack detected = detectedServices.get(i);
-            Map<String, Object> service = createStructuredService(detected, repoUrl, token, i);
+        for (ServiceFacts facts : repository.services) {
+            Map<String, Object> service = new HashMap<>(facts.structured);
             services.add(service);
 
             if (service.containsKey("databaseType") && !"NONE".equals(service.get("databaseType"))) {
@@ -144,36 +221,298 @@ public class StackDetectionService {
         result.put("services", services);
         result.put("relationships", relationships);
         result.put("totalServices", services.size());
-
+        putIncomplete(result, repository.incompleteReason);
         return result;
     }
 
+    public Map<String, Object> toDockerConfiguration(RepositoryAnalysis repository) {
+        Map<String, Object> dockerConfig = new HashMap<>();
+        List<Map<String, Object>> serviceConfigs = new ArrayList<>();
+        for (ServiceFacts facts : repository.services) {
+            serviceConfigs.add(new HashMap<>(facts.dockerConfig));
+        }
+
+        dockerConfig.put("services", serviceConfigs);
+        dockerConfig.put("hasDatabase", serviceConfigs.stream().anyMatch(s -> s.containsKey("databaseType")));
+        dockerConfig.put("totalServices", serviceConfigs.size());
+        putIncomplete(dockerConfig, repository.incompleteReason);
+        return dockerConfig;
+    }
+
+    /** Marque une vue construite à partir d'une analyse partielle (budget épuisé). */
+    private static void putIncomplete(Map<String, Object> view, String incompleteReason) {
+        if (incompleteReason == null) return;
+        view.put("incomplete", true);
+        view.put("incompleteReason", incompleteReason);
+    }
+
+    private ServiceAnalysis toServiceAnalysis(ServiceFacts facts, int index) {
+        DetectedStack d = facts.detected;
+        boolean springBoot = d.stackType.contains("SPRING_BOOT");
+
+        // base de données : seulement pour les services Spring Boot
+        String databaseType = springBoot ? facts.databaseType : "NONE";
+        String databaseName = springBoot && !"NONE".equals(databaseType) ? facts.databaseName : "my_database";
+
+        return new ServiceAnalysis(
+            servicePrefix(d.stackType) + index,
+            d.stackType,
+            d.workingDirectory,
+            detectBuildTool(d.stackType).toLowerCase(),
+            detectLanguage(d.stackType),
+            new HashMap<>(facts.projectDetails),
+            "github-actions",
+            springBoot ? facts.javaVersion : null,
+            databaseType,
+            databaseName
+        );
+    }
+
+    /**
+     * Tout ce que les vues utilisent pour un service, calculé une fois. Les lectures passent
+     * par le contexte : un fichier demandé par plusieurs détecteurs n'est chargé qu'une fois.
+     */
+    private ServiceFacts collectFacts(AnalysisContext context, DetectedStack d, int index) {
+        ServiceFacts facts = new ServiceFacts(d);
+        facts.projectDetails = analyzeProjectDetails(context, d.stackType, d.workingDirectory);
+        facts.javaVersion = detectJavaVersion(context, d.stackType, d.workingDirectory);
+        facts.databaseType = detectDatabaseTypeFromStack(context, d.stackType, d.workingDirectory);
+        facts.databaseName = extractDatabaseName(context, d.workingDirectory);
+
+        if ("NODE_JS".equals(d.stackType)) {
+            String raw = (String) facts.projectDetails.get("nodeVersion");
+            if (raw == null || "Latest".equalsIgnoreCase(raw)) {
+                String fromFiles = tryReadNodeVersionFiles(context, d.workingDirectory);
+                if (fromFiles != null && !fromFiles.isBlank()) facts.nodeVersionFromFiles = fromFiles;
+            }
+        }
+
+        facts.structured = createStructuredService(d, context, index);
+
+        Map<String, Object> cfg = new HashMap<>();
+        cfg.put("type", d.stackType);
+        cfg.put("workingDirectory", d.workingDirectory);
+        cfg.put("buildTool", detectBuildTool(d.stackType));
+        cfg.put("language", detectLanguage(d.stackType));
+        if (d.stackType.contains("SPRING_BOOT")) {
+            configureSpringBootService(cfg, context, d);
+        } else if ("NODE_JS".equals(d.stackType)) {
+            configureNodeJsService(cfg, context, d);
+        }
+        facts.dockerConfig = cfg;
+        return facts;
+    }
+
+    private static String servicePrefix(String stackType) {
+        return stackType.contains("SPRING") ? "backend-" : ("NODE_JS".equals(stackType) ? "frontend-" : "service-");
+    }
+
+    /**
+     * Ré-analyse incrémentale : à partir des services analysés au commit {@code baseSha}, ne refait
+     * la détection que dans les dossiers touchés par le diff base...head (fichier de build ajouté,
+     * modifié ou supprimé, ou fichier lu par l'enrichissement d'un service). Les autres services sont
+     * repris tels quels ; les ids sont renumérotés dans l'ordre d'une analyse complète.
+     * S'il ne reste qu'un service et que sa vue single ne peut pas être reprise, elle est calculée
+     * sur le même instantané (pas de seconde analyse complète).
+     * Retourne null si le diff n'est pas exploitable : il faut alors une analyse complète.
+     */
+    public IncrementalResult analyzeIncrementally(String repoUrl, String token, String baseSha, String headSha,
+                                                  List<ServiceAnalysis> previous) {
+        if (baseSha == null || headSha == null || previous == null) return null;
+        Optional<List<String>> changed = gitHubService.getChangedPaths(repoUrl, token, baseSha, headSha);
+        if (changed.isEmpty()) return null;
+        // un settings.gradle modifié peut inclure des projets n'importe où en dessous : analyse complète
+        if (changed.get().stream().anyMatch(p -> GRADLE_SETTINGS.contains(p.substring(p.lastIndexOf('/') + 1)))) return null;
+
+        Set<String> dirty = dirtyDirectories(changed.get(), previous);
+        boolean rootChanged = changed.get().stream().anyMatch(p -> p.indexOf('/') < 0);
+        if (dirty.isEmpty()) {
+            if (!rootChanged || previous.size() != 1) return new IncrementalResult(previous, dirty, rootChanged, null, null);
+            // un seul service, racine modifiée : seule la vue single est à refaire
+            AnalysisContext context = new AnalysisContext(gitHubService.getRepositorySnapshot(repoUrl, token, headSha),
+                    analysisLimits.newBudget());
+            StackAnalysis single = singleView(context, previous.get(0), null);
+            logReads("analyzeIncrementally", context);
+            return new IncrementalResult(previous, dirty, true, single, context.getBudget().getExhaustedReason());
+        }
+
+        AnalysisContext context = new AnalysisContext(gitHubService.getRepositorySnapshot(repoUrl, token, headSha),
+                analysisLimits.newBudget());
+        dirty.addAll(mavenDependents(context, changed.get(), previous));
+        List<DetectedStack> redetected = new ArrayList<>();
+        for (String dir : dirty) redetected.addAll(detectServicesIn(context, dir));
+
+        List<ServiceFacts> facts = taskExecutor.invokeAll(token, redetected, d -> collectFacts(context, d, 0));
+        List<ServiceAnalysis> fresh = new ArrayList<>();
+        for (ServiceFacts f : facts) fresh.add(toServiceAnalysis(f, 0));
+        List<ServiceAnalysis> merged = new ArrayList<>(fresh);
+        for (ServiceAnalysis s : previous) {
+            if (!dirty.contains(RepoSnapshot.normalize(s.getWorkingDirectory()))) merged.add(s);
+        }
+        merged.sort(Comparator.comparing((ServiceAnalysis s) -> triggerPath(context, s), StackDetectionService::compareTreeOrder));
+        for (int i = 0; i < merged.size(); i++) {
+            merged.get(i).setId(servicePrefix(merged.get(i).getStackType()) + i);
+        }
+
+        StackAnalysis single = null;
+        if (merged.size() == 1) {
+            ServiceFacts known = null;
+            for (int i = 0; i < fresh.size(); i++) {
+                if (fresh.get(i) == merged.get(0)) known = facts.get(i);
+            }
+            single = singleView(context, merged.get(0), known);
+        }
+
+        logReads("analyzeIncrementally", context);
+        return new IncrementalResult(merged, dirty, rootChanged, single, context.getBudget().getExhaustedReason());
+    }
+
+    /** Vue single d'un service sur le contexte courant ; {@code facts} null = faits recalculés depuis l'instantané. */
+    private StackAnalysis singleView(AnalysisContext context, ServiceAnalysis service, ServiceFacts facts) {
+        ServiceFacts primary = facts != null ? facts
+                : collectFacts(context, new DetectedStack(service.getStackType(), service.getWorkingDirectory()), 0);
+        return toStackAnalysis(new RepositoryAnalysis(context.listAsContents(""), List.of(primary), primary,
+                context.getBudget().getExhaustedReason()));
+    }
+
+    /**
+     * Dossiers (relatifs, "" = racine) dont la détection doit être refaite pour ces chemins modifiés,
+     * hors dépendances entre poms (voir {@link #mavenDependents}) : le dossier du fichier de build,
+     * et pour un script Gradle, les services Gradle de son dossier et en dessous (blocs subprojects / allprojects).
+     */
+    private static Set<String> dirtyDirectories(List<String> changedPaths, List<ServiceAnalysis> previous) {
+        Set<String> serviceDirs = new HashSet<>();
+        for (ServiceAnalysis s : previous) serviceDirs.add(RepoSnapshot.normalize(s.getWorkingDirectory()));
+
+        Set<String> dirty = new TreeSet<>();
+        for (String path : changedPaths) {
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            if (BUILD_FILES.contains(name)) {
+                dirty.add(RepoSnapshot.parentOf(path));
+            }
+            if ("build.gradle".equals(name) || "build.gradle.kts".equals(name)) {
+                String scriptDir = RepoSnapshot.parentOf(path);
+                for (ServiceAnalysis s : previous) {
+                    String dir = RepoSnapshot.normalize(s.getWorkingDirectory());
+                    if ("SPRING_BOOT_GRADLE".equals(s.getStackType()) && isWithin(dir, scriptDir)) dirty.add(dir);
+                }
+            }
+            if (path.equals(ANDROID_MANIFEST) || path.endsWith("/" + ANDROID_MANIFEST)) {
+                dirty.add(RepoSnapshot.normalize(path.substring(0, path.length() - ANDROID_MANIFEST.length())));
+            }
+            for (String dir : serviceDirs) {
+                for (String input : SERVICE_INPUTS) {
+                    if (path.equals(RepoSnapshot.join(dir, input))) dirty.add(dir);
+                }
+            }
+        }
+        return dirty;
+    }
+
+    private static boolean isWithin(String dir, String ancestor) {
+        return ancestor.isEmpty() || dir.equals(ancestor) || dir.startsWith(ancestor + "/");
+    }
+
+    /**
+     * Dossiers à refaire pour les pom.xml modifiés, d'après les poms lus à head : services Maven dont
+     * la chaîne de parents ou les modules (agrégateur) passent par un pom modifié, et modules déclarés
+     * par un pom modifié (un module peut devenir un service en héritant de Spring Boot).
+     * Modifier le pom d'un module feuille ne refait donc que ce module et les agrégateurs qui l'incluent.
+     */
+    private Set<String> mavenDependents(AnalysisContext context, List<String> changedPaths, List<ServiceAnalysis> previous) {
+        Set<String> changedPoms = new HashSet<>();
+        for (String path : changedPaths) {
+            if ("pom.xml".equals(path.substring(path.lastIndexOf('/') + 1))) changedPoms.add(RepoSnapshot.normalize(path));
+        }
+        Set<String> dirty = new TreeSet<>();
+        if (changedPoms.isEmpty()) return dirty;
+
+        for (ServiceAnalysis s : previous) {
+            if (!"SPRING_BOOT_MAVEN".equals(s.getStackType())) continue;
+            String dir = RepoSnapshot.normalize(s.getWorkingDirectory());
+            Set<String> inputs = new HashSet<>();
+            collectPomInputs(context, RepoSnapshot.join(dir, "pom.xml"), inputs, 0);
+            if (!Collections.disjoint(inputs, changedPoms)) dirty.add(dir);
+        }
+        for (String pomPath : changedPoms) {
+            PomModel pom = context.derive(pomPath, "pom", PomModel::tryParse);
+            if (pom == null || !pom.isAggregator()) continue;
+            for (String modulePath : pom.modulePomPaths(RepoSnapshot.parentOf(pomPath))) {
+                if (!analysisLimits.isExcluded(modulePath)) dirty.add(RepoSnapshot.parentOf(modulePath));
+            }
+        }
+        return dirty;
+    }
+
+    /** Poms dont dépend le modèle effectif de {@code pomPath} : chaîne de parents déclarés, modules et leurs propres poms. */
+    private void collectPomInputs(AnalysisContext context, String pomPath, Set<String> out, int depth) {
+        PomModel pom = context.derive(pomPath, "pom", PomModel::tryParse);
+        if (pom == null || depth >= MAX_POM_DEPTH) return;
+        String current = pomPath;
+        PomModel model = pom;
+        for (int i = 0; model != null && i < MAX_POM_DEPTH; i++) {
+            String parentPath = model.parentPomPath(RepoSnapshot.parentOf(current));
+            // un parent supprimé reste déclaré : le service qui en héritait est à refaire
+            if (parentPath == null || !out.add(parentPath)) break;
+            current = parentPath;
+            model = context.derive(parentPath, "pom", PomModel::tryParse);
+        }
+        if (!pom.isAggregator()) return;
+        for (String modulePath : pom.modulePomPaths(RepoSnapshot.parentOf(pomPath))) {
+            if (out.add(modulePath)) collectPomInputs(context, modulePath, out, depth + 1);
+        }
+    }
+
+    /** Fichier de build qui a fait détecter le service : sa position dans l'arbre donne l'ordre de détection. */
+    private static String triggerPath(AnalysisContext context, ServiceAnalysis s) {
+        String dir = s.getWorkingDirectory();
+        switch (s.getStackType()) {
+            case "SPRING_BOOT_MAVEN": return RepoSnapshot.join(dir, "pom.xml");
+            case "SPRING_BOOT_GRADLE":
+                return context.isFile(RepoSnapshot.join(dir, "build.gradle"))
+                        ? RepoSnapshot.join(dir, "build.gradle") : RepoSnapshot.join(dir, "build.gradle.kts");
+            case "NODE_JS": return RepoSnapshot.join(dir, "package.json");
+            default: return RepoSnapshot.normalize(dir);
+        }
+    }
+
+    /** Ordre du parcours en profondeur de l'arbre (enfants triés par nom), segment par segment. */
+    private static int compareTreeOrder(String a, String b) {
+        String[] sa = a.split("/");
+        String[] sb = b.split("/");
+        for (int i = 0; i < Math.min(sa.length, sb.length); i++) {
+            int c = sa[i].compareTo(sb[i]);
+            if (c != 0) return c;
+        }
+        return Integer.compare(sa.length, sb.length);
+    }
+
     /**
      * Crée un service structuré avec toutes les métadonnées nécessaires
      */
-    private Map<String, Object> createStructuredService(DetectedStack detected, String repoUrl, String token, int index) {
+    private Map<String, Object> createStructuredService(DetectedStack detected, AnalysisContext context, int index) {
         Map<String, Object> service = new HashMap<>();
 
         // Métadonnées
         service.put("id", generateServiceId(detected, index));
         service.put("name", generateServiceName(detected));
-        service.put("kind", determineServiceKind(detected, repoUrl, token));
-        service.put("framework", detectDetailedFramework(detected, repoUrl, token));
+        service.put("kind", determineServiceKind(detected, context));
+        service.put("framework", detectDetailedFramework(detected, context));
         service.put("contextDir", detected.workingDirectory);
         service.put("buildTool", detectBuildTool(detected.stackType));
 
         service.put("orchestrator","github-actions");
         if (detected.stackType.contains("SPRING_BOOT")) {
-            String jv = detectJavaVersion(repoUrl, token, detected.stackType, detected.workingDirectory);
+            String jv = detectJavaVersion(context, detected.stackType, detected.workingDirectory);
             service.put("javaVersion", jv); // ex: "17"
         } else {
             service.put("javaVersion", null); // pour Node/others
         }
 
         // Build / Runtime / Env
-        Map<String, Object> artifact = createArtifactConfig(detected, repoUrl, token);
-        Map<String, Object> runtime = createRuntimeConfig(detected, repoUrl, token);
-        Map<String, Object> env = createEnvironmentConfig(detected, repoUrl, token);
+        Map<String, Object> artifact = createArtifactConfig(detected, context);
+        Map<String, Object> runtime = createRuntimeConfig(detected, context);
+        Map<String, Object> env = createEnvironmentConfig(detected, context);
 
         service.put("artifact", artifact);
         service.put("runtime", runtime);
@@ -182,11 +521,11 @@ public class StackDetectionService {
         // DB si Spring
         if (detected.stackType.contains("SPRING_BOOT")) {
             try {
-                String buildFileContent = getBuildFileContent(repoUrl, token, detected);
-                String databaseType = detectDatabaseType(buildFileContent);
+                DetectionRules.Matches build = getBuildFileRules(context, detected);
+                String databaseType = detectDatabaseType(build);
                 if (!"NONE".equals(databaseType)) {
                     service.put("databaseType", databaseType);
-                    service.put("databaseName", extractDatabaseName(repoUrl, token, detected.workingDirectory));
+                    service.put("databaseName", extractDatabaseName(context, detected.workingDirectory));
                 }
             } catch (Exception ignored) {}
         }
@@ -207,11 +546,11 @@ public class StackDetectionService {
         return dirName + "-service";
     }
 
-    private String determineServiceKind(DetectedStack detected, String repoUrl, String token) {
+    private String determineServiceKind(DetectedStack detected, AnalysisContext context) {
         if (detected.stackType.contains("SPRING_BOOT")) return "backend";
         if ("NODE_JS".equals(detected.stackType)) {
             try {
-                String pkg = gitHubService.getFileContent(repoUrl, token, detected.workingDirectory + "/package.json");
+                DetectionRules.Matches pkg = readRules(context, detected.workingDirectory + "/package.json", DetectionRules.PACKAGE_JSON);
                 return isNodeBackend(pkg) ? "backend" : "frontend";
             } catch (Exception e) {
                 return "frontend";
@@ -220,15 +559,15 @@ public class StackDetectionService {
         return "service";
     }
 
-    private String detectDetailedFramework(DetectedStack detected, String repoUrl, String token) {
+    private String detectDetailedFramework(DetectedStack detected, AnalysisContext context) {
         if (detected.stackType.contains("SPRING_BOOT")) return "spring-boot";
         if ("NODE_JS".equals(detected.stackType)) {
             try {
-                String pkg = gitHubService.getFileContent(repoUrl, token, detected.workingDirectory + "/package.json");
+                DetectionRules.Matches pkg = readRules(context, detected.workingDirectory + "/package.json", DetectionRules.PACKAGE_JSON);
                 String fw = detectNodeFramework(pkg);
                 if ("React".equals(fw)) {
-                    if (pkg.contains("\"vite\"")) return "react-vite";
-                    if (pkg.contains("\"react-scripts\"")) return "react-cra";
+                    if (pkg.has("\"vite\"")) return "react-vite";
+                    if (pkg.has("\"react-scripts\"")) return "react-cra";
                     return "react";
                 }
                 return fw.toLowerCase().replace(".js", "").replace(" ", "-");
@@ -239,7 +578,7 @@ public class StackDetectionService {
         return "generic";
     }
 
-    private Map<String, Object> createArtifactConfig(DetectedStack detected, String repoUrl, String token) {
+    private Map<String, Object> createArtifactConfig(DetectedStack detected, AnalysisContext context) {
         Map<String, Object> artifact = new HashMap<>();
 
         if (detected.stackType.contains("SPRING_BOOT")) {
@@ -252,7 +591,7 @@ public class StackDetectionService {
             }
         } else if ("NODE_JS".equals(detected.stackType)) {
             try {
-                String pkg = gitHubService.getFileContent(repoUrl, token, detected.workingDirectory + "/package.json");
+                DetectionRules.Matches pkg = readRules(context, detected.workingDirectory + "/package.json", DetectionRules.PACKAGE_JSON);
                 String fw = detectNodeFramework(pkg);
 
                 if ("Next.js".equals(fw)) {
@@ -286,21 +625,21 @@ public class StackDetectionService {
         return artifact;
     }
 
-    private String detectReactOutputPath(String packageContent) {
-        if (packageContent != null && packageContent.contains("\"vite\"")) return "dist";
-        if (packageContent != null && packageContent.contains("\"react-scripts\"")) return "build";
+    private String detectReactOutputPath(DetectionRules.Matches pkg) {
+        if (pkg != null && pkg.has("\"vite\"")) return "dist";
+        if (pkg != null && pkg.has("\"react-scripts\"")) return "build";
         return "build";
     }
 
-    private Map<String, Object> createRuntimeConfig(DetectedStack detected, String repoUrl, String token) {
+    private Map<String, Object> createRuntimeConfig(DetectedStack detected, AnalysisContext context) {
         Map<String, Object> runtime = new HashMap<>();
 
         if (detected.stackType.contains("SPRING_BOOT")) {
-            runtime.put("port", extractSpringBootPort(repoUrl, token, detected.workingDirectory));
+            runtime.put("port", extractSpringBootPort(context, detected.workingDirectory));
             runtime.put("startCommand", "java -jar app.jar");
         } else if ("NODE_JS".equals(detected.stackType)) {
             try {
-                String pkg = gitHubService.getFileContent(repoUrl, token, detected.workingDirectory + "/package.json");
+                DetectionRules.Matches pkg = readRules(context, detected.workingDirectory + "/package.json", DetectionRules.PACKAGE_JSON);
                 String fw = detectNodeFramework(pkg);
 
                 if ("Next.js".equals(fw)) {
@@ -322,40 +661,34 @@ public class StackDetectionService {
         return runtime;
     }
 
-    private String extractSpringBootPort(String repoUrl, String token, String workingDirectory) {
+    private String extractSpringBootPort(AnalysisContext context, String workingDirectory) {
         try {
-            String props = gitHubService.getFileContent(repoUrl, token, workingDirectory + "/src/main/resources/application.properties");
-            if (props != null) {
-                Matcher m = Pattern.compile("server\\.port\\s*=\\s*(\\d+)").matcher(props);
-                if (m.find()) return m.group(1);
-            }
+            DetectionRules.Matches props = readRules(context, workingDirectory + "/src/main/resources/application.properties", DetectionRules.APPLICATION_PROPERTIES);
+            String port = props.capture("serverPort");
+            if (port != null) return port;
         } catch (Exception ignored) {}
 
         try {
-            String yml = gitHubService.getFileContent(repoUrl, token, workingDirectory + "/src/main/resources/application.yml");
-            if (yml != null) {
-                Matcher m = Pattern.compile("port:\\s*(\\d+)").matcher(yml);
-                if (m.find()) return m.group(1);
-            }
+            DetectionRules.Matches yml = readRules(context, workingDirectory + "/src/main/resources/application.yml", DetectionRules.APPLICATION_YML);
+            String port = yml.capture("serverPort");
+            if (port != null) return port;
         } catch (Exception ignored) {}
 
         return "8080";
     }
 
-    private String extractNodePort(String packageContent) {
-        if (packageContent == null) return "3000";
-        Matcher m = Pattern.compile("PORT[=:]\\s*(\\d+)").matcher(packageContent);
-        if (m.find()) return m.group(1);
-        return "3000";
+    private String extractNodePort(DetectionRules.Matches pkg) {
+        String port = pkg == null ? null : pkg.capture("port");
+        return port != null ? port : "3000";
     }
 
-    private Map<String, Object> createEnvironmentConfig(DetectedStack detected, String repoUrl, String token) {
+    private Map<String, Object> createEnvironmentConfig(DetectedStack detected, AnalysisContext context) {
         Map<String, Object> env = new HashMap<>();
 
         if (detected.stackType.contains("SPRING_BOOT")) {
             try {
-                String buildFileContent = getBuildFileContent(repoUrl, token, detected);
-                String dbType = detectDatabaseType(buildFileContent);
+                DetectionRules.Matches build = getBuildFileRules(context, detected);
+                String dbType = detectDatabaseType(build);
 
                 if (!"NONE".equals(dbType)) {
                     switch (dbType) {
@@ -385,7 +718,7 @@ public class StackDetectionService {
 
         } else if ("NODE_JS".equals(detected.stackType)) {
             try {
-                String pkg = gitHubService.getFileContent(repoUrl, token, detected.workingDirectory + "/package.json");
+                DetectionRules.Matches pkg = readRules(context, detected.workingDirectory + "/package.json", DetectionRules.PACKAGE_JSON);
                 String fw = detectNodeFramework(pkg);
 
                 env.put("NODE_ENV", "production");
@@ -481,61 +814,31 @@ public class StackDetectionService {
         }
     }
 
-    public Map<String, Object> generateDockerConfiguration(String repoUrl, String token, String defaultBranch) {
-        Map<String, Object> dockerConfig = new HashMap<>();
-        List<Map<String, Object>> files = gitHubService.getRepositoryContents(repoUrl, token, null);
-
-        List<DetectedStack> services = detectAllServices(files, repoUrl, token, "");
-        List<Map<String, Object>> serviceConfigs = new ArrayList<>();
-
-        for (DetectedStack service : services) {
-            Map<String, Object> cfg = new HashMap<>();
-            cfg.put("type", service.stackType);
-            cfg.put("workingDirectory", service.workingDirectory);
-            cfg.put("buildTool", detectBuildTool(service.stackType));
-            cfg.put("language", detectLanguage(service.stackType));
-
-            if (service.stackType.contains("SPRING_BOOT")) {
-                configureSpringBootService(cfg, repoUrl, token, service);
-            } else if ("NODE_JS".equals(service.stackType)) {
-                configureNodeJsService(cfg, repoUrl, token, service);
-            }
-
-            serviceConfigs.add(cfg);
-        }
-
-        dockerConfig.put("services", serviceConfigs);
-        dockerConfig.put("hasDatabase", serviceConfigs.stream().anyMatch(s -> s.containsKey("databaseType")));
-        dockerConfig.put("totalServices", serviceConfigs.size());
-
-        return dockerConfig;
-    }
-
-    private void configureSpringBootService(Map<String, Object> serviceConfig, String repoUrl, String token, DetectedStack service) {
+    private void configureSpringBootService(Map<String, Object> serviceConfig, AnalysisContext context, DetectedStack service) {
         try {
-            String javaVersion = detectJavaVersion(repoUrl, token, service.stackType, service.workingDirectory);
+            String javaVersion = detectJavaVersion(context, service.stackType, service.workingDirectory);
             serviceConfig.put("javaVersion", javaVersion);
 
-            String buildFileContent = getBuildFileContent(repoUrl, token, service);
+            DetectionRules.Matches build = getBuildFileRules(context, service);
 
-            String databaseType = detectDatabaseType(buildFileContent);
+            String databaseType = detectDatabaseType(build);
             if (!"NONE".equals(databaseType)) {
                 serviceConfig.put("databaseType", databaseType);
-                serviceConfig.put("databaseName", extractDatabaseName(repoUrl, token, service.workingDirectory));
+                serviceConfig.put("databaseName", extractDatabaseName(context, service.workingDirectory));
             }
 
-            serviceConfig.put("dependencies", extractDependencies(buildFileContent, service.stackType));
-            serviceConfig.put("packaging", extractPackaging(buildFileContent));
-            serviceConfig.put("springBootVersion", extractSpringBootVersion(buildFileContent, service.stackType));
+            serviceConfig.put("dependencies", extractDependencies(build, service.stackType));
+            serviceConfig.put("packaging", extractPackaging(context, service.stackType, service.workingDirectory));
+            serviceConfig.put("springBootVersion", extractSpringBootVersion(context, build, service.stackType, service.workingDirectory));
 
         } catch (Exception e) {
             serviceConfig.put("error", "Failed to analyze Spring Boot service: " + e.getMessage());
         }
     }
 
-    private void configureNodeJsService(Map<String, Object> serviceConfig, String repoUrl, String token, DetectedStack service) {
+    private void configureNodeJsService(Map<String, Object> serviceConfig, AnalysisContext context, DetectedStack service) {
         try {
-            String pkg = gitHubService.getFileContent(repoUrl, token, service.workingDirectory + "/package.json");
+            DetectionRules.Matches pkg = readRules(context, service.workingDirectory + "/package.json", DetectionRules.PACKAGE_JSON);
 
             serviceConfig.put("framework", detectNodeFramework(pkg));
             serviceConfig.put("nodeVersion", extractNodeVersion(pkg));
@@ -550,184 +853,335 @@ public class StackDetectionService {
     }
 
     /**
-     * Scan récursif de tous les services
+     * Détection multi-services : les fichiers de build sont d'abord chargés en parallèle
+     * (ils restent dans le cache de blobs), puis l'arbre est parcouru dans l'ordre habituel.
+     * Ils sont trouvés par nom dans l'index de l'instantané ({@link RepoPathIndex}), sans parcourir tous les fichiers.
+     * Les settings.gradle(.kts) passent en premier : les scripts Gradle des dossiers qu'ils
+     * n'incluent pas ne sont pas chargés, pas plus que ceux des dossiers exclus du parcours
+     * (node_modules, target, fixtures... voir {@link AnalysisLimits}).
      */
-    private List<DetectedStack> detectAllServices(List<Map<String, Object>> files, String repoUrl, String token, String currentPath) {
+    private List<DetectedStack> detectAllServices(String token, AnalysisContext context) {
+        RepoPathIndex paths = context.paths();
+        List<String> settings = new ArrayList<>();
+        for (String name : GRADLE_SETTINGS) {
+            for (String path : paths.filesNamed(name)) {
+                if (!analysisLimits.isExcluded(path)) settings.add(path);
+            }
+        }
+        taskExecutor.invokeAll(token, settings, context::read);
+
+        List<String> buildFiles = new ArrayList<>();
+        for (String name : BUILD_FILES) {
+            for (String path : paths.filesNamed(name)) {
+                if (analysisLimits.isExcluded(path)) continue;
+                if (name.startsWith("build.gradle") && !isGradleProject(context, RepoSnapshot.parentOf(path))) continue;
+                buildFiles.add(path);
+            }
+        }
+        taskExecutor.invokeAll(token, buildFiles, context::read);
+        return detectAllServices(context, "");
+    }
+
+    private static List<Integer> indices(int size) {
+        List<Integer> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) out.add(i);
+        return out;
+    }
+
+    /**
+     * Scan récursif de tous les services (parcours de l'arbre en mémoire, aucun appel par dossier).
+     * Les dossiers exclus et trop profonds ne sont pas parcourus ; le parcours s'arrête
+     * (services trouvés jusque-là conservés) dès que le budget de l'analyse est épuisé.
+     */
+    private List<DetectedStack> detectAllServices(AnalysisContext context, String currentPath) {
         List<DetectedStack> services = new ArrayList<>();
 
-        for (Map<String, Object> file : files) {
-            String fileName = (String) file.get("name");
-            String type = (String) file.get("type");
-            String newPath = currentPath.isEmpty() ? fileName : currentPath + "/" + fileName;
+        for (RepoSnapshot.Entry file : context.list(currentPath)) {
+            String fileName = file.getName();
+            String type = file.getType();
+            String newPath = file.getPath();
 
+            if (!context.getBudget().visit()) break;
             if ("Dockerfile".equals(fileName) || "docker-compose.yml".equals(fileName)) continue;
 
-            // ---------- CHANGEMENT: détection stricte ----------
-            if ("pom.xml".equals(fileName)) {
-                String pom = gitHubService.getFileContent(repoUrl, token, (currentPath.isEmpty()? "" : currentPath + "/") + "pom.xml");
-                if (isSpringBootPom(pom)) {
-                    services.add(new DetectedStack("SPRING_BOOT_MAVEN", currentPath.isEmpty() ? "." : "./" + currentPath));
-                }
-            }
+            DetectedStack detected = detectWithinBudget(context, currentPath, fileName);
+            if (detected != null) services.add(detected);
 
-            if ("build.gradle".equals(fileName) || "build.gradle.kts".equals(fileName)) {
-                String gradle = gitHubService.getFileContent(repoUrl, token, (currentPath.isEmpty()? "" : currentPath + "/") + fileName);
-                if (!isAndroidRepo(repoUrl, token, currentPath) && isSpringBootGradle(gradle)) {
-                    services.add(new DetectedStack("SPRING_BOOT_GRADLE", currentPath.isEmpty() ? "." : "./" + currentPath));
-                }
+            if (RepoSnapshot.TYPE_DIR.equals(type)
+                    && !analysisLimits.isPruned(fileName) && !analysisLimits.isTooDeep(newPath)) {
+                services.addAll(detectAllServices(context, newPath));
             }
+        }
 
-            if ("package.json".equals(fileName)) {
-                String pkg = gitHubService.getFileContent(repoUrl, token, (currentPath.isEmpty()? "" : currentPath + "/") + "package.json");
-                if (!isMobileNodePackage(pkg)) {
-                    services.add(new DetectedStack("NODE_JS", currentPath.isEmpty() ? "." : "./" + currentPath));
-                }
+        return services;
+    }
+
+    /** Services déclarés directement dans un dossier (sans descendre dans les sous-dossiers). */
+    private List<DetectedStack> detectServicesIn(AnalysisContext context, String dir) {
+        List<DetectedStack> services = new ArrayList<>();
+        if (analysisLimits.isExcluded(RepoSnapshot.join(dir, "pom.xml"))) return services;
+        for (RepoSnapshot.Entry file : context.list(dir)) {
+            if (RepoSnapshot.TYPE_DIR.equals(file.getType())) continue;
+            if (!context.getBudget().visit()) break;
+            DetectedStack detected = detectWithinBudget(context, dir, file.getName());
+            if (detected != null) services.add(detected);
+        }
+        return services;
+    }
+
+    /** {@link #detectBuildFile}, sauf qu'un fichier que le budget ne permet plus de lire n'arrête pas l'analyse. */
+    private DetectedStack detectWithinBudget(AnalysisContext context, String currentPath, String fileName) {
+        try {
+            return detectBuildFile(context, currentPath, fileName);
+        } catch (RuntimeException e) {
+            if (context.getBudget().isExhausted()) return null;
+            throw e;
+        }
+    }
+
+    /** Service déclaré par le fichier {@code fileName} du dossier {@code currentPath}, ou null. */
+    private DetectedStack detectBuildFile(AnalysisContext context, String currentPath, String fileName) {
+        // ---------- CHANGEMENT: détection stricte ----------
+        if ("pom.xml".equals(fileName)) {
+            if (isSpringBootMaven(context, currentPath)) {
+                return new DetectedStack("SPRING_BOOT_MAVEN", currentPath.isEmpty() ? "." : "./" + currentPath);
             }
-            // ---------------------------------------------------
+        }
 
-            if ("dir".equals(type)) {
-                List<Map<String, Object>> subFiles = gitHubService.getRepositoryContents(repoUrl, token, newPath);
-                services.addAll(detectAllServices(subFiles, repoUrl, token, newPath));
+        if ("build.gradle".equals(fileName) || "build.gradle.kts".equals(fileName)) {
+            if (!isAndroidRepo(context, currentPath) && isSpringBootGradle(effectiveGradle(context, currentPath, fileName))) {
+                return new DetectedStack("SPRING_BOOT_GRADLE", currentPath.isEmpty() ? "." : "./" + currentPath);
             }
         }
 
-        return services;
+        if ("package.json".equals(fileName)) {
+            DetectionRules.Matches pkg = readRules(context, (currentPath.isEmpty()? "" : currentPath + "/") + "package.json", DetectionRules.PACKAGE_JSON);
+            if (!isMobileNodePackage(pkg)) {
+                return new DetectedStack("NODE_JS", currentPath.isEmpty() ? "." : "./" + currentPath);
+            }
+        }
+        // ---------------------------------------------------
+        return null;
     }
 
-    private String detectDatabaseType(String buildFileContent) {
-        if (buildFileContent == null || buildFileContent.isEmpty()) return "NONE";
-        if (buildFileContent.contains("spring-boot-starter-data-mongodb")) return "MongoDB";
-        if (buildFileContent.contains("mysql-connector-java") || buildFileContent.contains("mysql")) return "MySQL";
-        if (buildFileContent.contains("postgresql") || buildFileContent.contains("postgres")) return "PostgreSQL";
-        if (buildFileContent.contains("h2database") || buildFileContent.contains("com.h2database")) return "H2";
-        if (buildFileContent.contains("oracle") || buildFileContent.contains("ojdbc")) return "Oracle";
-        if (buildFileContent.contains("sqlserver") || buildFileContent.contains("mssql")) return "SQLServer";
-        if (buildFileContent.contains("spring-boot-starter-data-jpa")) return "JPA_GENERIC";
+    private String detectDatabaseType(DetectionRules.Matches build) {
+        if (build == null) return "NONE";
+        if (build.has("spring-boot-starter-data-mongodb")) return "MongoDB";
+        if (build.hasAny("mysql-connector-java", "mysql")) return "MySQL";
+        if (build.hasAny("postgresql", "postgres")) return "PostgreSQL";
+        if (build.hasAny("h2database", "com.h2database")) return "H2";
+        if (build.hasAny("oracle", "ojdbc")) return "Oracle";
+        if (build.hasAny("sqlserver", "mssql")) return "SQLServer";
+        if (build.has("spring-boot-starter-data-jpa")) return "JPA_GENERIC";
         return "NONE";
     }
 
-    private String detectDatabaseTypeFromStack(String repoUrl, String token, String stackType, String workingDirectory) {
+    private String detectDatabaseTypeFromStack(AnalysisContext context, String stackType, String workingDirectory) {
         try {
-            String buildFileContent = getBuildFileContentByType(repoUrl, token, stackType, workingDirectory);
-            return detectDatabaseType(buildFileContent);
+            return detectDatabaseType(getBuildFileRules(context, stackType, workingDirectory));
         } catch (Exception e) {
             return "NONE";
         }
     }
 
-    private String extractDatabaseName(String repoUrl, String token, String workingDirectory) {
+    private String extractDatabaseName(AnalysisContext context, String workingDirectory) {
         try {
-            String props = gitHubService.getFileContent(repoUrl, token, workingDirectory + "/src/main/resources/application.properties");
-            String dbName = parseDatabaseNameFromProperties(props);
-            if (!"my_database".equals(dbName)) return dbName;
+            DetectionRules.Matches props = readRules(context, workingDirectory + "/src/main/resources/application.properties", DetectionRules.APPLICATION_PROPERTIES);
+            String dbName = props.capture("databaseName");
+            if (dbName != null && !"my_database".equals(dbName)) return dbName;
         } catch (Exception ignored) {}
 
         try {
-            String yml = gitHubService.getFileContent(repoUrl, token, workingDirectory + "/src/main/resources/application.yml");
-            String dbName = parseDatabaseNameFromYml(yml);
-            if (!"my_database".equals(dbName)) return dbName;
+            DetectionRules.Matches yml = readRules(context, workingDirectory + "/src/main/resources/application.yml", DetectionRules.APPLICATION_YML);
+            String dbName = yml.capture("databaseName");
+            if (dbName != null && !"my_database".equals(dbName)) return dbName;
         } catch (Exception ignored) {}
 
         return "my_database";
     }
 
-    private String parseDatabaseNameFromProperties(String content) {
-        if (content == null) return "my_database";
+    /** Règles du fichier de build d'un service Spring Boot, null pour les autres stacks. */
+    private DetectionRules.Matches getBuildFileRules(AnalysisContext context, DetectedStack service) {
+        return getBuildFileRules(context, service.stackType, service.workingDirectory);
+    }
 
-        Matcher m = Pattern.compile("spring\\.datasource\\.url=.*[:/]([\\w-]+)(?:\\?|$)").matcher(content);
-        if (m.find()) return m.group(1);
+    private DetectionRules.Matches getBuildFileRules(AnalysisContext context, String stackType, String workingDirectory) {
+        if ("SPRING_BOOT_MAVEN".equals(stackType))
+            return mavenDependencyRules(context, workingDirectory);
+        else if ("SPRING_BOOT_GRADLE".equals(stackType))
+            return gradleDependencyRules(context, workingDirectory);
+        return null;
+    }
 
-        m = Pattern.compile("spring\\.data\\.mongodb\\.database=([\\w-]+)").matcher(content);
-        if (m.find()) return m.group(1);
+    private String extractDependencies(DetectionRules.Matches build, String stackType) {
+        if ("SPRING_BOOT_MAVEN".equals(stackType) || "SPRING_BOOT_GRADLE".equals(stackType)) return extractSpringDependencies(build);
+        return "No dependencies detected";
+    }
 
-        m = Pattern.compile("spring\\.datasource\\.url=.*/(\\w+)").matcher(content);
-        if (m.find()) return m.group(1);
+    private String extractSpringBootVersion(AnalysisContext context, DetectionRules.Matches build, String stackType, String workingDirectory) {
+        if ("SPRING_BOOT_MAVEN".equals(stackType)) return mavenSpringBootVersion(context, workingDirectory);
+        if ("SPRING_BOOT_GRADLE".equals(stackType)) return gradleSpringBootVersion(context, workingDirectory);
+        return "Unknown";
+    }
 
-        return "my_database";
+    private String extractPackaging(AnalysisContext context, String stackType, String workingDirectory) {
+        if (!"SPRING_BOOT_MAVEN".equals(stackType)) return "jar";
+        PomModel pom = effectivePom(context, workingDirectory);
+        if (pom != null) return pom.getPackaging();
+        return captureOr(readRules(context, workingDirectory + "/pom.xml", DetectionRules.POM), "packaging", "jar");
     }
 
-    private String parseDatabaseNameFromYml(String content) {
-        if (content == null) return "my_database";
+    // ---------- Maven : modèle du pom (StAX) ----------
 
-        Matcher m = Pattern.compile("url:.*[:/]([\\w-]+)(?:\\?|$)").matcher(content);
-        if (m.find()) return m.group(1);
+    /**
+     * Modèle effectif du pom.xml de {@code dir} : le pom complété par ses parents présents dans le
+     * repository (relativePath, ../pom.xml par défaut). Null si le pom est absent ou n'est pas du XML valide.
+     */
+    private PomModel effectivePom(AnalysisContext context, String dir) {
+        return effectivePomAt(context, RepoSnapshot.join(dir, "pom.xml"), 0);
+    }
 
-        m = Pattern.compile("database:\\s*([\\w-]+)").matcher(content);
-        if (m.find()) return m.group(1);
+    private PomModel effectivePomAt(AnalysisContext context, String pomPath, int depth) {
+        PomModel pom = context.derive(pomPath, "pom", PomModel::tryParse);
+        if (pom == null || depth >= MAX_POM_DEPTH) return pom;
+        String parentPath = pom.parentPomPath(RepoSnapshot.parentOf(pomPath));
+        if (parentPath == null || parentPath.equals(pomPath) || !context.isFile(parentPath)) return pom;
+        if (!pom.isParent(context.derive(parentPath, "pom", PomModel::tryParse))) return pom;
+        return pom.inherit(effectivePomAt(context, parentPath, depth + 1));
+    }
 
-        return "my_database";
+    /**
+     * Règles évaluées sur les coordonnées des dépendances déclarées (héritées comprises, et celles des
+     * modules pour un agrégateur) au lieu du texte brut du pom. Repli sur le texte si le pom est illisible.
+     */
+    private DetectionRules.Matches mavenDependencyRules(AnalysisContext context, String dir) {
+        String pomPath = RepoSnapshot.join(dir, "pom.xml");
+        PomModel pom = effectivePom(context, dir);
+        if (pom == null) return readRules(context, pomPath, DetectionRules.POM);
+        StringBuilder coordinates = new StringBuilder();
+        collectCoordinates(context, pomPath, pom, coordinates, 0);
+        return DetectionRules.POM.evaluate(coordinates.toString());
     }
 
-    private String getBuildFileContent(String repoUrl, String token, DetectedStack service) throws Exception {
-        if ("SPRING_BOOT_MAVEN".equals(service.stackType))
-            return gitHubService.getFileContent(repoUrl, token, service.workingDirectory + "/pom.xml");
-        else if ("SPRING_BOOT_GRADLE".equals(service.stackType))
-            return gitHubService.getFileContent(repoUrl, token, service.workingDirectory + "/build.gradle");
-        return "";
+    private void collectCoordinates(AnalysisContext context, String pomPath, PomModel pom, StringBuilder out, int depth) {
+        out.append(pom.dependencyCoordinates());
+        if (!pom.isAggregator() || depth >= MAX_POM_DEPTH) return;
+        for (String modulePath : pom.modulePomPaths(RepoSnapshot.parentOf(pomPath))) {
+            if (modulePath.equals(pomPath)) continue;
+            PomModel module = effectivePomAt(context, modulePath, 0);
+            if (module != null) collectCoordinates(context, modulePath, module, out, depth + 1);
+        }
     }
 
-    private String getBuildFileContentByType(String repoUrl, String token, String stackType, String workingDirectory) throws Exception {
-        if ("SPRING_BOOT_MAVEN".equals(stackType))
-            return gitHubService.getFileContent(repoUrl, token, workingDirectory + "/pom.xml");
-        else if ("SPRING_BOOT_GRADLE".equals(stackType))
-            return gitHubService.getFileContent(repoUrl, token, workingDirectory + "/build.gradle");
-        return "";
+    private boolean isSpringBootMaven(AnalysisContext context, String dir) {
+        PomModel pom = effectivePom(context, dir);
+        if (pom != null) return pom.usesSpringBoot();
+        return isSpringBootPom(readRules(context, RepoSnapshot.join(dir, "pom.xml"), DetectionRules.POM));
     }
 
-    private String extractDependencies(String buildFileContent, String stackType) {
-        if ("SPRING_BOOT_MAVEN".equals(stackType)) return extractMavenDependencies(buildFileContent);
-        if ("SPRING_BOOT_GRADLE".equals(stackType)) return extractGradleDependencies(buildFileContent);
-        return "No dependencies detected";
+    private String mavenJavaVersion(AnalysisContext context, String dir) {
+        PomModel pom = effectivePom(context, dir);
+        if (pom == null) return captureOr(readRules(context, RepoSnapshot.join(dir, "pom.xml"), DetectionRules.POM), "javaVersion", "17");
+        String version = pom.getJavaVersion();
+        return version != null ? version : "17";
     }
 
-    private String extractSpringBootVersion(String buildFileContent, String stackType) {
-        if ("SPRING_BOOT_MAVEN".equals(stackType)) return extractSpringBootVersionFromPom(buildFileContent);
-        if ("SPRING_BOOT_GRADLE".equals(stackType)) return extractSpringBootVersionFromGradle(buildFileContent);
-        return "Unknown";
+    // ---------- Gradle : scripts lus par le lexer ----------
+
+    /**
+     * Script effectif de {@code fileName} (build.gradle par défaut, sinon build.gradle.kts) dans {@code dir}.
+     * Dans un build multi-projets (settings.gradle(.kts) dans le dossier ou un ancêtre), seuls les projets
+     * inclus par le settings en sont : les autres dossiers renvoient null sans que leur script soit lu,
+     * et un sous-projet reçoit les blocs subprojects / allprojects du script racine.
+     */
+    private GradleScript effectiveGradle(AnalysisContext context, String dir, String fileName) {
+        String d = RepoSnapshot.normalize(dir);
+        if (!isGradleProject(context, d)) return null;
+        String root = gradleSettingsRoot(context, d);
+
+        String scriptPath = fileName != null ? RepoSnapshot.join(d, fileName) : gradleFile(context, d, List.of("build.gradle", "build.gradle.kts"));
+        if (scriptPath == null) return null;
+        GradleScript script = context.derive(scriptPath, "gradle", GradleScript::parse);
+        if (script == null || root == null || root.equals(d)) return script;
+
+        String rootScript = gradleFile(context, root, List.of("build.gradle", "build.gradle.kts"));
+        return script.withRoot(rootScript == null ? null : context.derive(rootScript, "gradle", GradleScript::parse));
     }
 
-    private String extractNodeDependencies(String packageContent) {
-        if (packageContent == null) return "No major dependencies detected";
-        StringBuilder deps = new StringBuilder();
-        if (packageContent.contains("\"react\"")) deps.append("react, ");
-        if (packageContent.contains("\"vue\"")) deps.append("vue, ");
-        if (packageContent.contains("\"angular\"")) deps.append("angular, ");
-        if (packageContent.contains("\"express\"")) deps.append("express, ");
-        if (packageContent.contains("\"next\"")) deps.append("next, ");
-        if (packageContent.contains("\"nuxt\"")) deps.append("nuxt, ");
-        if (packageContent.contains("\"typescript\"")) deps.append("typescript, ");
-        if (packageContent.contains("\"webpack\"")) deps.append("webpack, ");
-        if (packageContent.contains("\"vite\"")) deps.append("vite, ");
-        return deps.length() == 0 ? "No major dependencies detected" : deps.substring(0, deps.length() - 2);
-    }
-
-    private boolean isNodeBackend(String packageContent) {
-        return packageContent != null && (
-                packageContent.contains("\"express\"") ||
-                packageContent.contains("\"koa\"") ||
-                packageContent.contains("\"fastify\"") ||
-                packageContent.contains("\"nestjs\"") ||
-                packageContent.contains("\"hapi\"") ||
-                packageContent.contains("\"socket.io\"")
-        );
+    /** Le dossier est-il un projet de son build Gradle : hors de tout build multi-projets, racine du settings, ou inclus par lui ? */
+    private boolean isGradleProject(AnalysisContext context, String dir) {
+        String d = RepoSnapshot.normalize(dir);
+        String root = gradleSettingsRoot(context, d);
+        if (root == null || root.equals(d)) return true;
+        GradleScript settings = context.derive(gradleFile(context, root, GRADLE_SETTINGS), "gradle", GradleScript::parse);
+        String relative = root.isEmpty() ? d : d.substring(root.length() + 1);
+        return settings != null && settings.getIncludedProjectDirs().contains(relative);
     }
 
-    private boolean isNodeFrontend(String packageContent) {
-        return packageContent != null && (
-                packageContent.contains("\"react\"") ||
-                packageContent.contains("\"vue\"") ||
-                packageContent.contains("\"angular\"") ||
-                packageContent.contains("\"svelte\"") ||
-                packageContent.contains("\"@angular/core\"") ||
-                packageContent.contains("\"react-dom\"")
-        );
+    /** Dossier du settings.gradle(.kts) le plus proche : le dossier lui-même ou un ancêtre, null si aucun. */
+    private static String gradleSettingsRoot(AnalysisContext context, String dir) {
+        for (String d = dir; ; d = RepoSnapshot.parentOf(d)) {
+            if (gradleFile(context, d, GRADLE_SETTINGS) != null) return d;
+            if (d.isEmpty()) return null;
+        }
+    }
+
+    /** Premier des fichiers {@code names} présent dans {@code dir}, ou null. */
+    private static String gradleFile(AnalysisContext context, String dir, List<String> names) {
+        for (String name : names) {
+            String path = RepoSnapshot.join(dir, name);
+            if (context.isFile(path)) return path;
+        }
+        return null;
+    }
+
+    private DetectionRules.Matches gradleDependencyRules(AnalysisContext context, String dir) {
+        GradleScript gradle = effectiveGradle(context, dir, null);
+        return gradle == null ? null : DetectionRules.GRADLE.evaluate(gradle.dependencyCoordinates());
+    }
+
+    private String gradleSpringBootVersion(AnalysisContext context, String dir) {
+        GradleScript gradle = effectiveGradle(context, dir, null);
+        String version = gradle == null ? null : gradle.getSpringBootVersion();
+        return version != null ? version : "Unknown";
+    }
+
+    private String mavenSpringBootVersion(AnalysisContext context, String dir) {
+        PomModel pom = effectivePom(context, dir);
+        if (pom == null) return captureOr(readRules(context, RepoSnapshot.join(dir, "pom.xml"), DetectionRules.POM), "springBootVersion", "Unknown");
+        String version = pom.getSpringBootVersion();
+        return version != null ? version : "Unknown";
+    }
+    // -------------------------------------------------
+
+    private String extractNodeDependencies(DetectionRules.Matches pkg) {
+        return listPresent(pkg, "No major dependencies detected",
+                "react", "vue", "angular", "express", "next", "nuxt", "typescript", "webpack", "vite");
+    }
+
+    private boolean isNodeBackend(DetectionRules.Matches pkg) {
+        return pkg != null && pkg.hasAny("\"express\"", "\"koa\"", "\"fastify\"", "\"nestjs\"", "\"hapi\"", "\"socket.io\"");
+    }
+
+    private boolean isNodeFrontend(DetectionRules.Matches pkg) {
+        return pkg != null && pkg.hasAny("\"react\"", "\"vue\"", "\"angular\"", "\"svelte\"", "\"@angular/core\"", "\"react-dom\"");
     }
 
-    private String tryReadNodeVersionFiles(String repoUrl, String token, String wd) {
+    /** Noms (entre guillemets dans package.json) présents, séparés par des virgules, dans l'ordre donné. */
+    private String listPresent(DetectionRules.Matches pkg, String none, String... names) {
+        if (pkg == null) return none;
+        StringBuilder out = new StringBuilder();
+        for (String name : names) {
+            if (pkg.has("\"" + name + "\"")) out.append(name).append(", ");
+        }
+        return out.length() == 0 ? none : out.substring(0, out.length() - 2);
+    }
+
+    private String tryReadNodeVersionFiles(AnalysisContext context, String wd) {
         String base = ".".equals(wd) ? "" : wd.replaceFirst("^\\./", "") + "/";
         for (String f : List.of(".nvmrc", ".node-version")) {
             try {
-                String v = gitHubService.getFileContent(repoUrl, token, base + f);
+                String v = readFile(context, base + f);
                 if (v != null && !v.trim().isEmpty()) return v.trim().replaceFirst("^v", "");
             } catch (Exception ignore) { }
         }
@@ -736,16 +1190,125 @@ public class StackDetectionService {
 
     private String normalizeNodeVersion(String raw) {
         if (raw == null || raw.isBlank()) return "20";
-        var m = java.util.regex.Pattern.compile("(\\d+)(?:\\.\\d+)?").matcher(raw.replace("v",""));
+        var m = NODE_MAJOR_VERSION.matcher(raw.replace("v",""));
         return m.find() ? m.group(1) : "20";
     }
 
 
+    /**
+     * Lit un fichier via le contexte d'analyse (mémoïsé pour l'analyse, puis cache de blobs par SHA).
+     * Lève une exception si le chemin est absent de l'arbre, comme un 404 de l'API contents,
+     * pour conserver la sémantique des try/catch des détecteurs.
+     */
+    private String readFile(AnalysisContext context, String path) {
+        String content = context.read(path);
+        if (content == null) throw notFound(path);
+        return content;
+    }
+
+    /** Comme {@link #readFile}, mais renvoie le fichier évalué par un jeu de règles (une évaluation par fichier et par analyse). */
+    private DetectionRules.Matches readRules(AnalysisContext context, String path, DetectionRules.RuleSet rules) {
+        DetectionRules.Matches matches = context.evaluate(path, rules);
+        if (matches == null) throw notFound(path);
+        return matches;
+    }
+
+    private static RuntimeException notFound(String path) {
+        return new RuntimeException("Error while retrieving file: 404 Not Found: " + RepoSnapshot.normalize(path));
+    }
+
+    private static String captureOr(DetectionRules.Matches matches, String name, String fallback) {
+        String value = matches == null ? null : matches.capture(name);
+        return value != null ? value : fallback;
+    }
+
+    private void logReads(String analysis, AnalysisContext context) {
+        System.out.println("📊 [" + analysis + "] lectures de fichiers: " + context.stats());
+        String incomplete = context.getBudget().getExhaustedReason();
+        if (incomplete != null) {
+            System.out.println("⚠️ [" + analysis + "] budget d'analyse épuisé (" + incomplete + "), résultat partiel: "
+                    + context.getBudget().stats());
+        }
+    }
+
+    public String getBranchHeadSha(String repoUrl, String token, String branch) {
+        return gitHubService.getBranchHeadSha(repoUrl, token, branch);
+    }
+
     public List<String> getAllRepositoryFiles(String repoUrl, String token, String branch) {
         return gitHubService.getAllRepositoryFiles(repoUrl, token, branch);
     }
 
 
+    /** Modèle d'une analyse complète : listing de la racine + faits par service, dans l'ordre de détection. */
+    public static class RepositoryAnalysis {
+        private final List<Map<String, Object>> files;
+        private final List<ServiceFacts> services;
+        private final ServiceFacts primary;
+        private final String incompleteReason;
+
+        RepositoryAnalysis(List<Map<String, Object>> files, List<ServiceFacts> services, ServiceFacts primary,
+                           String incompleteReason) {
+            this.files = files;
+            this.services = services;
+            this.primary = primary;
+            this.incompleteReason = incompleteReason;
+        }
+
+        public int getServiceCount() { return services.size(); }
+
+        /** Budget épuisé : services et détails partiels, à ne pas mettre en cache. */
+        public boolean isIncomplete() { return incompleteReason != null; }
+
+        public String getIncompleteReason() { return incompleteReason; }
+    }
+
+    private static class ServiceFacts {
+        final DetectedStack detected;
+        Map<String, Object> projectDetails;
+        String javaVersion;
+        String databaseType;
+        String databaseName;
+        String nodeVersionFromFiles;
+        Map<String, Object> structured;
+        Map<String, Object> dockerConfig;
+
+        ServiceFacts(DetectedStack detected) {
+            this.detected = detected;
+        }
+    }
+
+    /** Résultat d'une ré-analyse incrémentale : services fusionnés + dossiers effectivement ré-analysés. */
+    public static class IncrementalResult {
+        private final List<ServiceAnalysis> services;
+        private final Set<String> reanalyzedDirectories;
+        private final boolean rootChanged;
+        private final StackAnalysis singleAnalysis;
+        private final String incompleteReason;
+
+        IncrementalResult(List<ServiceAnalysis> services, Set<String> reanalyzedDirectories, boolean rootChanged,
+                          StackAnalysis singleAnalysis, String incompleteReason) {
+            this.services = services;
+            this.reanalyzedDirectories = reanalyzedDirectories;
+            this.rootChanged = rootChanged;
+            this.singleAnalysis = singleAnalysis;
+            this.incompleteReason = incompleteReason;
+        }
+
+        public List<ServiceAnalysis> getServices() { return services; }
+        public Set<String> getReanalyzedDirectories() { return reanalyzedDirectories; }
+
+        /** Vue single recalculée (un seul service, non réutilisable), sinon null. */
+        public StackAnalysis getSingleAnalysis() { return singleAnalysis; }
+        public boolean isIncomplete() { return incompleteReason != null; }
+        public String getIncompleteReason() { return incompleteReason; }
+
+        /** L'analyse détaillée (mode single) inclut la racine du repo : réutilisable si rien n'y a bougé. */
+        public boolean isSingleAnalysisReusable() {
+            return reanalyzedDirectories.isEmpty() && !rootChanged;
+        }
+    }
+
     private static class DetectedStack {
         String stackType;
         String workingDirectory;
@@ -757,95 +1320,36 @@ public class StackDetectionService {
     }
 
     // ---------- NOUVEAUX HELPERS (ajoutés) ----------
-    private boolean isAndroidGradle(String gradle) {
-        if (gradle == null) return false;
-        String g = gradle.toLowerCase();
-        if (g.contains("com.android.application") || g.contains("com.android.library")) return true;
-        if (g.contains("kotlin-android")) return true;
-        if (g.contains("\nandroid {") || g.contains("\n android {")) return true;
-        return false;
+    private boolean isAndroidRepo(AnalysisContext context, String path) {
+        return context.isFile(RepoSnapshot.join(path, "app/src/main/AndroidManifest.xml"));
     }
 
-    private boolean isAndroidRepo(String repoUrl, String token, String path) {
-        try {
-            String base = (path == null || path.isEmpty() || ".".equals(path)) ? "" : path + "/";
-            String manifest = gitHubService.getFileContent(repoUrl, token, base + "app/src/main/AndroidManifest.xml");
-            if (manifest != null && !manifest.isBlank()) return true;
-        } catch (Exception ignore) {}
-        return false;
-    }
-
-    private boolean isSpringBootPom(String pom) {
+    private boolean isSpringBootPom(DetectionRules.Matches pom) {
         if (pom == null) return false;
-        return pom.contains("<groupId>org.springframework.boot</groupId>")
-            || pom.contains("spring-boot-starter");
+        return pom.hasAny("<groupId>org.springframework.boot</groupId>", "spring-boot-starter");
     }
 
-    private boolean isSpringBootGradle(String gradle) {
+    private boolean isSpringBootGradle(GradleScript gradle) {
         if (gradle == null) return false;
-        if (isAndroidGradle(gradle)) return false; // exclure Android
-        boolean hasBootPlugin = gradle.contains("org.springframework.boot");
-        boolean hasBootStarter = gradle.contains("spring-boot-starter");
-        return hasBootPlugin || hasBootStarter;
+        if (gradle.isAndroid()) return false; // exclure Android
+        return gradle.usesSpringBoot();
     }
 
-    private boolean isMobileNodePackage(String pkg) {
+    private boolean isMobileNodePackage(DetectionRules.Matches pkg) {
         if (pkg == null) return false;
-        String p = pkg.toLowerCase();
-        return p.contains("\"react-native\"")
-            || p.contains("\"expo\"")
-            || p.contains("\"@capacitor/")
-            || p.contains("\"cordova\"")
-            || p.contains("\"@ionic/")
-            || p.contains("\"nativescript\"");
+        // marqueurs déclarés insensibles à la casse dans DetectionRules.PACKAGE_JSON
+        return pkg.hasAny("\"react-native\"", "\"expo\"", "\"@capacitor/", "\"cordova\"", "\"@ionic/", "\"nativescript\"");
     }
     // -------------------------------------------------
 
-    private DetectedStack detectStackTypeRecursively(List<Map<String, Object>> files, String repoUrl, String token, String currentPath) {
-        for (Map<String, Object> file : files) {
-            String fileName = (String) file.get("name");
-            String type = (String) file.get("type");
-            String newPath = currentPath.isEmpty() ? fileName : currentPath + "/" + fileName;
-
-            // ---------- CHANGEMENT: détection stricte ----------
-            if ("pom.xml".equals(fileName)) {
-                String pom = gitHubService.getFileContent(repoUrl, token, (currentPath.isEmpty()? "" : currentPath + "/") + "pom.xml");
-                if (isSpringBootPom(pom)) {
-                    return new DetectedStack("SPRING_BOOT_MAVEN", currentPath.isEmpty() ? "." : "./" + currentPath);
-                }
-            }
-            if ("build.gradle".equals(fileName) || "build.gradle.kts".equals(fileName)) {
-                String gradle = gitHubService.getFileContent(repoUrl, token, (currentPath.isEmpty()? "" : currentPath + "/") + fileName);
-                if (!isAndroidRepo(repoUrl, token, currentPath) && isSpringBootGradle(gradle)) {
-                    return new DetectedStack("SPRING_BOOT_GRADLE", currentPath.isEmpty() ? "." : "./" + currentPath);
-                }
-            }
-            if ("package.json".equals(fileName)) {
-                String pkg = gitHubService.getFileContent(repoUrl, token, (currentPath.isEmpty()? "" : currentPath + "/") + "package.json");
-                if (!isMobileNodePackage(pkg)) {
-                    return new DetectedStack("NODE_JS", currentPath.isEmpty() ? "." : "./" + currentPath);
-                }
-            }
-            // ---------------------------------------------------
-
-            if ("dir".equals(type)) {
-                List<Map<String, Object>> subFiles = gitHubService.getRepositoryContents(repoUrl, token, newPath);
-                DetectedStack subResult = detectStackTypeRecursively(subFiles, repoUrl, token, newPath);
-                if (!"GENERIC".equals(subResult.stackType))
-                    return subResult;
-            }
-        }
-        return new DetectedStack("GENERIC", ".");
-    }
-
-    private String detectJavaVersion(String repoUrl, String token, String stackType, String workingDirectory) {
+    private String detectJavaVersion(AnalysisContext context, String stackType, String workingDirectory) {
         try {
             if ("SPRING_BOOT_MAVEN".equals(stackType)) {
-                String pom = gitHubService.getFileContent(repoUrl, token, workingDirectory + "/pom.xml");
-                return extractJavaVersionFromPom(pom);
+                return mavenJavaVersion(context, workingDirectory);
             } else if ("SPRING_BOOT_GRADLE".equals(stackType)) {
-                String gradle = gitHubService.getFileContent(repoUrl, token, workingDirectory + "/build.gradle");
-                return extractJavaVersionFromGradle(gradle);
+                GradleScript gradle = effectiveGradle(context, workingDirectory, null);
+                String version = gradle == null ? null : gradle.getJavaVersion();
+                return version != null ? version : "17";
             }
         } catch (Exception e) {
             return "17";
@@ -870,20 +1374,18 @@ public class StackDetectionService {
         };
     }
 
-    private Map<String, Object> analyzeProjectDetails(String repoUrl, String token, String stackType, String workingDirectory) {
+    private Map<String, Object> analyzeProjectDetails(AnalysisContext context, String stackType, String workingDirectory) {
         Map<String, Object> details = new HashMap<>();
         try {
             if ("SPRING_BOOT_MAVEN".equals(stackType)) {
-                String pom = gitHubService.getFileContent(repoUrl, token, workingDirectory + "/pom.xml");
-                details.put("springBootVersion", extractSpringBootVersionFromPom(pom));
-                details.put("dependencies", extractMavenDependencies(pom));
-                details.put("packaging", extractPackaging(pom));
+                details.put("springBootVersion", mavenSpringBootVersion(context, workingDirectory));
+                details.put("dependencies", extractSpringDependencies(mavenDependencyRules(context, workingDirectory)));
+                details.put("packaging", extractPackaging(context, stackType, workingDirectory));
             } else if ("SPRING_BOOT_GRADLE".equals(stackType)) {
-                String gradle = gitHubService.getFileContent(repoUrl, token, workingDirectory + "/build.gradle");
-                details.put("springBootVersion", extractSpringBootVersionFromGradle(gradle));
-                details.put("dependencies", extractGradleDependencies(gradle));
+                details.put("springBootVersion", gradleSpringBootVersion(context, workingDirectory));
+                details.put("dependencies", extractSpringDependencies(gradleDependencyRules(context, workingDirectory)));
             } else if ("NODE_JS".equals(stackType)) {
-                String pkg = gitHubService.getFileContent(repoUrl, token, workingDirectory + "/package.json");
+                DetectionRules.Matches pkg = readRules(context, workingDirectory + "/package.json", DetectionRules.PACKAGE_JSON);
                 details.put("nodeVersion", extractNodeVersion(pkg));
                 details.put("scripts", extractNpmScripts(pkg));
                 details.put("framework", detectNodeFramework(pkg));
@@ -894,102 +1396,34 @@ public class StackDetectionService {
         return details;
     }
 
-    private String extractJavaVersionFromPom(String pomContent) {
-        if (pomContent == null) return "17";
-        Matcher m = Pattern.compile("<java\\.version>(\\d+)</java\\.version>").matcher(pomContent);
-        if (m.find()) return m.group(1);
-        m = Pattern.compile("<maven\\.compiler\\.source>(\\d+)</maven\\.compiler\\.source>").matcher(pomContent);
-        if (m.find()) return m.group(1);
-        m = Pattern.compile("<maven\\.compiler\\.target>(\\d+)</maven\\.compiler\\.target>").matcher(pomContent);
-        if (m.find()) return m.group(1);
-        return "17";
-    }
-
-    private String extractJavaVersionFromGradle(String gradleContent) {
-        if (gradleContent == null) return "17";
-        Matcher m = Pattern.compile("sourceCompatibility\\s*=\\s*['\"]?(\\d+)['\"]?").matcher(gradleContent);
-        if (m.find()) return m.group(1);
-        m = Pattern.compile("targetCompatibility\\s*=\\s*['\"]?(\\d+)['\"]?").matcher(gradleContent);
-        if (m.find()) return m.group(1);
-        m = Pattern.compile("JavaLanguageVersion\\.of\\((\\d+)\\)").matcher(gradleContent);
-        if (m.find()) return m.group(1);
-        return "17";
-    }
-
-    private String extractSpringBootVersionFromPom(String pomContent) {
-        if (pomContent == null) return "Unknown";
-        Matcher m = Pattern.compile("<parent>.*?<groupId>org\\.springframework\\.boot</groupId>.*?<version>([0-9.]+)</version>.*?</parent>", Pattern.DOTALL).matcher(pomContent);
-        if (m.find()) return m.group(1);
-        m = Pattern.compile("<spring-boot\\.version>([0-9.]+)</spring-boot\\.version>").matcher(pomContent);
-        if (m.find()) return m.group(1);
-        return "Unknown";
-    }
-
-    private String extractSpringBootVersionFromGradle(String gradleContent) {
-        if (gradleContent == null) return "Unknown";
-        Matcher m = Pattern.compile("id\\s+['\"]org\\.springframework\\.boot['\"]\\s+version\\s+['\"]([0-9.]+)['\"]").matcher(gradleContent);
-        if (m.find()) return m.group(1);
-        return "Unknown";
-    }
-
-    private String extractMavenDependencies(String pomContent) {
-        if (pomContent == null) return "No Spring Boot dependencies detected";
+    private String extractSpringDependencies(DetectionRules.Matches build) {
+        if (build == null) return "No Spring Boot dependencies detected";
         StringBuilder deps = new StringBuilder();
-        if (pomContent.contains("spring-boot-starter-web")) deps.append("spring-boot-starter-web, ");
-        if (pomContent.contains("spring-boot-starter-data-jpa")) deps.append("spring-boot-starter-data-jpa, ");
-        if (pomContent.contains("spring-boot-starter-security")) deps.append("spring-boot-starter-security, ");
-        if (pomContent.contains("spring-boot-starter-test")) deps.append("spring-boot-starter-test, ");
-        if (pomContent.contains("spring-boot-starter-data-mongodb")) deps.append("spring-boot-starter-data-mongodb, ");
+        for (String starter : List.of("spring-boot-starter-web", "spring-boot-starter-data-jpa", "spring-boot-starter-security",
+                "spring-boot-starter-test", "spring-boot-starter-data-mongodb")) {
+            if (build.has(starter)) deps.append(starter).append(", ");
+        }
         return deps.length() == 0 ? "No Spring Boot dependencies detected" : deps.substring(0, deps.length() - 2);
     }
 
-    private String extractGradleDependencies(String gradleContent) {
-        if (gradleContent == null) return "No Spring Boot dependencies detected";
-        StringBuilder deps = new StringBuilder();
-        if (gradleContent.contains("spring-boot-starter-web")) deps.append("spring-boot-starter-web, ");
-        if (gradleContent.contains("spring-boot-starter-data-jpa")) deps.append("spring-boot-starter-data-jpa, ");
-        if (gradleContent.contains("spring-boot-starter-security")) deps.append("spring-boot-starter-security, ");
-        if (gradleContent.contains("spring-boot-starter-test")) deps.append("spring-boot-starter-test, ");
-        if (gradleContent.contains("spring-boot-starter-data-mongodb")) deps.append("spring-boot-starter-data-mongodb, ");
-        return deps.length() == 0 ? "No Spring Boot dependencies detected" : deps.substring(0, deps.length() - 2);
+    private String extractNodeVersion(DetectionRules.Matches pkg) {
+        return captureOr(pkg, "nodeEngine", "Latest");
+    }
+
+    private String extractNpmScripts(DetectionRules.Matches pkg) {
+        return listPresent(pkg, "No scripts detected", "build", "test", "start", "dev", "serve", "lint");
     }
 
-    private String extractPackaging(String pomContent) {
-        if (pomContent == null) return "jar";
-        Matcher m = Pattern.compile("<packaging>([^<]+)</packaging>").matcher(pomContent);
-        if (m.find()) return m.group(1);
-        return "jar";
-    }
-
-    private String extractNodeVersion(String packageContent) {
-        if (packageContent == null) return "Latest";
-        Matcher m = Pattern.compile("\"engines\"\\s*:\\s*\\{[^}]*\"node\"\\s*:\\s*\"([^\"]+)\"").matcher(packageContent);
-        if (m.find()) return m.group(1);
-        return "Latest";
-    }
-
-    private String extractNpmScripts(String packageContent) {
-        if (packageContent == null) return "No scripts detected";
-        StringBuilder scripts = new StringBuilder();
-        if (packageContent.contains("\"build\"")) scripts.append("build, ");
-        if (packageContent.contains("\"test\"")) scripts.append("test, ");
-        if (packageContent.contains("\"start\"")) scripts.append("start, ");
-        if (packageContent.contains("\"dev\"")) scripts.append("dev, ");
-        if (packageContent.contains("\"serve\"")) scripts.append("serve, ");
-        if (packageContent.contains("\"lint\"")) scripts.append("lint, ");
-        return scripts.length() == 0 ? "No scripts detected" : scripts.substring(0, scripts.length() - 2);
-    }
-
-    private String detectNodeFramework(String packageContent) {
-        if (packageContent == null) return "Vanilla Node.js";
-        if (packageContent.contains("\"react\"")) return "React";
-        if (packageContent.contains("\"vue\"")) return "Vue.js";
-        if (packageContent.contains("\"angular\"") || packageContent.contains("\"@angular/core\"")) return "Angular";
-        if (packageContent.contains("\"express\"")) return "Express.js";
-        if (packageContent.contains("\"next\"")) return "Next.js";
-        if (packageContent.contains("\"nuxt\"")) return "Nuxt.js";
-        if (packageContent.contains("\"svelte\"")) return "Svelte";
-        if (packageContent.contains("\"nestjs\"") || packageContent.contains("\"@nestjs/core\"")) return "NestJS";
+    private String detectNodeFramework(DetectionRules.Matches pkg) {
+        if (pkg == null) return "Vanilla Node.js";
+        if (pkg.has("\"react\"")) return "React";
+        if (pkg.has("\"vue\"")) return "Vue.js";
+        if (pkg.hasAny("\"angular\"", "\"@angular/core\"")) return "Angular";
+        if (pkg.has("\"express\"")) return "Express.js";
+        if (pkg.has("\"next\"")) return "Next.js";
+        if (pkg.has("\"nuxt\"")) return "Nuxt.js";
+        if (pkg.has("\"svelte\"")) return "Svelte";
+        if (pkg.hasAny("\"nestjs\"", "\"@nestjs/core\"")) return "NestJS";
         return "Vanilla Node.js";
     }
 }
@@ -0,0 +1,169 @@
+package com.example.demo.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lecture séquentielle d'une archive tar (ustar, noms longs GNU, en-têtes pax « path »),
+ * sans rien écrire sur disque : {@link #next()} avance d'entrée en entrée, le contenu de l'entrée
+ * courante se lit avec {@link #readContent(int)} ou est sauté au {@code next()} suivant.
+ */
+final class TarStream {
+
+    private static final int BLOCK = 512;
+    private static final int MAX_HEADER_CONTENT = 1 << 20;
+
+    private final InputStream in;
+    private final byte[] header = new byte[BLOCK];
+    private long remaining;   // octets de contenu non lus de l'entrée courante
+    private long padding;     // bourrage jusqu'au bloc suivant
+
+    private String name;
+    private boolean directory;
+    private boolean regularFile;
+    private long size;
+
+    TarStream(InputStream in) {
+        this.in = in;
+    }
+
+    /** Passe à l'entrée suivante ; false à la fin de l'archive. */
+    boolean next() throws IOException {
+        String longName = null;
+        while (true) {
+            skipFully(remaining + padding);
+            remaining = 0;
+            padding = 0;
+            if (!readBlock()) return false;
+            if (isZeroBlock()) return false;
+
+            char type = (char) header[156];
+            long entrySize = parseNumber(124, 12);
+            remaining = entrySize;
+            padding = (BLOCK - entrySize % BLOCK) % BLOCK;
+
+            if (type == 'L') {              // nom long GNU : le nom est le contenu de cette entrée
+                byte[] content = readContent(MAX_HEADER_CONTENT);
+                if (content != null) longName = trimNul(new String(content, StandardCharsets.UTF_8));
+                continue;
+            }
+            if (type == 'x') {              // en-tête pax de l'entrée suivante
+                byte[] content = readContent(MAX_HEADER_CONTENT);
+                String path = content == null ? null : paxPath(content);
+                if (path != null) longName = path;
+                continue;
+            }
+            if (type == 'g') continue;      // en-tête pax global : ignoré
+
+            name = longName != null ? longName : headerName();
+            size = entrySize;
+            directory = type == '5' || name.endsWith("/");
+            regularFile = !directory && (type == '0' || type == '\0' || type == '7');
+            return true;
+        }
+    }
+
+    String getName() { return name; }
+    boolean isDirectory() { return directory; }
+    /** Fichier ordinaire (les liens symboliques / physiques et fichiers spéciaux ne le sont pas). */
+    boolean isRegularFile() { return regularFile; }
+    long getSize() { return size; }
+
+    /** Contenu de l'entrée courante si sa taille ne dépasse pas {@code max}, sinon null (contenu sauté). */
+    byte[] readContent(int max) throws IOException {
+        if (remaining > max) return null;
+        byte[] out = new byte[(int) remaining];
+        int off = 0;
+        while (off < out.length) {
+            int n = in.read(out, off, out.length - off);
+            if (n < 0) throw new EOFException("Truncated tar entry: " + name);
+            off += n;
+        }
+        remaining = 0;
+        return out;
+    }
+
+    private String headerName() {
+        String base = field(0, 100);
+        boolean ustar = "ustar".equals(field(257, 6).trim());
+        String prefix = ustar ? field(345, 155) : "";
+        return prefix.isEmpty() ? base : prefix + "/" + base;
+    }
+
+    private String field(int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) end++;
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /** Nombre octal ASCII, ou binaire base 256 (bit de poids fort du premier octet) pour les grandes tailles. */
+    private long parseNumber(int offset, int length) {
+        if ((header[offset] & 0x80) != 0) {
+            long v = header[offset] & 0x7f;
+            for (int i = 1; i < length; i++) v = (v << 8) | (header[offset + i] & 0xff);
+            return v;
+        }
+        String s = field(offset, length).trim();
+        return s.isEmpty() ? 0 : Long.parseLong(s, 8);
+    }
+
+    /** Enregistrements pax « longueur clé=valeur\n » : valeur de « path », ou null. */
+    private static String paxPath(byte[] records) {
+        int i = 0;
+        while (i < records.length) {
+            int space = i;
+            while (space < records.length && records[space] != ' ') space++;
+            if (space >= records.length) break;
+            int length;
+            try {
+                length = Integer.parseInt(new String(records, i, space - i, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (length <= space - i) return null;
+            int end = Math.min(records.length, i + length - 1); // sans le \n final
+            String record = new String(records, space + 1, Math.max(0, end - space - 1), StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) return record.substring(5);
+            i += length;
+        }
+        return null;
+    }
+
+    private static String trimNul(String s) {
+        int end = s.indexOf('\0');
+        return end < 0 ? s : s.substring(0, end);
+    }
+
+    private boolean isZeroBlock() {
+        for (byte b : header) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    private boolean readBlock() throws IOException {
+        int off = 0;
+        while (off < BLOCK) {
+            int n = in.read(header, off, BLOCK - off);
+            if (n < 0) {
+                if (off == 0) return false;
+                throw new EOFException("Truncated tar header");
+            }
+            off += n;
+        }
+        return true;
+    }
+
+    private void skipFully(long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                if (in.read() < 0) throw new EOFException("Truncated tar entry");
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.service;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Repository GitHub lu en une seule archive (GET /tarball/{ref}) au lieu d'un appel par blob :
+ * l'archive est décompressée au fil du téléchargement, seuls les fichiers utiles aux détecteurs
+ * ({@code keep} : {@link DetectorInputs} hors dossiers exclus) sont gardés en mémoire, dans les limites
+ * {@code maxEntries} / {@code maxRetainedBytes} ; le reste ne laisse que son chemin dans l'arbre.
+ * Avec {@code minRelevantFiles} &gt; 0, l'arbre est d'abord lu via l'API et l'archive n'est
+ * téléchargée que s'il contient au moins autant de fichiers utiles (monorepos) ;
+ * sinon l'instantané de l'API (contenus préchargés en lot) est utilisé tel quel.
+ */
+public class TarballRepositorySource implements RepositorySource {
+
+    private final GitHubService gitHubService;
+    private final GitHubBlobPrefetcher prefetcher;
+    private final String repoUrl;
+    private final String token;
+    private final String ref;
+    private final Predicate<String> keep;
+    private final int minRelevantFiles;
+    private final int maxFileBytes;
+    private final int maxEntries;
+    private final long maxRetainedBytes;
+    private volatile boolean fromArchive;
+
+    public TarballRepositorySource(GitHubService gitHubService, GitHubBlobPrefetcher prefetcher,
+                                   String repoUrl, String token, String ref, Predicate<String> keep,
+                                   int minRelevantFiles, int maxFileBytes, int maxEntries, long maxRetainedBytes) {
+        this.gitHubService = gitHubService;
+        this.prefetcher = prefetcher;
+        this.repoUrl = repoUrl;
+        this.token = token;
+        this.ref = ref;
+        this.keep = keep;
+        this.minRelevantFiles = minRelevantFiles;
+        this.maxFileBytes = maxFileBytes;
+        this.maxEntries = maxEntries;
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    @Override
+    public RepoSnapshot snapshot() {
+        if (minRelevantFiles > 0) {
+            RepoSnapshot tree = gitHubService.getRepositorySnapshot(repoUrl, token, ref);
+            long relevant = tree.filePaths().stream().filter(keep).count();
+            if (relevant < minRelevantFiles) {
+                fromArchive = false;
+                return tree;
+            }
+        }
+        ArchiveRepositorySource archive = gitHubService.downloadTarball(repoUrl, token, ref, keep,
+                maxFileBytes, maxEntries, maxRetainedBytes);
+        System.out.println("📦 Archive " + describe() + " : " + archive.getRetainedFiles() + " fichiers utiles gardés en mémoire");
+        fromArchive = true;
+        return archive.snapshot();
+    }
+
+    /** Contenus déjà en mémoire si l'archive a été lue ; sinon préchargement GraphQL comme {@link GitHubRepositorySource}. */
+    @Override
+    public void prefetch(RepoSnapshot snapshot, List<String> paths) {
+        if (!fromArchive) prefetcher.prefetch(repoUrl, token, snapshot, paths);
+    }
+
+    @Override
+    public String token() {
+        return token;
+    }
+
+    @Override
+    public String describe() {
+        return repoUrl + (ref != null ? "@" + ref : "");
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisBudgetTest {
+
+    @Test
+    void loads_AreRefusedOnceTheLimitIsReached() {
+        AnalysisBudget budget = new AnalysisBudget(0, 2, 0);
+
+        assertTrue(budget.load());
+        assertTrue(budget.load());
+        assertFalse(budget.load());
+        assertTrue(budget.isExhausted());
+        assertFalse(budget.visit(), "an exhausted budget stays exhausted");
+        assertEquals("more than 2 file loads", budget.getExhaustedReason());
+    }
+
+    @Test
+    void deadline_ExhaustsTheBudget() {
+        AtomicLong now = new AtomicLong();
+        AnalysisBudget budget = new AnalysisBudget(0, 0, 100, now::get);
+
+        assertTrue(budget.visit());
+        now.addAndGet(100_000_000L);
+
+        assertFalse(budget.load());
+        assertEquals("time limit of 100 ms reached", budget.getExhaustedReason());
+    }
+
+    @Test
+    void context_TreatsDeniedLoadsAsAbsentWithoutMemoizingThem() {
+        RepoSnapshot snapshot = new RepoSnapshot("HEAD", List.of(
+                new RepoSnapshot.Entry("a.txt", RepoSnapshot.TYPE_FILE, "sha-a", 0),
+                new RepoSnapshot.Entry("b.txt", RepoSnapshot.TYPE_FILE, "sha-b", 0)), entry -> entry.getPath());
+        AnalysisContext context = new AnalysisContext(snapshot, new AnalysisBudget(0, 1, 0));
+
+        assertEquals("a.txt", context.read("a.txt"));
+        assertNull(context.read("b.txt"));
+        assertEquals("a.txt", context.read("a.txt"), "files loaded before exhaustion stay readable");
+        assertEquals(1L, context.stats().get("denied"));
+    }
+
+    @Test
+    void context_MissingFilesDoNotUseTheLoadBudget() {
+        RepoSnapshot snapshot = new RepoSnapshot("HEAD", List.of(
+                new RepoSnapshot.Entry("pom.xml", RepoSnapshot.TYPE_FILE, "sha", 0)), entry -> entry.getPath());
+        AnalysisBudget budget = new AnalysisBudget(0, 1, 0);
+        AnalysisContext context = new AnalysisContext(snapshot, budget);
+
+        assertNull(context.read("src/main/resources/application.properties"));
+        assertNull(context.read(".nvmrc"));
+        assertEquals("pom.xml", context.read("pom.xml"));
+        assertEquals(1, budget.stats().get("loads"));
+        assertNull(budget.getExhaustedReason());
+    }
+
+    @Test
+    void limits_PruneByDirectoryNameAndDepth() {
+        AnalysisLimits limits = new AnalysisLimits(List.of("node_modules", " dist "), 2, 0, 0, 0);
+
+        assertTrue(limits.isExcluded("web/node_modules/react/package.json"));
+        assertTrue(limits.isExcluded("dist/package.json"));
+        assertTrue(limits.isExcluded("a/b/c/pom.xml"));
+        assertFalse(limits.isExcluded("a/b/pom.xml"));
+        assertFalse(limits.isExcluded("pom.xml"));
+        assertTrue(new AnalysisLimits(List.of(""), 0, 0, 0, 0).isPruned("node_modules"), "blank list falls back to the defaults");
+    }
+
+    @Test
+    void limits_FingerprintFollowsTheEffectiveSettings() {
+        String fingerprint = new AnalysisLimits(List.of("dist", "node_modules"), 10, 100, 10, 1000).getFingerprint();
+
+        assertEquals(fingerprint, new AnalysisLimits(List.of("node_modules", " dist"), 10, 100, 10, 1000).getFingerprint());
+        assertNotEquals(fingerprint, new AnalysisLimits(List.of("node_modules"), 10, 100, 10, 1000).getFingerprint());
+        assertNotEquals(fingerprint, new AnalysisLimits(List.of("dist", "node_modules"), 5, 100, 10, 1000).getFingerprint());
+        assertEquals(AnalysisLimits.defaults().getFingerprint(), new AnalysisLimits(List.of(), 10, 50_000, 1_000, 60_000).getFingerprint());
+    }
+}
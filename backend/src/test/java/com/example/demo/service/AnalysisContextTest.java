@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisContextTest {
+
+    @Test
+    void read_SamePathTwice_LoadsOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        AnalysisContext context = context(Map.of("app/package.json", "{}"), loads);
+
+        assertEquals("{}", context.read("app/package.json"));
+        assertEquals("{}", context.read("./app/package.json"));
+
+        assertEquals(1, loads.get());
+        assertEquals(1L, context.getSavedReads());
+    }
+
+    @Test
+    void read_MissingFile_IsMemoizedAsNull() {
+        AtomicInteger loads = new AtomicInteger();
+        AnalysisContext context = context(Map.of("pom.xml", "<project/>"), loads);
+
+        assertNull(context.read("build.gradle"));
+        assertNull(context.read("build.gradle"));
+
+        assertEquals(0, loads.get());
+        assertEquals(0L, context.stats().get("loaded"));
+        assertEquals(1L, context.stats().get("notFound"));
+        assertEquals(2L, context.getSavedReads());
+    }
+
+    @Test
+    void read_FailedLoad_IsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        RepoSnapshot snapshot = new RepoSnapshot("HEAD",
+                List.of(new RepoSnapshot.Entry("pom.xml", RepoSnapshot.TYPE_FILE, "sha", 0)),
+                entry -> {
+                    if (attempts.incrementAndGet() == 1) throw new RuntimeException("network");
+                    return "<project/>";
+                });
+        AnalysisContext context = new AnalysisContext(snapshot);
+
+        assertThrows(RuntimeException.class, () -> context.read("pom.xml"));
+        assertEquals("<project/>", context.read("pom.xml"));
+    }
+
+    private static AnalysisContext context(Map<String, String> files, AtomicInteger loads) {
+        List<RepoSnapshot.Entry> entries = new ArrayList<>();
+        files.keySet().forEach(p -> entries.add(new RepoSnapshot.Entry(p, RepoSnapshot.TYPE_FILE, "sha-" + p, 0)));
+        return new AnalysisContext(new RepoSnapshot("HEAD", entries, entry -> {
+            loads.incrementAndGet();
+            return files.get(entry.getPath());
+        }));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkAnalysisSchedulerTest {
+
+    private final BulkAnalysisScheduler scheduler = new BulkAnalysisScheduler(1, 1, 1, 100);
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void usersAlternate_EvenWhenOneSubmittedFirstAndMore() throws Exception {
+        CountDownLatch gate = blockWorker();
+        List<CompletableFuture<String>> jobs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) jobs.add(record("orgA", "token-a", "a" + i));
+        for (int i = 0; i < 2; i++) jobs.add(record("orgB", "token-b", "b" + i));
+
+        gate.countDown();
+        CompletableFuture.allOf(jobs.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("a0", "b0", "a1", "b1", "a2", "a3"), order);
+    }
+
+    @Test
+    void cancelledJob_IsSkippedAndFailuresArePropagated() throws Exception {
+        CountDownLatch gate = blockWorker();
+        CompletableFuture<String> cancelled = record("orgA", "token-a", "never");
+        CompletableFuture<String> failing = scheduler.submit("orgB", "token-b", () -> { throw new IllegalStateException("boom"); });
+        CompletableFuture<String> last = record("orgA", "token-a", "after");
+
+        cancelled.cancel(false);
+        gate.countDown();
+
+        assertEquals("after", last.get(5, TimeUnit.SECONDS));
+        Exception e = assertThrows(Exception.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertEquals("boom", e.getCause().getMessage());
+        assertEquals(List.of("after"), order);
+    }
+
+    @Test
+    void fullQueue_IsRejected() {
+        BulkAnalysisScheduler small = new BulkAnalysisScheduler(1, 1, 1, 1);
+        try {
+            CountDownLatch gate = new CountDownLatch(1);
+            small.submit("u", "t", () -> gate.await(5, TimeUnit.SECONDS));
+            small.submit("u", "t", () -> "queued");
+
+            assertThrows(IllegalStateException.class, () -> small.submit("u", "t", () -> "rejected"));
+            gate.countDown();
+        } finally {
+            small.shutdown();
+        }
+    }
+
+    @Test
+    void cancelledJobs_FreeTheirQueueSlotsRightAway() throws Exception {
+        BulkAnalysisScheduler small = new BulkAnalysisScheduler(1, 1, 1, 2);
+        try {
+            CountDownLatch gate = new CountDownLatch(1);
+            small.submit("u", "t", () -> gate.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> first = small.submit("u", "t", () -> "abandoned");
+            CompletableFuture<String> second = small.submit("u", "t", () -> "abandoned");
+
+            first.cancel(false);
+            second.cancel(false);
+            CompletableFuture<String> other = small.submit("v", "t2", () -> "ran");
+
+            gate.countDown();
+            assertEquals("ran", other.get(5, TimeUnit.SECONDS));
+        } finally {
+            small.shutdown();
+        }
+    }
+
+    @Test
+    void shutdown_FailsQueuedJobsAndRejectsNewOnes() {
+        CountDownLatch gate = blockWorker();
+        CompletableFuture<String> queued = record("orgA", "token-a", "never");
+
+        scheduler.shutdown();
+        gate.countDown();
+
+        Exception e = assertThrows(Exception.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertThrows(IllegalStateException.class, () -> record("orgB", "token-b", "late"));
+        assertEquals(List.of(), order);
+    }
+
+    /** Occupe l'unique worker jusqu'à l'ouverture du verrou, le temps de remplir les files. */
+    private CountDownLatch blockWorker() {
+        CountDownLatch gate = new CountDownLatch(1);
+        scheduler.submit("setup", "setup", () -> gate.await(5, TimeUnit.SECONDS));
+        return gate;
+    }
+
+    private CompletableFuture<String> record(String user, String token, String name) {
+        return scheduler.submit(user, token, () -> log(name));
+    }
+
+    private String log(String name) {
+        order.add(name);
+        return name;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DetectionRulesTest {
+
+    @Test
+    void markers_OverlappingMarkersAreAllFoundInOnePass() {
+        DetectionRules.RuleSet rules = DetectionRules.RuleSet.builder("test")
+                .markers("postgres", "postgresql", "sql", "gres", "mysql")
+                .build();
+
+        DetectionRules.Matches matches = rules.evaluate("<artifactId>postgresql</artifactId>");
+
+        assertTrue(matches.has("postgres"));
+        assertTrue(matches.has("postgresql"));
+        assertTrue(matches.has("sql"));
+        assertTrue(matches.has("gres"));
+        assertFalse(matches.has("mysql"));
+    }
+
+    @Test
+    void markersIgnoringCase_MatchLikeLowerCaseContains() {
+        DetectionRules.RuleSet rules = DetectionRules.RuleSet.builder("test")
+                .markersIgnoringCase("\"react-native\"", "kotlin-android")
+                .build();
+
+        DetectionRules.Matches matches = rules.evaluate("{ \"React-Native\": \"0.74\" } // Kotlin-Andro");
+
+        assertTrue(matches.has("\"react-native\""));
+        assertFalse(matches.has("kotlin-android"));
+    }
+
+    @Test
+    void pom_MarkersAndCapturesFollowDeclarationOrder() {
+        DetectionRules.Matches pom = DetectionRules.POM.evaluate("""
+                <project>
+                  <parent>
+                    <groupId>org.springframework.boot</groupId>
+                    <version>3.2.1</version>
+                  </parent>
+                  <properties>
+                    <maven.compiler.source>11</maven.compiler.source>
+                    <java.version>21</java.version>
+                  </properties>
+                  <artifactId>mysql-connector-java</artifactId>
+                </project>
+                """);
+
+        assertTrue(pom.has("<groupId>org.springframework.boot</groupId>"));
+        assertTrue(pom.hasAny("mysql-connector-java", "mysql"));
+        assertFalse(pom.has("spring-boot-starter"));
+        assertEquals("21", pom.capture("javaVersion"));
+        assertEquals("3.2.1", pom.capture("springBootVersion"));
+        assertNull(pom.capture("packaging"));
+    }
+
+    @Test
+    void packageJson_MobileMarkersAreCaseInsensitive() {
+        DetectionRules.Matches pkg = DetectionRules.PACKAGE_JSON.evaluate("{ \"dependencies\": { \"Expo\": \"50\", \"React\": \"18\" } }");
+
+        assertTrue(pkg.has("\"expo\""));
+        assertFalse(pkg.has("\"react\""), "framework markers stay case-sensitive");
+    }
+
+    @Test
+    void undeclaredMarker_IsRejected() {
+        DetectionRules.Matches pkg = DetectionRules.PACKAGE_JSON.evaluate("{}");
+
+        assertThrows(IllegalArgumentException.class, () -> pkg.has("\"lodash\""));
+        assertNull(pkg.capture("javaVersion"));
+    }
+
+    @Test
+    void properties_DatabaseNameAlternativesAreTriedInOrder() {
+        DetectionRules.Matches props = DetectionRules.APPLICATION_PROPERTIES.evaluate(
+                "server.port = 9090\nspring.data.mongodb.database=orders\n");
+
+        assertEquals("9090", props.capture("serverPort"));
+        assertEquals("orders", props.capture("databaseName"));
+    }
+}
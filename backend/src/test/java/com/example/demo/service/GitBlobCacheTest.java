@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitBlobCacheTest {
+
+    @Test
+    void get_SameSha_LoadsOnlyOnce() {
+        GitBlobCache cache = new GitBlobCache(1024, "", 0);
+        AtomicInteger loads = new AtomicInteger();
+
+        String first = cache.get("abc123", () -> { loads.incrementAndGet(); return "content"; });
+        String second = cache.get("abc123", () -> { loads.incrementAndGet(); return "other"; });
+
+        assertEquals("content", first);
+        assertEquals("content", second);
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void get_OverHeapBudget_EvictsLeastRecentlyUsed() {
+        GitBlobCache cache = new GitBlobCache(10, "", 0);
+        cache.get("aaa", () -> "12345");
+        cache.get("bbb", () -> "12345");
+        cache.get("aaa", () -> "xxxxx");     // aaa devient le plus récent
+        cache.get("ccc", () -> "12345");     // évince bbb
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("aaa", () -> { loads.incrementAndGet(); return "reloaded"; });
+        assertEquals(0, loads.get(), "aaa should still be cached");
+
+        cache.get("bbb", () -> { loads.incrementAndGet(); return "reloaded"; });
+        assertEquals(1, loads.get(), "bbb should have been evicted");
+        assertTrue((Long) cache.stats().get("evictions") >= 1);
+    }
+
+    @Test
+    void get_WithDiskTier_SurvivesNewInstance(@TempDir Path dir) {
+        String sha = "0123456789abcdef0123456789abcdef01234567";
+        new GitBlobCache(1024, dir.toString(), 1024).get(sha, () -> "persisted");
+
+        GitBlobCache restarted = new GitBlobCache(1024, dir.toString(), 1024);
+        String content = restarted.get(sha, () -> fail("should be read from disk"));
+
+        assertEquals("persisted", content);
+        assertEquals(1L, restarted.stats().get("diskHits"));
+    }
+
+    @Test
+    void diskTier_OverBudget_EvictsLeastRecentlyUsedFiles(@TempDir Path dir) {
+        String a = "aa00000000000000000000000000000000000000";
+        String b = "bb00000000000000000000000000000000000000";
+        String c = "cc00000000000000000000000000000000000000";
+        GitBlobCache cache = new GitBlobCache(0, dir.toString(), 10);   // mémoire désactivée : tout passe par le disque
+        cache.get(a, () -> "12345");
+        cache.get(b, () -> "12345");
+        cache.get(a, () -> fail("a is on disk"));                         // a devient le plus récent
+        cache.get(c, () -> "12345");                                      // évince b
+
+        assertTrue(cache.contains(a));
+        assertFalse(cache.contains(b));
+        assertFalse(Files.exists(dir.resolve("bb").resolve(b)));
+        assertEquals(10L, cache.stats().get("diskBytes"));
+        assertEquals(1L, cache.stats().get("diskEvictions"));
+
+        GitBlobCache restarted = new GitBlobCache(0, dir.toString(), 5);  // budget réduit : seul le plus récent reste
+        assertEquals(1, restarted.stats().get("diskEntries"));
+        assertEquals(5L, restarted.stats().get("diskBytes"));
+    }
+
+    @Test
+    void get_NullContent_IsNotCached() {
+        GitBlobCache cache = new GitBlobCache(1024, "", 0);
+        assertNull(cache.get("abc", () -> null));
+        assertEquals("now", cache.get("abc", () -> "now"));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitBlobShaTest {
+
+    // valeurs de référence : printf '...' | git hash-object --stdin
+
+    @Test
+    void of_MatchesGitHashObject() {
+        assertEquals("ce013625030ba8dba906f756967f9e9ca394464a", GitBlobSha.of("hello\n"));
+        assertEquals("e69de29bb2d1d6434b8b29ae775ad8c2e48c5391", GitBlobSha.of(""));
+    }
+
+    @Test
+    void of_UsesUtf8ByteLength() {
+        assertEquals("922546d2b370fcdb20dec9db061f2960c3a118cd", GitBlobSha.of("héllo ✓\n"));
+    }
+
+    @Test
+    void matches_ComparesAgainstListingSha() {
+        assertTrue(GitBlobSha.matches("CE013625030BA8DBA906F756967F9E9CA394464A", "hello\n"));
+        assertFalse(GitBlobSha.matches("ce013625030ba8dba906f756967f9e9ca394464a", "hello"));
+        assertFalse(GitBlobSha.matches(null, "hello\n"));
+    }
+}
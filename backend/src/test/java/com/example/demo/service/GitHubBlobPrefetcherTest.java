@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.ExpectedCount.never;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+class GitHubBlobPrefetcherTest {
+
+    private static final String REPO_URL = "https://github.com/user/repo";
+    private static final String POM_SHA = "a".repeat(40);
+    private static final String PKG_SHA = "b".repeat(40);
+    private static final String LOGO_SHA = "c".repeat(40);
+
+    private final GitBlobCache blobCache = new GitBlobCache(1024 * 1024, "", 0);
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+    private RepoSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        snapshot = new RepoSnapshot("HEAD", List.of(
+                new RepoSnapshot.Entry("pom.xml", RepoSnapshot.TYPE_FILE, POM_SHA, 10),
+                new RepoSnapshot.Entry("web/package.json", RepoSnapshot.TYPE_FILE, PKG_SHA, 2),
+                new RepoSnapshot.Entry("web/logo.png", RepoSnapshot.TYPE_FILE, LOGO_SHA, 2)));
+    }
+
+    @Test
+    void batches_AllMissingBlobsIntoOneQuery() {
+        server.expect(requestTo("https://api.github.com/graphql"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.variables.owner").value("user"))
+                .andExpect(jsonPath("$.query").value(containsString("b2: object(oid: \"" + LOGO_SHA + "\")")))
+                .andRespond(withSuccess("""
+                        { "data": { "repository": {
+                            "b0": { "text": "<project/>", "isBinary": false, "isTruncated": false },
+                            "b1": { "text": "{}", "isBinary": false, "isTruncated": false },
+                            "b2": { "text": null, "isBinary": true, "isTruncated": false } } } }
+                        """, MediaType.APPLICATION_JSON));
+
+        int loaded = new GitHubBlobPrefetcher(restTemplate, blobCache, 10)
+                .prefetch(REPO_URL, "t", snapshot, List.of("pom.xml", "web/package.json", "web/logo.png"));
+
+        server.verify();
+        assertEquals(2, loaded);
+        assertEquals("<project/>", blobCache.get(POM_SHA, () -> fail("should be cached")));
+        assertFalse(blobCache.contains(LOGO_SHA), "binary blobs are left to the REST read");
+    }
+
+    @Test
+    void cachedBlobs_AreNotRequestedAgain_AndBatchesAreSplit() {
+        blobCache.put(POM_SHA, "<project/>");
+        server.expect(requestTo("https://api.github.com/graphql"))
+                .andExpect(jsonPath("$.query").value(containsString(PKG_SHA)))
+                .andRespond(withSuccess("{ \"data\": { \"repository\": { \"b0\": { \"text\": \"{}\" } } } }", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("https://api.github.com/graphql"))
+                .andExpect(jsonPath("$.query").value(containsString(LOGO_SHA)))
+                .andRespond(withServerError());
+
+        int loaded = new GitHubBlobPrefetcher(restTemplate, blobCache, 1)
+                .prefetch(REPO_URL, "t", snapshot, List.of("pom.xml", "web/package.json", "web/logo.png"));
+
+        server.verify();
+        assertEquals(1, loaded, "a failed batch is skipped");
+    }
+
+    @Test
+    void nothingMissing_NoRequest() {
+        blobCache.put(POM_SHA, "<project/>");
+        server.expect(never(), requestTo("https://api.github.com/graphql"));
+
+        assertEquals(0, new GitHubBlobPrefetcher(restTemplate, blobCache, 10).prefetch(REPO_URL, "t", snapshot, List.of("pom.xml")));
+        server.verify();
+    }
+}
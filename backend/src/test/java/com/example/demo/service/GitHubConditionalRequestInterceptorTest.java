@@ -0,0 +1,107 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+class GitHubConditionalRequestInterceptorTest {
+
+    private static final String URL = "https://api.github.com/user";
+
+    private GitHubConditionalRequestInterceptor interceptor;
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new GitHubConditionalRequestInterceptor(1024 * 1024);
+        restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(interceptor);
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @Test
+    void notModified_ReplaysCachedBody() {
+        HttpHeaders etag = new HttpHeaders();
+        etag.setETag("\"v1\"");
+        etag.setContentLength("{\"login\":\"octocat\"}".length());
+        server.expect(requestTo(URL))
+                .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(withSuccess("{\"login\":\"octocat\"}", MediaType.APPLICATION_JSON).headers(etag));
+        server.expect(requestTo(URL))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        Map<?, ?> first = get("token-a");
+        Map<?, ?> second = get("token-a");
+
+        server.verify();
+        assertEquals("octocat", first.get("login"));
+        assertEquals("octocat", second.get("login"));
+        assertEquals(1L, interceptor.stats().get("notModified"));
+    }
+
+    @Test
+    void differentTokens_DoNotShareEntries() {
+        HttpHeaders etag = new HttpHeaders();
+        etag.setETag("\"v1\"");
+        etag.setContentLength("{\"login\":\"a\"}".length());
+        server.expect(requestTo(URL))
+                .andRespond(withSuccess("{\"login\":\"a\"}", MediaType.APPLICATION_JSON).headers(etag));
+        server.expect(requestTo(URL))
+                .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(withSuccess("{\"login\":\"b\"}", MediaType.APPLICATION_JSON).headers(etag));
+
+        assertEquals("a", get("token-a").get("login"));
+        assertEquals("b", get("token-b").get("login"));
+        server.verify();
+    }
+
+    @Test
+    void archiveResponses_AreNotBuffered() {
+        HttpHeaders etag = new HttpHeaders();
+        etag.setETag("\"v1\"");
+        server.expect(requestTo(URL))
+                .andRespond(withSuccess(new byte[] {1, 2, 3}, MediaType.parseMediaType("application/x-gzip")).headers(etag));
+
+        restTemplate.execute(URL, HttpMethod.GET, null, response -> response.getBody().readAllBytes());
+
+        server.verify();
+        assertEquals(0, interceptor.stats().get("entries"));
+    }
+
+    @Test
+    void responsesOfUnknownLength_AreNotBuffered() {
+        HttpHeaders etag = new HttpHeaders();
+        etag.setETag("\"v1\"");
+        server.expect(requestTo(URL))
+                .andRespond(withSuccess("{\"login\":\"octocat\"}", MediaType.APPLICATION_JSON).headers(etag));
+        server.expect(requestTo(URL))
+                .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(withSuccess("{\"login\":\"octocat\"}", MediaType.APPLICATION_JSON).headers(etag));
+
+        get("token-a");
+        get("token-a");
+
+        server.verify();
+        assertEquals(0L, interceptor.stats().get("stored"));
+    }
+
+    private Map<?, ?> get(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return restTemplate.exchange(URL, HttpMethod.GET, new HttpEntity<>(headers), Map.class).getBody();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubPermissionCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final GitHubPermissionCache cache = new GitHubPermissionCache(60_000, now::get);
+
+    @Test
+    void repositoryValidation_IsReusedUntilTtl() {
+        assertFalse(cache.isRepositoryValidated("tok", "owner/repo"));
+        cache.markRepositoryValidated("tok", "owner/repo");
+
+        assertTrue(cache.isRepositoryValidated("tok", "Owner/Repo"));
+        assertTrue(cache.isTokenValidated("tok"));
+        assertFalse(cache.isRepositoryValidated("other", "owner/repo"));
+
+        now.addAndGet(60_001);
+        assertFalse(cache.isRepositoryValidated("tok", "owner/repo"));
+    }
+
+    @Test
+    void invalidateOnAuthFailure_ForgetsOnlyThatToken() {
+        cache.markRepositoryValidated("tok", "owner/repo");
+        cache.markBranchValidated("tok", "owner/repo", "main");
+        cache.markRepositoryValidated("other", "owner/repo");
+
+        IOException error = new IOException("Token validation failed",
+                HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Bad credentials", null, null, null));
+        assertTrue(cache.invalidateOnAuthFailure("tok", error));
+
+        assertFalse(cache.isTokenValidated("tok"));
+        assertFalse(cache.isBranchValidated("tok", "owner/repo", "main"));
+        assertTrue(cache.isRepositoryValidated("other", "owner/repo"));
+    }
+
+    @Test
+    void invalidateOnAuthFailure_IgnoresOtherErrors() {
+        cache.markRepositoryValidated("tok", "owner/repo");
+
+        assertFalse(cache.invalidateOnAuthFailure("tok",
+                HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null)));
+        assertTrue(cache.isRepositoryValidated("tok", "owner/repo"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubRateLimitGovernorTest {
+
+    private static final String TOKEN = "test-token";
+
+    private final List<Long> sleeps = new ArrayList<>();
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final GitHubRateLimitGovernor governor = new GitHubRateLimitGovernor(
+            10, 0.2, 30_000, 1_000, millis -> { sleeps.add(millis); now.addAndGet(millis); }, now::get);
+
+    @Test
+    void acquire_ComfortableBudget_DoesNotWait() {
+        record(4000, 5000, 600);
+        governor.acquire(TOKEN);
+        assertTrue(sleeps.isEmpty());
+        assertEquals(8, governor.parallelism(TOKEN, 8));
+    }
+
+    @Test
+    void acquire_LowBudget_PacesCallsAndReducesParallelism() {
+        record(500, 5000, 600);
+        governor.acquire(TOKEN);
+        assertEquals(1, sleeps.size());
+        assertTrue(sleeps.get(0) > 0 && sleeps.get(0) <= 1_000);
+        assertTrue(governor.parallelism(TOKEN, 8) < 8);
+    }
+
+    @Test
+    void acquire_ReserveReachedAndResetSoon_WaitsForReset() {
+        record(5, 5000, 20);
+        governor.acquire(TOKEN);
+        assertEquals(List.of(20_000L), sleeps);
+    }
+
+    @Test
+    void acquire_ReserveReachedAndResetFar_Rejects() {
+        record(5, 5000, 3600);
+        assertThrows(IllegalStateException.class, () -> governor.acquire(TOKEN));
+        assertEquals(1L, governor.stats().get("rejected"));
+    }
+
+    @Test
+    void acquire_OtherToken_IsNotThrottled() {
+        record(5, 5000, 3600);
+        governor.acquire("another-token");
+        assertTrue(sleeps.isEmpty());
+    }
+
+    private void record(long remaining, long limit, long resetInSeconds) {
+        Map<String, String> headers = Map.of(
+                "X-RateLimit-Remaining", String.valueOf(remaining),
+                "X-RateLimit-Limit", String.valueOf(limit),
+                "X-RateLimit-Reset", String.valueOf(now.get() / 1000 + resetInSeconds));
+        governor.record(TOKEN, headers::get);
+    }
+}
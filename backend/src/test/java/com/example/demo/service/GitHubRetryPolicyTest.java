@@ -0,0 +1,101 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubRetryPolicyTest {
+
+    private final List<Long> sleeps = new ArrayList<>();
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private GitHubRetryPolicy policy(int maxAttempts) {
+        return new GitHubRetryPolicy(maxAttempts, 100, 1000, 10_000,
+                millis -> { sleeps.add(millis); now.addAndGet(millis); }, now::get);
+    }
+
+    @Test
+    void execute_ServerErrorThenSuccess_RetriesWithBackoff() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        String result = policy(3).execute(() -> {
+            if (calls.incrementAndGet() == 1) throw wrap(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        assertEquals(1, sleeps.size());
+        assertTrue(sleeps.get(0) > 0 && sleeps.get(0) <= 1000);
+    }
+
+    @Test
+    void execute_RetryAfter_IsHonored() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "3");
+        AtomicInteger calls = new AtomicInteger();
+
+        policy(3).execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw wrap(HttpClientErrorException.create(HttpStatus.FORBIDDEN, "Forbidden", headers, null, null));
+            }
+            return "ok";
+        });
+
+        assertEquals(List.of(3000L), sleeps);
+    }
+
+    @Test
+    void execute_FatalError_DoesNotRetry() {
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(IOException.class, () -> policy(3).execute(() -> {
+            calls.incrementAndGet();
+            throw wrap(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+        }));
+        assertEquals(1, calls.get());
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    void execute_RateLimitResetTooFar_FailsFast() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-RateLimit-Remaining", "0");
+        headers.set("X-RateLimit-Reset", String.valueOf(now.get() / 1000 + 3600));
+
+        assertThrows(IOException.class, () -> policy(3).execute(() -> {
+            throw wrap(HttpClientErrorException.create(HttpStatus.FORBIDDEN, "Forbidden", headers, null, null));
+        }));
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    void classify_ConflictAndNetwork() {
+        GitHubRetryPolicy p = policy(3);
+        assertEquals(GitHubRetryPolicy.Failure.CONFLICT, p.classify(409, Map.of(), "Conflict"));
+        assertEquals(GitHubRetryPolicy.Failure.CONFLICT, p.classify(422, Map.of(), "Update is not a fast forward"));
+        assertEquals(GitHubRetryPolicy.Failure.NETWORK, p.classify(new IOException(new java.net.SocketTimeoutException())));
+    }
+
+    @Test
+    void await_PollsUntilConditionHolds() throws IOException {
+        AtomicInteger checks = new AtomicInteger();
+        assertTrue(policy(3).await(() -> checks.incrementAndGet() >= 3, 5000));
+        assertEquals(3, checks.get());
+        assertEquals(2, sleeps.size());
+        assertFalse(policy(3).await(() -> false, 500));
+    }
+
+    private static IOException wrap(Exception e) {
+        return new IOException("GitHub call failed: " + e.getMessage(), e);
+    }
+}
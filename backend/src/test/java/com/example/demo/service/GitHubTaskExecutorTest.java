@@ -0,0 +1,95 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubTaskExecutorTest {
+
+    private final GitHubTaskExecutor executor = new GitHubTaskExecutor(
+            new GitHubRateLimitGovernor(50, 0.2, 30_000, 1_000), 8, 3);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void invokeAll_KeepsInputOrder() {
+        List<Integer> out = executor.invokeAll("tok", List.of(30, 10, 20, 0), millis -> {
+            Thread.sleep(millis);
+            return millis;
+        });
+        assertEquals(List.of(30, 10, 20, 0), out);
+    }
+
+    @Test
+    void invokeAll_NeverExceedsPerTokenLimit() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        executor.invokeAll("tok", List.of(1, 2, 3, 4, 5, 6, 7, 8, 9), i -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return i;
+        });
+
+        assertTrue(peak.get() <= 3, "peak was " + peak.get());
+        assertTrue(peak.get() > 1, "tasks should overlap");
+    }
+
+    @Test
+    void invokeAll_InlineCallsShareThePerTokenLimit() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            // un seul élément : exécuté sur le thread appelant
+            callers.add(new Thread(() -> executor.invokeAll("tok", List.of(1), item -> {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                inFlight.decrementAndGet();
+                return item;
+            })));
+        }
+        callers.forEach(Thread::start);
+        for (Thread t : callers) t.join(5_000);
+
+        assertTrue(peak.get() <= 3, "peak was " + peak.get());
+    }
+
+    @Test
+    void invokeAll_FailureCancelsSiblingsAndPropagates() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        RuntimeException error = assertThrows(RuntimeException.class, () ->
+                executor.invokeAll("tok", List.of(0, 1), i -> {
+                    if (i == 1) {
+                        // l'échec doit survenir pendant que la tâche sœur tourne, pas avant son démarrage
+                        started.await(2, TimeUnit.SECONDS);
+                        throw new IllegalStateException("boom");
+                    }
+                    started.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return i;
+                }));
+
+        assertEquals("boom", error.getMessage());
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS), "sibling should be cancelled");
+        // les permissions du token ont été rendues
+        assertEquals(List.of(1, 2, 3), executor.invokeAll("tok", List.of(1, 2, 3), i -> i));
+    }
+}
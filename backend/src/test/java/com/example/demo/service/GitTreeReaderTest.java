@@ -0,0 +1,132 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+class GitTreeReaderTest {
+
+    private final GitHubTaskExecutor taskExecutor = new GitHubTaskExecutor(
+            new GitHubRateLimitGovernor(50, 0.2, 30_000, 1_000), 4, 4);
+
+    @AfterEach
+    void tearDown() {
+        taskExecutor.shutdown();
+    }
+
+    @Test
+    void readTree_KeepsFilesAndDirs_SharesNames() throws IOException {
+        GitTreeReader.Interner names = new GitTreeReader.Interner();
+        GitTreeReader.Listing listing = GitTreeReader.readTree(json("""
+                { "sha": "root", "url": "https://api.github.com/x",
+                  "tree": [
+                    { "path": "api", "mode": "040000", "type": "tree", "sha": "t1", "url": "u" },
+                    { "path": "api/package.json", "mode": "100644", "type": "blob", "sha": "b1", "size": 42, "url": "u" },
+                    { "path": "lib", "mode": "160000", "type": "commit", "sha": "c1" },
+                    { "path": "web/package.json", "type": "blob", "sha": "b2", "size": 7, "extra": { "nested": [1, 2] } }
+                  ],
+                  "truncated": true }
+                """), "mono", names);
+
+        assertTrue(listing.truncated);
+        assertEquals(List.of("mono/api", "mono/api/package.json", "mono/web/package.json"),
+                listing.entries.stream().map(RepoSnapshot.Entry::getPath).collect(Collectors.toList()));
+        assertTrue(listing.entries.get(0).isDirectory());
+        assertEquals(42, listing.entries.get(1).getSize());
+        assertSame(listing.entries.get(1).getName(), listing.entries.get(2).getName());
+    }
+
+    @Test
+    void readContents_FileResponse_IsNotAListing() throws IOException {
+        GitTreeReader.Interner names = new GitTreeReader.Interner();
+
+        List<RepoSnapshot.Entry> dir = GitTreeReader.readContents(json("""
+                [ { "name": "compose.yaml", "path": "deploy/compose.yaml", "sha": "s1", "size": 3, "type": "file", "_links": { "self": "u" } },
+                  { "name": "k8s", "path": "deploy/k8s", "sha": "s2", "size": 0, "type": "dir" },
+                  { "name": "current", "path": "deploy/current", "sha": "s3", "type": "symlink" } ]
+                """), names);
+        List<RepoSnapshot.Entry> file = GitTreeReader.readContents(json("{ \"type\": \"file\", \"content\": \"eA==\" }"), names);
+
+        assertEquals(List.of("compose.yaml", "k8s"), dir.stream().map(RepoSnapshot.Entry::getName).collect(Collectors.toList()));
+        assertTrue(dir.get(1).isDirectory());
+        assertTrue(file.isEmpty());
+    }
+
+    @Test
+    void snapshot_TruncatedTree_IsRebuiltFromSubtrees() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        String api = "https://api.github.com/repos/user/mono/git/trees/";
+        expect(server, api + "main?recursive=1", "[{ \"path\": \"pom.xml\", \"type\": \"blob\", \"sha\": \"p\" }]", true);
+        expect(server, api + "main", """
+                [{ "path": "pom.xml", "type": "blob", "sha": "p" },
+                 { "path": "api", "type": "tree", "sha": "A" },
+                 { "path": "web", "type": "tree", "sha": "W" }]""", false);
+        expect(server, api + "A?recursive=1", """
+                [{ "path": "src", "type": "tree", "sha": "S" },
+                 { "path": "src/Main.java", "type": "blob", "sha": "m" }]""", false);
+        expect(server, api + "W?recursive=1", "[{ \"path\": \"package.json\", \"type\": \"blob\", \"sha\": \"x\" }]", true);
+        expect(server, api + "W", """
+                [{ "path": "package.json", "type": "blob", "sha": "j" },
+                 { "path": "app", "type": "tree", "sha": "P" }]""", false);
+        expect(server, api + "P?recursive=1", "[{ \"path\": \"index.ts\", \"type\": \"blob\", \"sha\": \"i\" }]", false);
+
+        GitHubService service = new GitHubService(restTemplate, new GitBlobCache(1024, "", 0),
+                mock(GitHubConditionalRequestInterceptor.class), mock(GitHubClientCache.class), mock(GitHubRetryPolicy.class),
+                mock(GitHubRateLimitGovernor.class), mock(GitHubPermissionCache.class), taskExecutor);
+        RepoSnapshot snapshot = service.getRepositorySnapshot("https://github.com/user/mono", "tok", "main");
+
+        server.verify();
+        assertEquals(Set.of("pom.xml", "api/src/Main.java", "web/package.json", "web/app/index.ts"), Set.copyOf(snapshot.filePaths()));
+        assertTrue(snapshot.exists("web/app") && !snapshot.isFile("web/app"));
+        assertEquals("j", snapshot.shaOf("web/package.json"));
+    }
+
+    @Test
+    void snapshot_ChunkedTreeBody_IsParsedWithoutBeingBuffered() {
+        GitHubConditionalRequestInterceptor conditionalRequests = new GitHubConditionalRequestInterceptor(1024 * 1024);
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(conditionalRequests);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        HttpHeaders chunked = new HttpHeaders();
+        chunked.setETag("\"tree-v1\"");
+        server.expect(requestTo("https://api.github.com/repos/user/mono/git/trees/HEAD?recursive=1"))
+                .andRespond(withSuccess("{ \"tree\": [{ \"path\": \"pom.xml\", \"type\": \"blob\", \"sha\": \"p\" }], \"truncated\": false }",
+                        MediaType.APPLICATION_JSON).headers(chunked));
+
+        GitHubService service = new GitHubService(restTemplate, new GitBlobCache(1024, "", 0),
+                conditionalRequests, mock(GitHubClientCache.class), mock(GitHubRetryPolicy.class),
+                mock(GitHubRateLimitGovernor.class), mock(GitHubPermissionCache.class), taskExecutor);
+        RepoSnapshot snapshot = service.getRepositorySnapshot("https://github.com/user/mono", "tok", null);
+
+        server.verify();
+        assertTrue(snapshot.isFile("pom.xml"));
+        assertEquals(0L, conditionalRequests.stats().get("stored"));
+    }
+
+    private static void expect(MockRestServiceServer server, String url, String tree, boolean truncated) {
+        server.expect(requestTo(url))
+                .andRespond(withSuccess("{ \"sha\": \"x\", \"tree\": " + tree + ", \"truncated\": " + truncated + " }",
+                        MediaType.APPLICATION_JSON));
+    }
+
+    private static InputStream json(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
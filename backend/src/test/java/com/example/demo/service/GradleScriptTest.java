@@ -0,0 +1,91 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradleScriptTest {
+
+    @Test
+    void groovyDsl_PluginsJavaVersionAndDependencies() {
+        GradleScript script = GradleScript.parse("""
+                // id 'com.android.application'
+                plugins {
+                    id 'java'
+                    id 'org.springframework.boot' version '3.2.4'
+                    id "io.spring.dependency-management" version "1.1.4"
+                }
+                /* sourceCompatibility = '8' */
+                sourceCompatibility = JavaVersion.VERSION_1_8
+                java { toolchain { languageVersion = JavaLanguageVersion.of(21) } }
+                dependencies {
+                    implementation 'org.springframework.boot:spring-boot-starter-web'
+                    runtimeOnly group: 'org.postgresql', name: 'postgresql'
+                    implementation project(':core')
+                    testImplementation "org.junit.jupiter:junit-jupiter:${junitVersion}"
+                }
+                """);
+
+        assertTrue(script.hasPlugin("java"));
+        assertTrue(script.usesSpringBoot());
+        assertFalse(script.isAndroid(), "commented plugin is ignored");
+        assertEquals("21", script.getJavaVersion(), "toolchain wins over sourceCompatibility");
+        assertEquals("3.2.4", script.getSpringBootVersion());
+        assertEquals("org.springframework.boot:spring-boot-starter-web\norg.postgresql:postgresql\norg.junit.jupiter:junit-jupiter\n",
+                script.dependencyCoordinates());
+    }
+
+    @Test
+    void kotlinDsl_AndToolchainFunction() {
+        GradleScript script = GradleScript.parse("""
+                plugins {
+                    kotlin("jvm") version "1.9.22"
+                    id("org.springframework.boot") version "3.3.0"
+                    `java-library`
+                }
+                kotlin { jvmToolchain(17) }
+                dependencies {
+                    implementation(platform("org.springframework.boot:spring-boot-dependencies:3.3.0"))
+                    implementation("org.springframework.boot:spring-boot-starter-data-mongodb")
+                }
+                """);
+
+        assertTrue(script.hasPlugin("org.jetbrains.kotlin.jvm"));
+        assertTrue(script.hasPlugin("java-library"));
+        assertEquals("17", script.getJavaVersion());
+        assertEquals("3.3.0", script.getSpringBootVersion());
+        assertTrue(script.dependencyCoordinates().contains("spring-boot-starter-data-mongodb"));
+    }
+
+    @Test
+    void applyFalse_DeclaresVersionWithoutApplyingPlugin() {
+        GradleScript root = GradleScript.parse("""
+                plugins { id 'org.springframework.boot' version '3.1.0' apply false }
+                subprojects {
+                    apply plugin: 'java'
+                    java { sourceCompatibility = '17' }
+                }
+                """);
+        GradleScript api = GradleScript.parse("plugins { id 'org.springframework.boot' }").withRoot(root);
+
+        assertFalse(root.usesSpringBoot());
+        assertTrue(api.usesSpringBoot());
+        assertTrue(api.hasPlugin("java"));
+        assertEquals("17", api.getJavaVersion());
+        assertEquals("3.1.0", api.getSpringBootVersion());
+    }
+
+    @Test
+    void settings_IncludesAndProjectDirs() {
+        GradleScript settings = GradleScript.parse("""
+                rootProject.name = 'shop'
+                include 'api', ':services:billing'
+                include(":web")
+                project(':web').projectDir = file('frontend/web')
+                """);
+
+        assertEquals(List.of("api", "services/billing", "frontend/web"), settings.getIncludedProjectDirs());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PomModelTest {
+
+    @Test
+    void parse_ResolvesPropertiesAndIgnoresComments() {
+        PomModel pom = PomModel.tryParse("""
+                <project>
+                  <groupId>com.acme</groupId>
+                  <artifactId>orders</artifactId>
+                  <version>1.4.0</version>
+                  <packaging>war</packaging>
+                  <!-- <dependency><artifactId>mysql-connector-java</artifactId></dependency> -->
+                  <description>Migrated from oracle</description>
+                  <properties>
+                    <jdk>17</jdk>
+                    <maven.compiler.source>${jdk}</maven.compiler.source>
+                    <boot.version>3.2.5</boot.version>
+                  </properties>
+                  <dependencyManagement><dependencies><dependency>
+                    <groupId>org.springframework.boot</groupId>
+                    <artifactId>spring-boot-dependencies</artifactId>
+                    <version>${boot.version}</version>
+                    <type>pom</type><scope>import</scope>
+                  </dependency></dependencies></dependencyManagement>
+                  <dependencies>
+                    <dependency>
+                      <groupId>org.postgresql</groupId>
+                      <artifactId>postgresql</artifactId>
+                      <exclusions><exclusion><groupId>x</groupId><artifactId>y</artifactId></exclusion></exclusions>
+                    </dependency>
+                  </dependencies>
+                </project>
+                """);
+
+        assertNotNull(pom);
+        assertEquals("war", pom.getPackaging());
+        assertEquals("17", pom.getJavaVersion());
+        assertEquals("3.2.5", pom.getSpringBootVersion());
+        assertTrue(pom.usesSpringBoot());
+        assertEquals("org.postgresql:postgresql\n", pom.dependencyCoordinates());
+        assertEquals("1.4.0-SNAPSHOT", pom.resolve("${project.version}-SNAPSHOT"));
+        assertEquals("${unknown}", pom.resolve("${unknown}"));
+    }
+
+    @Test
+    void inherit_ChildOverridesParentAndKeepsInheritedDependencies() {
+        PomModel parent = PomModel.tryParse("""
+                <project>
+                  <groupId>com.acme</groupId><artifactId>parent</artifactId><version>2.0</version>
+                  <properties><java.version>1.8</java.version></properties>
+                  <dependencies><dependency><groupId>com.h2database</groupId><artifactId>h2</artifactId></dependency></dependencies>
+                  <build><plugins><plugin>
+                    <artifactId>maven-compiler-plugin</artifactId>
+                    <configuration><release>11</release></configuration>
+                  </plugin></plugins></build>
+                </project>
+                """);
+        PomModel child = PomModel.tryParse("""
+                <project>
+                  <parent><groupId>com.acme</groupId><artifactId>parent</artifactId></parent>
+                  <artifactId>child</artifactId>
+                </project>
+                """);
+
+        assertTrue(child.isParent(parent));
+        PomModel effective = child.inherit(parent);
+        assertEquals("8", effective.getJavaVersion());
+        assertEquals("2.0", effective.getVersion());
+        assertEquals("com.h2database:h2\n", effective.dependencyCoordinates());
+        assertFalse(effective.usesSpringBoot());
+    }
+
+    @Test
+    void paths_RelativeParentAndModules() {
+        PomModel pom = PomModel.tryParse("""
+                <project>
+                  <parent><groupId>g</groupId><artifactId>p</artifactId><relativePath>../../build/pom.xml</relativePath></parent>
+                  <artifactId>a</artifactId>
+                  <packaging>pom</packaging>
+                  <modules><module>core</module><module>../shared</module></modules>
+                </project>
+                """);
+
+        assertTrue(pom.isAggregator());
+        assertEquals("build/pom.xml", pom.parentPomPath("services/app"));
+        assertNull(pom.parentPomPath(""), "outside of the repository");
+        assertEquals(List.of("services/app/core/pom.xml", "services/shared/pom.xml"), pom.modulePomPaths("services/app"));
+    }
+
+    @Test
+    void tryParse_InvalidXml_ReturnsNull() {
+        assertNull(PomModel.tryParse("<project><dependencies></project>"));
+        assertNull(PomModel.tryParse(""));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepoPathIndexTest {
+
+    private final RepoSnapshot snapshot = new RepoSnapshot("HEAD", List.of(
+            file("package.json"),
+            file("web/packages/ui/package.json"),
+            file("web/package.json"),
+            file("api/settings.gradle.kts"),
+            file("api/src/main/java/com/acme/App.java"),
+            new RepoSnapshot.Entry("docs/package.json", RepoSnapshot.TYPE_DIR, null, 0)));
+
+    @Test
+    void filesNamed_AnyDepthSortedByPath() {
+        RepoPathIndex paths = snapshot.paths();
+
+        assertSame(paths, snapshot.paths());
+        assertEquals(List.of("package.json", "web/package.json", "web/packages/ui/package.json"), paths.filesNamed("package.json"));
+        assertEquals(List.of("api/settings.gradle.kts"), paths.filesNamed("settings.gradle.kts"));
+        assertTrue(paths.filesNamed("settings.gradle").isEmpty());
+    }
+
+    private static RepoSnapshot.Entry file(String path) {
+        return new RepoSnapshot.Entry(path, RepoSnapshot.TYPE_FILE, "sha-" + path, 1);
+    }
+}
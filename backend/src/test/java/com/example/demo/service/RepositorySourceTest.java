@@ -0,0 +1,130 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositorySourceTest {
+
+    @Test
+    void local_ListsTheCheckoutWithoutGitMetadata(@TempDir Path root) throws IOException {
+        Files.createDirectories(root.resolve("api/src"));
+        Files.createDirectories(root.resolve(".git/objects"));
+        Files.writeString(root.resolve("api/pom.xml"), "<project/>");
+        Files.writeString(root.resolve(".git/HEAD"), "ref: refs/heads/main");
+
+        RepoSnapshot snapshot = new LocalRepositorySource(root).snapshot();
+
+        assertEquals(List.of("api/pom.xml"), snapshot.filePaths());
+        assertTrue(snapshot.exists("api/src"));
+        assertEquals("<project/>", snapshot.read("api/pom.xml"));
+    }
+
+    @Test
+    void tarGz_StripsTheGitHubRootAndKeepsLongNames() throws IOException {
+        String longDir = "services/" + "a".repeat(120);
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("owner-repo-abc123/pom.xml", "<project/>");
+        files.put("owner-repo-abc123/" + longDir + "/package.json", "{}");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(bytes)) {
+            gz.write(tar(files));
+        }
+        RepoSnapshot snapshot = ArchiveRepositorySource.read("repo.tar.gz", new ByteArrayInputStream(bytes.toByteArray())).snapshot();
+
+        assertEquals(List.of("pom.xml", longDir + "/package.json"), snapshot.filePaths());
+        assertEquals("{}", snapshot.read(longDir + "/package.json"));
+        assertEquals(GitBlobSha.of("<project/>"), snapshot.shaOf("pom.xml"));
+    }
+
+    @Test
+    void zip_KeepsOnlyFilteredContentsAndRejectsEscapingPaths() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (String[] f : new String[][] {{"package.json", "{}"}, {"src/index.js", "x"}, {"../evil/pom.xml", "<project/>"}}) {
+                zip.putNextEntry(new ZipEntry(f[0]));
+                zip.write(f[1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+
+        ArchiveRepositorySource source = ArchiveRepositorySource.zip("repo.zip", new ByteArrayInputStream(bytes.toByteArray()),
+                p -> p.endsWith("package.json"), ArchiveRepositorySource.DEFAULT_MAX_FILE_BYTES);
+        RepoSnapshot snapshot = source.snapshot();
+
+        assertEquals(List.of("package.json", "src/index.js"), snapshot.filePaths());
+        assertEquals(1, source.getRetainedFiles());
+        assertNull(snapshot.read("src/index.js"));
+    }
+
+    @Test
+    void upload_RetainsOnlyDetectorInputsWithinLimits() throws IOException {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("pom.xml", "<project/>");
+        files.put("docs/big.bin", "x".repeat(10_000));
+        files.put("web/package.json", "{}");
+
+        ArchiveRepositorySource source = ArchiveRepositorySource.read("repo.tar", new ByteArrayInputStream(tar(files)), 10, 1024);
+
+        assertEquals(2, source.getRetainedFiles());
+        assertNull(source.snapshot().read("docs/big.bin"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ArchiveRepositorySource.read("repo.tar", new ByteArrayInputStream(tar(files)), 2, 1024));
+        assertThrows(IllegalArgumentException.class,
+                () -> ArchiveRepositorySource.read("repo.tar", new ByteArrayInputStream(tar(files)), 10, 5));
+    }
+
+    @Test
+    void unknownArchiveFormat_IsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ArchiveRepositorySource.read("repo.rar", new ByteArrayInputStream(new byte[0])));
+    }
+
+    /** Archive tar minimale (ustar, nom long GNU au-delà de 100 caractères). */
+    private static byte[] tar(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Map.Entry<String, String> f : files.entrySet()) {
+            byte[] name = f.getKey().getBytes(StandardCharsets.UTF_8);
+            if (name.length > 100) {
+                out.write(header("././@LongLink", name.length, 'L'));
+                writePadded(out, name);
+            }
+            byte[] content = f.getValue().getBytes(StandardCharsets.UTF_8);
+            out.write(header(f.getKey(), content.length, '0'));
+            writePadded(out, content);
+        }
+        out.write(new byte[1024]);
+        return out.toByteArray();
+    }
+
+    private static byte[] header(String name, int size, char type) {
+        byte[] h = new byte[512];
+        byte[] n = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(n, 0, h, 0, Math.min(100, n.length));
+        byte[] s = String.format("%011o", size).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(s, 0, h, 124, s.length);
+        h[156] = (byte) type;
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, h, 257, 8);
+        return h;
+    }
+
+    private static void writePadded(ByteArrayOutputStream out, byte[] data) {
+        out.write(data, 0, data.length);
+        out.write(new byte[(512 - data.length % 512) % 512], 0, (512 - data.length % 512) % 512);
+    }
+}
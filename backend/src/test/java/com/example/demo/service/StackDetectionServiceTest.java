@@ -1,11 +1,13 @@
 package com.example.demo.service;  
 
 import com.example.demo.dto.ServiceAnalysis;  
+import com.example.demo.dto.StackAnalysis;  
 import org.junit.jupiter.api.BeforeEach;  
 import org.junit.jupiter.api.Test;  
 import org.junit.jupiter.api.extension.ExtendWith;  
 import org.mockito.InjectMocks;  
 import org.mockito.Mock;  
+import org.mockito.Spy;  
 import org.mockito.junit.jupiter.MockitoExtension;  
 
 import java.util.*;  
@@ -20,6 +22,16 @@ class StackDetectionServiceTest {
     @Mock  
     private GitHubService gitHubService;  
   
+    @Mock  
+    private GitHubBlobPrefetcher blobPrefetcher;  
+  
+    @Spy  
+    private GitHubTaskExecutor taskExecutor = new GitHubTaskExecutor(  
+            new GitHubRateLimitGovernor(50, 0.2, 30_000, 1_000), 4, 4);  
+  
+    @Spy  
+    private AnalysisLimits analysisLimits = AnalysisLimits.defaults();  
+  
     @InjectMocks  
     private StackDetectionService stackDetectionService;  
   
@@ -33,12 +45,6 @@ class StackDetectionServiceTest {
     @Test  
     void testDetectAllServices_SpringBootMaven_DetectsCorrectly() {  
         // Arrange - Simuler la structure du repository  
-        Map<String, Object> pomFile = new HashMap<>();  
-        pomFile.put("name", "pom.xml");  
-        pomFile.put("type", "file");  
-          
-        List<Map<String, Object>> files = Arrays.asList(pomFile);  
-          
         String pomContent = """  
             <project>  
                 <parent>  
@@ -54,10 +60,8 @@ class StackDetectionServiceTest {
             </project>  
             """;  
           
-        when(gitHubService.getRepositoryContents(eq(REPO_URL), eq(TOKEN), isNull()))  
-            .thenReturn(files);  
-        when(gitHubService.getFileContent(eq(REPO_URL), eq(TOKEN), eq("pom.xml")))  
-            .thenReturn(pomContent);  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of("pom.xml", pomContent)));  
           
         // Act  
         List<ServiceAnalysis> services = stackDetectionService.analyzeAllServices(REPO_URL, TOKEN);  
@@ -68,18 +72,12 @@ class StackDetectionServiceTest {
         assertEquals("SPRING_BOOT_MAVEN", services.get(0).getStackType());  
         assertEquals(".", services.get(0).getWorkingDirectory());  
           
-        verify(gitHubService).getFileContent(eq(REPO_URL), eq(TOKEN), eq("pom.xml"));  
+        assertTrue(readPaths.contains("pom.xml"));  
     }  
   
     @Test  
     void testDetectAllServices_NonSpringBootPom_NotDetected() {  
         // Arrange - pom.xml sans Spring Boot  
-        Map<String, Object> pomFile = new HashMap<>();  
-        pomFile.put("name", "pom.xml");  
-        pomFile.put("type", "file");  
-          
-        List<Map<String, Object>> files = Arrays.asList(pomFile);  
-          
         String pomContent = """  
             <project>  
                 <groupId>com.example</groupId>  
@@ -93,10 +91,8 @@ class StackDetectionServiceTest {
             </project>  
             """;  
           
-        when(gitHubService.getRepositoryContents(eq(REPO_URL), eq(TOKEN), isNull()))  
-            .thenReturn(files);  
-        when(gitHubService.getFileContent(eq(REPO_URL), eq(TOKEN), eq("pom.xml")))  
-            .thenReturn(pomContent);  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of("pom.xml", pomContent)));  
           
         // Act  
         List<ServiceAnalysis> services = stackDetectionService.analyzeAllServices(REPO_URL, TOKEN);  
@@ -112,12 +108,6 @@ class StackDetectionServiceTest {
     @Test  
     void testDetectAllServices_SpringBootGradle_DetectsCorrectly() {  
         // Arrange  
-        Map<String, Object> gradleFile = new HashMap<>();  
-        gradleFile.put("name", "build.gradle");  
-        gradleFile.put("type", "file");  
-          
-        List<Map<String, Object>> files = Arrays.asList(gradleFile);  
-          
         String gradleContent = """  
             plugins {  
                 id 'org.springframework.boot' version '3.0.0'  
@@ -129,10 +119,8 @@ class StackDetectionServiceTest {
             }  
             """;  
           
-        when(gitHubService.getRepositoryContents(eq(REPO_URL), eq(TOKEN), isNull()))  
-            .thenReturn(files);  
-        when(gitHubService.getFileContent(eq(REPO_URL), eq(TOKEN), eq("build.gradle")))  
-            .thenReturn(gradleContent);  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of("build.gradle", gradleContent)));  
           
         // Act  
         List<ServiceAnalysis> services = stackDetectionService.analyzeAllServices(REPO_URL, TOKEN);  
@@ -146,16 +134,6 @@ class StackDetectionServiceTest {
     @Test  
     void testDetectAllServices_AndroidGradle_NotDetected() {  
         // Arrange - Gradle Android (doit être filtré)  
-        Map<String, Object> gradleFile = new HashMap<>();  
-        gradleFile.put("name", "build.gradle");  
-        gradleFile.put("type", "file");  
-          
-        Map<String, Object> manifestFile = new HashMap<>();  
-        manifestFile.put("name", "app");  
-        manifestFile.put("type", "dir");  
-          
-        List<Map<String, Object>> files = Arrays.asList(gradleFile, manifestFile);  
-          
         String gradleContent = """  
             plugins {  
                 id 'com.android.application'  
@@ -167,12 +145,8 @@ class StackDetectionServiceTest {
             }  
             """;  
           
-        when(gitHubService.getRepositoryContents(eq(REPO_URL), eq(TOKEN), isNull()))  
-            .thenReturn(files);  
-        when(gitHubService.getFileContent(eq(REPO_URL), eq(TOKEN), eq("build.gradle")))  
-            .thenReturn(gradleContent);  
-        when(gitHubService.getFileContent(eq(REPO_URL), eq(TOKEN), eq("app/src/main/AndroidManifest.xml")))  
-            .thenReturn("<manifest></manifest>");  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of("build.gradle", gradleContent, "app/src/main/AndroidManifest.xml", "")));  
           
         // Act  
         List<ServiceAnalysis> services = stackDetectionService.analyzeAllServices(REPO_URL, TOKEN);  
@@ -188,12 +162,6 @@ class StackDetectionServiceTest {
     @Test  
     void testDetectAllServices_NodeJs_DetectsCorrectly() {  
         // Arrange  
-        Map<String, Object> packageFile = new HashMap<>();  
-        packageFile.put("name", "package.json");  
-        packageFile.put("type", "file");  
-          
-        List<Map<String, Object>> files = Arrays.asList(packageFile);  
-          
         String packageContent = """  
             {  
                 "name": "my-node-app",  
@@ -203,10 +171,8 @@ class StackDetectionServiceTest {
             }  
             """;  
           
-        when(gitHubService.getRepositoryContents(eq(REPO_URL), eq(TOKEN), isNull()))  
-            .thenReturn(files);  
-        when(gitHubService.getFileContent(eq(REPO_URL), eq(TOKEN), eq("package.json")))  
-            .thenReturn(packageContent);  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of("package.json", packageContent)));  
           
         // Act  
         List<ServiceAnalysis> services = stackDetectionService.analyzeAllServices(REPO_URL, TOKEN);  
@@ -220,12 +186,6 @@ class StackDetectionServiceTest {
     @Test  
     void testDetectAllServices_ReactNative_NotDetected() {  
         // Arrange - React Native (mobile, doit être filtré)  
-        Map<String, Object> packageFile = new HashMap<>();  
-        packageFile.put("name", "package.json");  
-        packageFile.put("type", "file");  
-          
-        List<Map<String, Object>> files = Arrays.asList(packageFile);  
-          
         String packageContent = """  
             {  
                 "name": "my-mobile-app",  
@@ -236,10 +196,8 @@ class StackDetectionServiceTest {
             }  
             """;  
           
-        when(gitHubService.getRepositoryContents(eq(REPO_URL), eq(TOKEN), isNull()))  
-            .thenReturn(files);  
-        when(gitHubService.getFileContent(eq(REPO_URL), eq(TOKEN), eq("package.json")))  
-            .thenReturn(packageContent);  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of("package.json", packageContent)));  
           
         // Act  
         List<ServiceAnalysis> services = stackDetectionService.analyzeAllServices(REPO_URL, TOKEN);  
@@ -251,12 +209,6 @@ class StackDetectionServiceTest {
     @Test  
     void testDetectAllServices_Expo_NotDetected() {  
         // Arrange - Expo (mobile, doit être filtré)  
-        Map<String, Object> packageFile = new HashMap<>();  
-        packageFile.put("name", "package.json");  
-        packageFile.put("type", "file");  
-          
-        List<Map<String, Object>> files = Arrays.asList(packageFile);  
-          
         String packageContent = """  
             {  
                 "name": "my-expo-app",  
@@ -266,10 +218,8 @@ class StackDetectionServiceTest {
             }  
             """;  
           
-        when(gitHubService.getRepositoryContents(eq(REPO_URL), eq(TOKEN), isNull()))  
-            .thenReturn(files);  
-        when(gitHubService.getFileContent(eq(REPO_URL), eq(TOKEN), eq("package.json")))  
-            .thenReturn(packageContent);  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of("package.json", packageContent)));  
           
         // Act  
         List<ServiceAnalysis> services = stackDetectionService.analyzeAllServices(REPO_URL, TOKEN);  
@@ -285,28 +235,6 @@ class StackDetectionServiceTest {
     @Test  
     void testDetectAllServices_MultiService_DetectsAll() {  
         // Arrange - Repository avec backend Spring Boot et frontend Node.js  
-        Map<String, Object> backendDir = new HashMap<>();  
-        backendDir.put("name", "backend");  
-        backendDir.put("type", "dir");  
-          
-        Map<String, Object> frontendDir = new HashMap<>();  
-        frontendDir.put("name", "frontend");  
-        frontendDir.put("type", "dir");  
-          
-        List<Map<String, Object>> rootFiles = Arrays.asList(backendDir, frontendDir);  
-          
-        // Backend files  
-        Map<String, Object> pomFile = new HashMap<>();  
-        pomFile.put("name", "pom.xml");  
-        pomFile.put("type", "file");  
-        List<Map<String, Object>> backendFiles = Arrays.asList(pomFile);  
-          
-        // Frontend files  
-        Map<String, Object> packageFile = new HashMap<>();  
-        packageFile.put("name", "package.json");  
-        packageFile.put("type", "file");  
-        List<Map<String, Object>> frontendFiles = Arrays.asList(packageFile);  
-          
         String pomContent = """  
             <project>  
                 <groupId>org.springframework.boot</groupId>  
@@ -323,16 +251,8 @@ class StackDetectionServiceTest {
             }  
             """;  
           
-        when(gitHubService.getRepositoryContents(eq(REPO_URL), eq(TOKEN), isNull()))  
-            .thenReturn(rootFiles);  
-        when(gitHubService.getRepositoryContents(eq(REPO_URL), eq(TOKEN), eq("backend")))  
-            .thenReturn(backendFiles);  
-        when(gitHubService.getRepositoryContents(eq(REPO_URL), eq(TOKEN), eq("frontend")))  
-            .thenReturn(frontendFiles);  
-        when(gitHubService.getFileContent(eq(REPO_URL), eq(TOKEN), eq("backend/pom.xml")))  
-            .thenReturn(pomContent);  
-        when(gitHubService.getFileContent(eq(REPO_URL), eq(TOKEN), eq("frontend/package.json")))  
-            .thenReturn(packageContent);  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of("backend/pom.xml", pomContent, "frontend/package.json", packageContent)));  
           
         // Act  
         List<ServiceAnalysis> services = stackDetectionService.analyzeAllServices(REPO_URL, TOKEN);  
@@ -350,4 +270,294 @@ class StackDetectionServiceTest {
         assertTrue(hasSpringBoot, "Should detect Spring Boot service");  
         assertTrue(hasNodeJs, "Should detect Node.js service");  
     }  
+  
+    @Test  
+    void testAnalyzeAllServices_MavenMultiModule_ModuleInheritsFromLocalParent() {  
+        String rootPom = """  
+            <project>  
+                <parent>  
+                    <groupId>org.springframework.boot</groupId>  
+                    <artifactId>spring-boot-starter-parent</artifactId>  
+                    <version>3.3.0</version>  
+                </parent>  
+                <groupId>com.acme</groupId>  
+                <artifactId>shop-parent</artifactId>  
+                <packaging>pom</packaging>  
+                <!-- ancien backend postgres, supprimé -->  
+                <properties><java.version>21</java.version></properties>  
+                <modules><module>api</module></modules>  
+            </project>  
+            """;  
+        String apiPom = """  
+            <project>  
+                <parent>  
+                    <groupId>com.acme</groupId>  
+                    <artifactId>shop-parent</artifactId>  
+                </parent>  
+                <artifactId>api</artifactId>  
+                <dependencies>  
+                    <dependency><groupId>com.mysql</groupId><artifactId>mysql-connector-j</artifactId></dependency>  
+                </dependencies>  
+            </project>  
+            """;  
+  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of("pom.xml", rootPom, "api/pom.xml", apiPom)));  
+  
+        List<ServiceAnalysis> services = stackDetectionService.analyzeAllServices(REPO_URL, TOKEN);  
+  
+        assertEquals(List.of("./api", "."), services.stream().map(ServiceAnalysis::getWorkingDirectory).toList());  
+        ServiceAnalysis api = services.get(0);  
+        assertEquals("21", api.getJavaVersion());  
+        assertEquals("MySQL", api.getDatabaseType());  
+        assertEquals("3.3.0", api.getProjectDetails().get("springBootVersion"));  
+        assertEquals("MySQL", services.get(1).getDatabaseType(), "aggregator sees its modules' dependencies, not its comments");  
+    }  
+  
+    @Test  
+    void testAnalyzeAllServices_GradleMultiProject_FollowsSettingsIncludes() {  
+        String settings = "rootProject.name = 'shop'\ninclude 'api'\n";  
+        String rootBuild = """  
+            plugins { id 'org.springframework.boot' version '3.2.0' apply false }  
+            subprojects {  
+                java { toolchain { languageVersion = JavaLanguageVersion.of(21) } }  
+            }  
+            """;  
+        String apiBuild = """  
+            plugins { id("org.springframework.boot") }  
+            dependencies { runtimeOnly("com.h2database:h2") }  
+            """;  
+        String sampleBuild = "plugins { id 'org.springframework.boot' version '2.7.0' }";  
+  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of(  
+                "settings.gradle", settings,  
+                "build.gradle", rootBuild,  
+                "api/build.gradle.kts", apiBuild,  
+                "samples/demo/build.gradle", sampleBuild)));  
+  
+        List<ServiceAnalysis> services = stackDetectionService.analyzeAllServices(REPO_URL, TOKEN);  
+  
+        assertEquals(1, services.size(), "root applies the plugin with apply false, samples/demo is not an included project");  
+        ServiceAnalysis api = services.get(0);  
+        assertEquals("./api", api.getWorkingDirectory());  
+        assertEquals("21", api.getJavaVersion());  
+        assertEquals("H2", api.getDatabaseType());  
+        assertEquals("3.2.0", api.getProjectDetails().get("springBootVersion"));  
+        assertFalse(readPaths.contains("samples/demo/build.gradle"), "non-included projects are not read");  
+    }  
+  
+    // =====================================================================================  
+    // Tests pour analyze() (une seule passe, plusieurs vues)  
+    // =====================================================================================  
+  
+    @Test  
+    void testAnalyze_AllViewsFromOnePass_ReadEachFileOnce() {  
+        String pomContent = "<project><parent><groupId>org.springframework.boot</groupId></parent><dependencies>"  
+            + "<dependency><groupId>org.springframework.boot</groupId><artifactId>spring-boot-starter-data-jpa</artifactId></dependency>"  
+            + "<dependency><groupId>org.postgresql</groupId><artifactId>postgresql</artifactId></dependency>"  
+            + "</dependencies></project>";  
+        String props = "spring.datasource.url=jdbc:postgresql://localhost:5432/shop";  
+        String reactPackage = "{ \"dependencies\": { \"react\": \"^18.0.0\" } }";  
+  
+        when(gitHubService.getRepositorySnapshot(REPO_URL, TOKEN, "main"))  
+            .thenReturn(snapshot(Map.of(  
+                "api/pom.xml", pomContent,  
+                "api/src/main/resources/application.properties", props,  
+                "web/package.json", reactPackage)));  
+  
+        StackDetectionService.RepositoryAnalysis analysis = stackDetectionService.analyze(REPO_URL, TOKEN, "main");  
+        List<ServiceAnalysis> services = stackDetectionService.toServiceAnalyses(analysis);  
+        StackAnalysis single = stackDetectionService.toStackAnalysis(analysis);  
+        Map<String, Object> structured = stackDetectionService.toStructuredServices(analysis);  
+        Map<String, Object> docker = stackDetectionService.toDockerConfiguration(analysis);  
+  
+        assertEquals(2, services.size());  
+        assertEquals("backend-0", services.get(0).getId());  
+        assertEquals("shop", services.get(0).getDatabaseName());  
+        assertEquals("SPRING_BOOT_MAVEN", single.getStackType());  
+        assertEquals("./api", single.getWorkingDirectory());  
+        assertEquals(3, structured.get("totalServices"), "2 services + database");  
+        assertEquals(true, docker.get("hasDatabase"));  
+  
+        verify(gitHubService, times(1)).getRepositorySnapshot(any(), any(), any());  
+        assertEquals(new HashSet<>(readPaths).size(), readPaths.size(), "each file should be read once: " + readPaths);  
+    }  
+  
+    // =====================================================================================  
+    // Tests pour analyzeIncrementally()  
+    // =====================================================================================  
+  
+    @Test  
+    void testAnalyzeIncrementally_OnlyChangedDirectoriesAreReanalyzed() {  
+        String pomContent = "<project><artifactId>spring-boot-starter-web</artifactId></project>";  
+        String reactPackage = "{ \"dependencies\": { \"react\": \"^18.0.0\" } }";  
+  
+        List<ServiceAnalysis> previous = List.of(  
+            new ServiceAnalysis("backend-0", "SPRING_BOOT_MAVEN", "./api", "maven", "Java", new HashMap<>(),  
+                "github-actions", "17", "NONE", "my_database"),  
+            new ServiceAnalysis("frontend-1", "NODE_JS", "./web", "npm", "JavaScript", new HashMap<>(),  
+                "github-actions", null, "NONE", "my_database"));  
+  
+        when(gitHubService.getChangedPaths(REPO_URL, TOKEN, "base", "head"))  
+            .thenReturn(Optional.of(List.of("admin/package.json", "web/src/App.js", "README.md")));  
+        when(gitHubService.getRepositorySnapshot(REPO_URL, TOKEN, "head"))  
+            .thenReturn(snapshot(Map.of(  
+                "api/pom.xml", pomContent,  
+                "admin/package.json", reactPackage,  
+                "web/package.json", reactPackage)));  
+  
+        StackDetectionService.IncrementalResult result =  
+            stackDetectionService.analyzeIncrementally(REPO_URL, TOKEN, "base", "head", previous);  
+  
+        assertNotNull(result);  
+        assertEquals(Set.of("admin"), result.getReanalyzedDirectories());  
+        assertFalse(result.isSingleAnalysisReusable());  
+        assertFalse(readPaths.contains("api/pom.xml"), "unchanged service should not be re-read");  
+  
+        List<ServiceAnalysis> services = result.getServices();  
+        assertEquals(List.of("./admin", "./api", "./web"),  
+            services.stream().map(ServiceAnalysis::getWorkingDirectory).toList());  
+        assertEquals(List.of("frontend-0", "backend-1", "frontend-2"),  
+            services.stream().map(ServiceAnalysis::getId).toList());  
+    }  
+  
+    @Test  
+    void testAnalyzeIncrementally_SingleService_BuildsSingleViewFromTheSameSnapshot() {  
+        String pomContent = "<project><properties><java.version>21</java.version></properties><artifactId>spring-boot-starter-web</artifactId></project>";  
+        List<ServiceAnalysis> previous = List.of(  
+            new ServiceAnalysis("backend-0", "SPRING_BOOT_MAVEN", ".", "maven", "Java", new HashMap<>(),  
+                "github-actions", "17", "NONE", "my_database"));  
+  
+        when(gitHubService.getChangedPaths(REPO_URL, TOKEN, "base", "head"))  
+            .thenReturn(Optional.of(List.of("README.md")));  
+        when(gitHubService.getRepositorySnapshot(REPO_URL, TOKEN, "head"))  
+            .thenReturn(snapshot(Map.of("pom.xml", pomContent, "README.md", "# demo")));  
+  
+        StackDetectionService.IncrementalResult result =  
+            stackDetectionService.analyzeIncrementally(REPO_URL, TOKEN, "base", "head", previous);  
+  
+        assertFalse(result.isSingleAnalysisReusable());  
+        assertNotNull(result.getSingleAnalysis());  
+        assertEquals("21", result.getSingleAnalysis().getJavaVersion());  
+        assertNull(result.getIncompleteReason());  
+        verify(gitHubService, times(1)).getRepositorySnapshot(any(), any(), any());  
+    }  
+  
+    @Test  
+    void testAnalyzeIncrementally_LeafModulePomChange_OnlyRedoesThatModuleAndItsAggregator() {  
+        String rootPom = """  
+            <project>  
+                <parent>  
+                    <groupId>org.springframework.boot</groupId>  
+                    <artifactId>spring-boot-starter-parent</artifactId>  
+                    <version>3.3.0</version>  
+                </parent>  
+                <groupId>com.acme</groupId>  
+                <artifactId>shop-parent</artifactId>  
+                <packaging>pom</packaging>  
+                <modules><module>api</module><module>billing</module></modules>  
+            </project>  
+            """;  
+        String modulePom = """  
+            <project>  
+                <parent>  
+                    <groupId>com.acme</groupId>  
+                    <artifactId>shop-parent</artifactId>  
+                </parent>  
+                <artifactId>%s</artifactId>  
+            </project>  
+            """;  
+        ServiceAnalysis api = new ServiceAnalysis("backend-0", "SPRING_BOOT_MAVEN", "./api", "maven", "Java", new HashMap<>(),  
+            "github-actions", "17", "NONE", "my_database");  
+        List<ServiceAnalysis> previous = List.of(  
+            api,  
+            new ServiceAnalysis("backend-1", "SPRING_BOOT_MAVEN", "./billing", "maven", "Java", new HashMap<>(),  
+                "github-actions", "17", "NONE", "my_database"),  
+            new ServiceAnalysis("backend-2", "SPRING_BOOT_MAVEN", ".", "maven", "Java", new HashMap<>(),  
+                "github-actions", "17", "NONE", "my_database"));  
+  
+        when(gitHubService.getChangedPaths(REPO_URL, TOKEN, "base", "head"))  
+            .thenReturn(Optional.of(List.of("billing/pom.xml")));  
+        when(gitHubService.getRepositorySnapshot(REPO_URL, TOKEN, "head"))  
+            .thenReturn(snapshot(Map.of("pom.xml", rootPom,  
+                "api/pom.xml", modulePom.formatted("api"),  
+                "billing/pom.xml", modulePom.formatted("billing"))));  
+  
+        StackDetectionService.IncrementalResult result =  
+            stackDetectionService.analyzeIncrementally(REPO_URL, TOKEN, "base", "head", previous);  
+  
+        assertEquals(Set.of("", "billing"), result.getReanalyzedDirectories());  
+        assertSame(api, result.getServices().get(0), "sibling module is reused as is");  
+        assertEquals(List.of("./api", "./billing", "."),  
+            result.getServices().stream().map(ServiceAnalysis::getWorkingDirectory).toList());  
+    }  
+  
+    @Test  
+    void testAnalyzeIncrementally_RewrittenHistory_ReturnsNull() {  
+        when(gitHubService.getChangedPaths(REPO_URL, TOKEN, "base", "head")).thenReturn(Optional.empty());  
+  
+        assertNull(stackDetectionService.analyzeIncrementally(REPO_URL, TOKEN, "base", "head", List.of()));  
+        verify(gitHubService, never()).getRepositorySnapshot(any(), any(), any());  
+    }  
+  
+    @Test  
+    void testDetectAllServices_PrunedDirectories_NotWalkedNorRead() {  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of(  
+                "package.json", "{ \"dependencies\": { \"react\": \"18\" } }",  
+                "node_modules/lodash/package.json", "{}",  
+                "test/fixtures/app/package.json", "{}",  
+                "web/dist/package.json", "{}")));  
+  
+        List<ServiceAnalysis> services = stackDetectionService.analyzeAllServices(REPO_URL, TOKEN);  
+  
+        assertEquals(List.of("."), services.stream().map(ServiceAnalysis::getWorkingDirectory).toList());  
+        assertTrue(readPaths.stream().noneMatch(p -> p.contains("/")), "pruned trees should not be read: " + readPaths);  
+    }  
+  
+    @Test  
+    void testAnalyze_BudgetExhausted_ReturnsPartialResultFlaggedIncomplete() {  
+        doReturn(new AnalysisBudget(2, 0, 0)).when(analysisLimits).newBudget();  
+        when(gitHubService.getRepositorySnapshot(eq(REPO_URL), eq(TOKEN), isNull()))  
+            .thenReturn(snapshot(Map.of(  
+                "a/package.json", "{ \"dependencies\": { \"express\": \"4\" } }",  
+                "b/package.json", "{}",  
+                "c/package.json", "{}")));  
+  
+        StackDetectionService.RepositoryAnalysis analysis = stackDetectionService.analyze(REPO_URL, TOKEN, null);  
+  
+        assertTrue(analysis.isIncomplete());  
+        assertEquals("more than 2 files visited", analysis.getIncompleteReason());  
+        assertEquals(1, analysis.getServiceCount());  
+        Map<String, Object> structured = stackDetectionService.toStructuredServices(analysis);  
+        assertEquals(true, structured.get("incomplete"));  
+    }  
+  
+    @Test  
+    void testAnalyze_LocalCheckout_DoesNotCallGitHub(@org.junit.jupiter.api.io.TempDir java.nio.file.Path root) throws Exception {  
+        java.nio.file.Files.createDirectories(root.resolve("web"));  
+        java.nio.file.Files.writeString(root.resolve("web/package.json"), "{ \"dependencies\": { \"react\": \"18\" } }");  
+  
+        StackDetectionService.RepositoryAnalysis analysis = stackDetectionService.analyze(new LocalRepositorySource(root));  
+  
+        List<ServiceAnalysis> services = stackDetectionService.toServiceAnalyses(analysis);  
+        assertEquals(List.of("./web"), services.stream().map(ServiceAnalysis::getWorkingDirectory).toList());  
+        verifyNoInteractions(gitHubService);  
+    }  
+  
+    /** Chemins dont le contenu a été lu via le snapshot (cache de blobs). */  
+    private final List<String> readPaths = Collections.synchronizedList(new ArrayList<>());  
+  
+    /** Arbre simulé (réponse git/trees) : chemin -> contenu, les dossiers sont déduits. */  
+    private RepoSnapshot snapshot(Map<String, String> files) {  
+        List<RepoSnapshot.Entry> entries = new ArrayList<>();  
+        for (String path : files.keySet()) {  
+            entries.add(new RepoSnapshot.Entry(path, RepoSnapshot.TYPE_FILE, "sha-" + path, 0));  
+        }  
+        return new RepoSnapshot("HEAD", entries, entry -> {  
+            readPaths.add(entry.getPath());  
+            return files.get(entry.getPath());  
+        });  
+    }  
 }
\ No newline at end of file
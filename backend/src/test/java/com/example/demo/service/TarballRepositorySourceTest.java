@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TarballRepositorySourceTest {
+
+    private static final String REPO_URL = "https://github.com/user/monorepo";
+
+    private final GitHubService gitHubService = mock(GitHubService.class);
+    private final GitHubBlobPrefetcher prefetcher = mock(GitHubBlobPrefetcher.class);
+    private final AnalysisLimits limits = AnalysisLimits.defaults();
+
+    @Test
+    void detectorInputs_CoverBuildConfigAndContainerFiles() {
+        for (String path : List.of("pom.xml", "a/build.gradle.kts", "web/package.json", "api/src/main/resources/application-dev.yml",
+                "api/src/main/resources/application.properties", ".nvmrc", "Dockerfile.prod", "docker-compose.override.yaml", "compose.yml")) {
+            assertTrue(DetectorInputs.isRelevant(path), path);
+        }
+        for (String path : List.of("README.md", "src/App.tsx", "application.java", "docker-compose.md")) {
+            assertFalse(DetectorInputs.isRelevant(path), path);
+        }
+    }
+
+    @Test
+    void auto_SmallRepository_KeepsTheApiSnapshot() {
+        RepoSnapshot tree = new RepoSnapshot("HEAD", List.of(
+                new RepoSnapshot.Entry("pom.xml", RepoSnapshot.TYPE_FILE, "sha", 10),
+                new RepoSnapshot.Entry("README.md", RepoSnapshot.TYPE_FILE, "sha2", 10)));
+        when(gitHubService.getRepositorySnapshot(REPO_URL, "t", "main")).thenReturn(tree);
+
+        TarballRepositorySource source = source(2);
+        RepoSnapshot snapshot = source.snapshot();
+        source.prefetch(snapshot, List.of("pom.xml"));
+
+        assertSame(tree, snapshot);
+        verify(gitHubService, never()).downloadTarball(any(), any(), any(), any(), anyInt(), anyInt(), anyLong());
+        verify(prefetcher).prefetch(REPO_URL, "t", tree, List.of("pom.xml"));
+    }
+
+    @Test
+    void auto_Monorepo_SwitchesToTheArchive() {
+        RepoSnapshot tree = new RepoSnapshot("HEAD", List.of(
+                new RepoSnapshot.Entry("a/pom.xml", RepoSnapshot.TYPE_FILE, "sha", 10),
+                new RepoSnapshot.Entry("b/package.json", RepoSnapshot.TYPE_FILE, "sha2", 10)));
+        ArchiveRepositorySource archive = mock(ArchiveRepositorySource.class);
+        RepoSnapshot fromArchive = new RepoSnapshot("archive", List.of());
+        when(archive.snapshot()).thenReturn(fromArchive);
+        when(gitHubService.getRepositorySnapshot(REPO_URL, "t", "main")).thenReturn(tree);
+        when(gitHubService.downloadTarball(eq(REPO_URL), eq("t"), eq("main"), any(), eq(1024), eq(10), eq(4096L))).thenReturn(archive);
+
+        TarballRepositorySource source = source(2);
+        assertSame(fromArchive, source.snapshot());
+        source.prefetch(fromArchive, List.of("a/pom.xml"));
+
+        verifyNoInteractions(prefetcher);
+    }
+
+    @Test
+    void auto_PrunedDirectories_DoNotCountTowardsTheArchive() {
+        RepoSnapshot tree = new RepoSnapshot("HEAD", List.of(
+                new RepoSnapshot.Entry("package.json", RepoSnapshot.TYPE_FILE, "sha", 10),
+                new RepoSnapshot.Entry("node_modules/a/package.json", RepoSnapshot.TYPE_FILE, "sha2", 10),
+                new RepoSnapshot.Entry("node_modules/b/package.json", RepoSnapshot.TYPE_FILE, "sha3", 10)));
+        when(gitHubService.getRepositorySnapshot(REPO_URL, "t", "main")).thenReturn(tree);
+
+        assertSame(tree, source(2).snapshot());
+        verify(gitHubService, never()).downloadTarball(any(), any(), any(), any(), anyInt(), anyInt(), anyLong());
+    }
+
+    private TarballRepositorySource source(int minRelevantFiles) {
+        return new TarballRepositorySource(gitHubService, prefetcher, REPO_URL, "t", "main",
+                path -> DetectorInputs.isRelevant(path) && !limits.isExcluded(path), minRelevantFiles, 1024, 10, 4096);
+    }
+}